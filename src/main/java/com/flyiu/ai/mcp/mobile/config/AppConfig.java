@@ -7,7 +7,7 @@ import org.springframework.context.annotation.Configuration;
  * 应用主配置类
  */
 @Configuration
-@EnableConfigurationProperties({ AppiumConfig.class, DeviceConfig.class })
+@EnableConfigurationProperties({ AppiumConfig.class, DeviceConfig.class, VisionConfig.class })
 public class AppConfig {
     // 后续可添加全局Bean配置
 }
\ No newline at end of file
@@ -4,6 +4,7 @@ import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -17,6 +18,17 @@ public class AppiumConfig {
     private Server server;
     private Screenshots screenshots;
     private Recording recording;
+    private Pool pool = new Pool();
+    private CommandQueue commandQueue = new CommandQueue();
+    private Health health = new Health();
+    private Eviction eviction = new Eviction();
+    private Processes processes = new Processes();
+    private Lease lease = new Lease();
+    private Snapshot snapshot = new Snapshot();
+    private Wait wait = new Wait();
+    private Input input = new Input();
+    private Settle settle = new Settle();
+    private Delta delta = new Delta();
 
     @Data
     public static class Server {
@@ -24,6 +36,20 @@ public class AppiumConfig {
         private int connectTimeout = 5000; // 默认连接超时时间5秒
         private boolean autoStart;
         private String appiumPath = "appium"; // Appium可执行文件路径，默认为"appium"
+        private List<ServerNode> nodes; // 多个Appium服务器节点，为空时只使用url
+        private String placement = "least-load"; // 设备分配策略: least-load（最小负载）, consistent-hash（一致性哈希）
+        private long nodeRetryInterval = 30000; // 节点被标记为不可用后，再次尝试的间隔（毫秒）
+        private long statusInterval = 5000; // 后台探测服务器状态的间隔（毫秒）
+        private long statusTtl = 15000; // 缓存的服务器状态有效期（毫秒），过期后同步探测一次
+        private int statusTimeout = 2000; // 单次状态探测的超时时间（毫秒）
+        private long startupTimeout = 60000; // 启动Appium进程后等待其可用的最长时间（毫秒）
+        private List<String> args = List.of("--relaxed-security"); // 启动Appium进程时附加的命令行参数
+    }
+
+    @Data
+    public static class ServerNode {
+        private String url;
+        private int capacity = 8; // 该节点最多承载的会话数量，0表示不限制
     }
 
     @Data
@@ -42,4 +68,86 @@ public class AppiumConfig {
         private int maxDuration = 3600; // 最大录制时长（秒）
         private String syncPath; // 视频同步路径，如果为空则使用用户主目录下的AppiumVideos
     }
-}
\ No newline at end of file
+
+    @Data
+    public static class Pool {
+        private boolean enabled = false; // 是否启用会话预热池
+        private boolean warmUpOnStartup = true; // 应用启动后是否预热所有已配置设备的会话
+        private long leaseTimeout = 30000; // 连接时等待预热中会话的最长时间（毫秒）
+    }
+
+    @Data
+    public static class CommandQueue {
+        private int capacity = 32; // 每台设备排队中（含执行中）命令的最大数量
+        private String policy = "wait"; // 队列已满时的策略: wait（等待空位）, reject（直接拒绝）
+        private long waitTimeout = 30000; // wait策略下等待空位的最长时间（毫秒）
+        private long executionTimeout = 120000; // 调用方等待单条命令执行完成的最长时间（毫秒），超时后取消命令，0表示不限制
+    }
+
+    @Data
+    public static class Health {
+        private boolean enabled = true; // 是否启用会话心跳检测
+        private long interval = 15000; // 心跳间隔（毫秒）
+        private boolean autoReconnect = true; // 发现失效会话时是否自动重连
+    }
+
+    @Data
+    public static class Eviction {
+        private long idleTtl = 0; // 已连接会话的最长空闲时间（毫秒），超过后自动关闭，0表示不淘汰（默认）
+        private int maxActiveSessions = 0; // 会话总数上限（含预热池空闲会话），超过时按LRU淘汰，0表示不限制
+    }
+
+    @Data
+    public static class Processes {
+        private boolean enabled = false; // 是否在本机启动并托管多个Appium进程
+        private int size = 2; // 托管的Appium进程数量
+        private String host = "127.0.0.1"; // Appium进程监听的地址
+        private int basePort = 4730; // 端口分配的起始值，被占用的端口会自动跳过
+        private int capacity = 4; // 每个进程最多承载的会话数量
+        private long restartBackoff = 1000; // 进程异常退出后首次重启的等待时间（毫秒），之后按倍数递增
+        private long maxRestartBackoff = 60000; // 重启等待时间的上限（毫秒）
+        private long stableAfter = 60000; // 进程连续运行超过该时间后重置重启等待时间（毫秒）
+    }
+
+    @Data
+    public static class Lease {
+        private String policy = "fifo"; // 排队策略: fifo（先到先得）, priority（优先级高者先得，同优先级先到先得）
+        private long defaultTtl = 300000; // 租约默认有效期（毫秒），到期未续租自动释放
+        private long maxTtl = 3600000; // 单次租用或续租允许的最长有效期（毫秒）
+        private long waitTimeout = 60000; // 等待设备空闲的默认最长时间（毫秒）
+        private long sweepInterval = 1000; // 检查租约到期的间隔（毫秒）
+    }
+
+    @Data
+    public static class Snapshot {
+        private boolean enabled = true; // 是否通过页面源码快照在本地回答元素查询
+        private long ttl = 1000; // 快照有效期（毫秒），期间无设备操作时重复查询不再请求设备
+    }
+
+    @Data
+    public static class Wait {
+        private long minPollInterval = 50; // 等待元素时的最小轮询间隔（毫秒），页面仍在变化时使用
+        private double backoffMultiplier = 1.5; // 页面没有变化时轮询间隔的增长倍数，上限为等待策略中的轮询间隔
+        private boolean serverSide = true; // 单个无法在快照上查询的定位器是否交给服务端隐式等待
+        private long serverSlice = 1000; // 单次服务端等待的最长时间（毫秒），两次之间让出设备命令队列
+    }
+
+    @Data
+    public static class Input {
+        // 整段文本输入的候选方式，按顺序尝试: mobile-type, adb-ime, clipboard, active-element
+        private List<String> strategies = List.of("mobile-type", "adb-ime", "clipboard", "active-element");
+    }
+
+    @Data
+    public static class Settle {
+        private long quietPeriod = 300; // 页面源码指纹在这段时间内不变即视为界面稳定（毫秒）
+        private long timeout = 5000; // 等待界面稳定的最长时间（毫秒），超过后不再等待
+        private long pollInterval = 100; // 两次获取指纹之间的间隔（毫秒）
+        private boolean afterLaunch = true; // 启动或重启应用后是否等待界面稳定再返回
+    }
+
+    @Data
+    public static class Delta {
+        private int history = 16; // 每台设备保留的观察版本数量，基准版本早于此范围时返回全部元素
+    }
+}
@@ -17,6 +17,7 @@ public class DeviceConfig {
 
     private List<DeviceCapabilities> android;
     private List<DeviceCapabilities> ios;
+    private Discovery discovery = new Discovery();
 
     @Data
     public static class DeviceCapabilities {
@@ -29,4 +30,25 @@ public class DeviceConfig {
         // 可以添加更多Appium支持的capabilities
         private Map<String, Object> extraCapabilities;
     }
-}
\ No newline at end of file
+
+    @Data
+    public static class Discovery {
+        private boolean enabled = false; // 是否通过adb自动发现Android设备
+        private String adbPath = "adb"; // adb可执行文件路径
+        private long interval = 3000; // 轮询adb devices的间隔（毫秒）
+        private long commandTimeout = 5000; // 单次adb命令的超时时间（毫秒）
+        private String namePrefix = "android-"; // 自动发现设备的名称前缀，后接设备序列号
+        private int systemPortBase = 8200; // UiAutomator2 systemPort的起始值，每台设备分配一个，避免并行会话端口冲突
+        private boolean autoConnect = false; // 发现设备后是否立即创建会话
+        private DeviceCapabilities template = defaultTemplate(); // 生成设备配置时使用的模板
+
+        private static DeviceCapabilities defaultTemplate() {
+            DeviceCapabilities template = new DeviceCapabilities();
+            template.setPlatformName("Android");
+            template.setAutomationName("UiAutomator2");
+            template.setNoReset(true);
+            template.setNewCommandTimeout(600);
+            return template;
+        }
+    }
+}
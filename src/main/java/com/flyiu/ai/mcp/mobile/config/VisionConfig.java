@@ -0,0 +1,20 @@
+package com.flyiu.ai.mcp.mobile.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 视觉大模型客户端配置类
+ * 模型地址、密钥与模型名沿用spring.ai.openai下的配置
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "vision")
+public class VisionConfig {
+
+    private int maxConcurrency = 4; // 同时进行的大模型请求数量上限
+    private long acquireTimeout = 30000; // 并发已满时等待空位的最长时间（毫秒）
+    private long connectTimeout = 10000; // 建立连接的超时时间（毫秒）
+    private long readTimeout = 120000; // 等待模型响应的超时时间（毫秒），识别截图通常需要数十秒
+}
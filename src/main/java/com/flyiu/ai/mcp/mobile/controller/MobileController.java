@@ -1,10 +1,25 @@
 package com.flyiu.ai.mcp.mobile.controller;
 
+import com.flyiu.ai.mcp.mobile.model.ActionStep;
 import com.flyiu.ai.mcp.mobile.model.DeviceSession;
+import com.flyiu.ai.mcp.mobile.model.LaunchResult;
+import com.flyiu.ai.mcp.mobile.service.appium.AdbDeviceDiscovery;
+import com.flyiu.ai.mcp.mobile.service.appium.AppLaunchService;
 import com.flyiu.ai.mcp.mobile.service.appium.AppiumOperationService;
+import com.flyiu.ai.mcp.mobile.service.appium.AppiumProcessManager;
+import com.flyiu.ai.mcp.mobile.service.appium.AppiumServerRegistry;
+import com.flyiu.ai.mcp.mobile.service.appium.AppiumServerStatusMonitor;
 import com.flyiu.ai.mcp.mobile.service.appium.AppiumSessionManager;
+import com.flyiu.ai.mcp.mobile.service.appium.DeviceCommandQueue;
+import com.flyiu.ai.mcp.mobile.service.appium.DeviceLeaseManager;
+import com.flyiu.ai.mcp.mobile.service.appium.ElementHandleRegistry;
+import com.flyiu.ai.mcp.mobile.service.appium.PageSnapshotService;
+import com.flyiu.ai.mcp.mobile.service.appium.ScreenDeltaService;
+import com.flyiu.ai.mcp.mobile.service.appium.SessionHealthMonitor;
+import com.flyiu.ai.mcp.mobile.service.appium.TextInputService;
 import com.flyiu.ai.mcp.mobile.service.screenshot.ScreenshotService;
 import com.flyiu.ai.mcp.mobile.service.screenshot.RecordService;
+import com.flyiu.ai.mcp.mobile.service.vision.VisionChatClient;
 import com.google.gson.Gson;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
@@ -24,6 +39,7 @@ import org.springframework.web.bind.annotation.*;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * 移动设备控制器 - REST API接口
@@ -37,6 +53,19 @@ public class MobileController {
     private final AppiumOperationService operationService;
     private final ScreenshotService screenshotService;
     private final RecordService recordService;
+    private final DeviceCommandQueue commandQueue;
+    private final SessionHealthMonitor healthMonitor;
+    private final AppiumServerRegistry serverRegistry;
+    private final AppiumServerStatusMonitor serverStatusMonitor;
+    private final AppiumProcessManager processManager;
+    private final AdbDeviceDiscovery deviceDiscovery;
+    private final DeviceLeaseManager leaseManager;
+    private final PageSnapshotService snapshotService;
+    private final ElementHandleRegistry handleRegistry;
+    private final TextInputService textInputService;
+    private final AppLaunchService appLaunchService;
+    private final ScreenDeltaService deltaService;
+    private final VisionChatClient visionClient;
     private final ObjectMapper objectMapper;
 
     @Autowired
@@ -44,11 +73,37 @@ public class MobileController {
             AppiumSessionManager sessionManager,
             AppiumOperationService operationService,
             ScreenshotService screenshotService,
-            RecordService recordService) {
+            RecordService recordService,
+            DeviceCommandQueue commandQueue,
+            SessionHealthMonitor healthMonitor,
+            AppiumServerRegistry serverRegistry,
+            AppiumServerStatusMonitor serverStatusMonitor,
+            AppiumProcessManager processManager,
+            AdbDeviceDiscovery deviceDiscovery,
+            DeviceLeaseManager leaseManager,
+            PageSnapshotService snapshotService,
+            ElementHandleRegistry handleRegistry,
+            TextInputService textInputService,
+            AppLaunchService appLaunchService,
+            ScreenDeltaService deltaService,
+            VisionChatClient visionClient) {
         this.sessionManager = sessionManager;
         this.operationService = operationService;
         this.screenshotService = screenshotService;
         this.recordService = recordService;
+        this.commandQueue = commandQueue;
+        this.healthMonitor = healthMonitor;
+        this.serverRegistry = serverRegistry;
+        this.serverStatusMonitor = serverStatusMonitor;
+        this.processManager = processManager;
+        this.deviceDiscovery = deviceDiscovery;
+        this.leaseManager = leaseManager;
+        this.snapshotService = snapshotService;
+        this.handleRegistry = handleRegistry;
+        this.textInputService = textInputService;
+        this.appLaunchService = appLaunchService;
+        this.deltaService = deltaService;
+        this.visionClient = visionClient;
         this.objectMapper = new ObjectMapper();
     }
 
@@ -90,10 +145,12 @@ public class MobileController {
     public Map<String, Object> connectIOS(@RequestParam(required = false) String deviceName) {
         try {
             deviceName = (deviceName == null || deviceName.isEmpty()) ? "default-ios" : deviceName;
+            DeviceSession existing = sessionManager.getSession(deviceName).orElse(null);
             DeviceSession session = sessionManager.createIOSSession(deviceName);
             return Map.of(
                     "success", true,
                     "deviceName", session.getDeviceName(),
+                    "reused", session == existing,
                     "message", "成功连接iOS设备: " + deviceName);
         } catch (Exception e) {
             log.error("连接iOS设备失败", e);
@@ -103,6 +160,21 @@ public class MobileController {
         }
     }
 
+    /**
+     * 并行连接所有已配置的设备
+     */
+    @PostMapping("/connectAll")
+    @ResponseBody
+    public CompletableFuture<Map<String, Object>> connectAllDevices() {
+        return sessionManager.connectAllDevices()
+                .exceptionally(e -> {
+                    log.error("连接所有设备失败", e);
+                    return Map.of(
+                            "success", false,
+                            "error", e.getMessage());
+                });
+    }
+
     /**
      * 断开设备连接
      */
@@ -122,6 +194,210 @@ public class MobileController {
         }
     }
 
+    /**
+     * 获取会话预热池状态
+     */
+    @GetMapping("/pool/status")
+    @ResponseBody
+    public Map<String, Object> getPoolStatus() {
+        try {
+            Map<String, Object> response = new HashMap<>(sessionManager.getPoolStatus());
+            response.put("success", true);
+            return response;
+        } catch (Exception e) {
+            log.error("获取预热池状态失败", e);
+            return Map.of(
+                    "success", false,
+                    "error", e.getMessage());
+        }
+    }
+
+    /**
+     * 获取各设备命令队列状态
+     */
+    @GetMapping("/queue/status")
+    @ResponseBody
+    public Map<String, Object> getQueueStatus() {
+        try {
+            Map<String, Object> response = new HashMap<>(commandQueue.getQueueStatus());
+            response.put("success", true);
+            return response;
+        } catch (Exception e) {
+            log.error("获取命令队列状态失败", e);
+            return Map.of(
+                    "success", false,
+                    "error", e.getMessage());
+        }
+    }
+
+    /**
+     * 获取设备会话健康状态
+     */
+    @GetMapping("/sessions/health")
+    @ResponseBody
+    public Map<String, Object> getSessionHealth() {
+        try {
+            Map<String, Object> response = new HashMap<>(healthMonitor.getHealthStatus());
+            response.put("success", true);
+            return response;
+        } catch (Exception e) {
+            log.error("获取会话健康状态失败", e);
+            return Map.of(
+                    "success", false,
+                    "error", e.getMessage());
+        }
+    }
+
+    /**
+     * 获取Appium服务器节点状态
+     */
+    @GetMapping("/servers/status")
+    @ResponseBody
+    public Map<String, Object> getServersStatus() {
+        try {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("servers", serverRegistry.getServerStatus());
+            response.put("probe", serverStatusMonitor.getStatus());
+            response.put("processes", processManager.getProcessStatus());
+            return response;
+        } catch (Exception e) {
+            log.error("获取Appium服务器节点状态失败", e);
+            return Map.of(
+                    "success", false,
+                    "error", e.getMessage());
+        }
+    }
+
+    /**
+     * 获取adb设备自动发现状态
+     */
+    @GetMapping("/devices/discovery")
+    @ResponseBody
+    public Map<String, Object> getDeviceDiscovery() {
+        try {
+            Map<String, Object> response = new HashMap<>(deviceDiscovery.getDiscoveryStatus());
+            response.put("success", true);
+            return response;
+        } catch (Exception e) {
+            log.error("获取设备发现状态失败", e);
+            return Map.of(
+                    "success", false,
+                    "error", e.getMessage());
+        }
+    }
+
+    /**
+     * 获取设备租约状态
+     */
+    @GetMapping("/leases/status")
+    @ResponseBody
+    public Map<String, Object> getLeaseStatus() {
+        try {
+            Map<String, Object> response = new HashMap<>(leaseManager.getLeaseStatus());
+            response.put("success", true);
+            return response;
+        } catch (Exception e) {
+            log.error("获取设备租约状态失败", e);
+            return Map.of(
+                    "success", false,
+                    "error", e.getMessage());
+        }
+    }
+
+    /**
+     * 获取页面快照、元素句柄及界面变化统计
+     */
+    @GetMapping("/snapshots/status")
+    @ResponseBody
+    public Map<String, Object> getSnapshotStatus() {
+        try {
+            Map<String, Object> response = new HashMap<>(snapshotService.getSnapshotStatus());
+            response.put("handles", handleRegistry.getHandleStatus());
+            response.put("delta", deltaService.getDeltaStatus());
+            response.put("success", true);
+            return response;
+        } catch (Exception e) {
+            log.error("获取页面快照统计失败", e);
+            return Map.of(
+                    "success", false,
+                    "error", e.getMessage());
+        }
+    }
+
+    /**
+     * 获取文本输入方式统计
+     */
+    @GetMapping("/input/status")
+    @ResponseBody
+    public Map<String, Object> getInputStatus() {
+        try {
+            Map<String, Object> response = new HashMap<>(textInputService.getInputStatus());
+            response.put("success", true);
+            return response;
+        } catch (Exception e) {
+            log.error("获取文本输入统计失败", e);
+            return Map.of(
+                    "success", false,
+                    "error", e.getMessage());
+        }
+    }
+
+    /**
+     * 获取指定版本之后的界面变化
+     */
+    @GetMapping("/screen/changes")
+    @ResponseBody
+    public Map<String, Object> getScreenChanges(@RequestParam String deviceName,
+            @RequestParam(required = false) Long since) {
+        try {
+            Map<String, Object> response = new HashMap<>(operationService.getScreenChanges(deviceName, since));
+            response.put("success", true);
+            return response;
+        } catch (Exception e) {
+            log.error("获取界面变化失败: {}", deviceName, e);
+            return Map.of(
+                    "success", false,
+                    "error", e.getMessage());
+        }
+    }
+
+    /**
+     * 获取视觉模型客户端统计
+     */
+    @GetMapping("/vision/status")
+    @ResponseBody
+    public Map<String, Object> getVisionStatus() {
+        try {
+            Map<String, Object> response = new HashMap<>(visionClient.getVisionStatus());
+            response.put("success", true);
+            return response;
+        } catch (Exception e) {
+            log.error("获取视觉模型客户端统计失败", e);
+            return Map.of(
+                    "success", false,
+                    "error", e.getMessage());
+        }
+    }
+
+    /**
+     * 获取应用启动统计
+     */
+    @GetMapping("/launch/status")
+    @ResponseBody
+    public Map<String, Object> getLaunchStatus() {
+        try {
+            Map<String, Object> response = new HashMap<>(appLaunchService.getLaunchStatus());
+            response.put("success", true);
+            return response;
+        } catch (Exception e) {
+            log.error("获取应用启动统计失败", e);
+            return Map.of(
+                    "success", false,
+                    "error", e.getMessage());
+        }
+    }
+
     /**
      * 获取屏幕截图
      */
@@ -259,10 +535,17 @@ public class MobileController {
             @RequestParam String appPackage,
             @RequestParam String appName) {
         try {
-            operationService.launchApp(deviceName, appPackage, appName);
-            return Map.of(
-                    "success", true,
-                    "message", "成功启动应用");
+            LaunchResult result = operationService.launchApp(deviceName, appPackage, appName);
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("message", "成功启动应用");
+            response.put("activity", result.activity());
+            response.put("method", result.method());
+            response.put("startType", result.startType());
+            response.put("totalTime", result.totalTime());
+            response.put("elapsedMs", result.elapsedMillis());
+            response.put("settleMs", result.settleMillis());
+            return response;
         } catch (Exception e) {
             log.error("启动应用失败: {}", deviceName, e);
             return Map.of(
@@ -271,6 +554,35 @@ public class MobileController {
         }
     }
 
+    /**
+     * 重启应用
+     */
+    @PostMapping("/restartApp")
+    @ResponseBody
+    public Map<String, Object> restartApp(@RequestParam String deviceName,
+            @RequestParam String appPackage,
+            @RequestParam(required = false) String appName,
+            @RequestParam(defaultValue = "false") boolean record) {
+        try {
+            LaunchResult result = operationService.restartApp(deviceName, appPackage, appName, record);
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("message", "成功重启应用");
+            response.put("method", result.method());
+            response.put("startType", result.startType());
+            response.put("totalTime", result.totalTime());
+            response.put("stopMs", result.stopMillis());
+            response.put("elapsedMs", result.elapsedMillis());
+            response.put("settleMs", result.settleMillis());
+            return response;
+        } catch (Exception e) {
+            log.error("重启应用失败: {}", deviceName, e);
+            return Map.of(
+                    "success", false,
+                    "error", e.getMessage());
+        }
+    }
+
     /**
      * 按坐标点击屏幕
      */
@@ -292,6 +604,29 @@ public class MobileController {
         }
     }
 
+    /**
+     * 批量执行点击、长按、滑动、停顿与按键
+     */
+    @PostMapping("/actions")
+    @ResponseBody
+    public Map<String, Object> performActions(@RequestParam String deviceName,
+            @RequestBody List<ActionStep> steps) {
+        try {
+            long start = System.currentTimeMillis();
+            int requests = operationService.performActions(deviceName, steps);
+            return Map.of(
+                    "success", true,
+                    "steps", steps.size(),
+                    "requests", requests,
+                    "elapsedMs", System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.error("批量执行操作失败: {}", deviceName, e);
+            return Map.of(
+                    "success", false,
+                    "error", e.getMessage());
+        }
+    }
+
     // 创建定位器
     private By createLocator(String type, String value) {
         return switch (type.toLowerCase()) {
@@ -303,7 +638,8 @@ public class MobileController {
             case "tag" -> By.tagName(value);
             case "linktext" -> By.linkText(value);
             case "partiallinktext" -> By.partialLinkText(value);
-            case "accessibility" -> By.xpath("//*[@content-desc='" + value + "']");
+            case "accessibility" -> AppiumBy.accessibilityId(value);
+            case "uiautomator" -> AppiumBy.androidUIAutomator(value);
             default -> throw new IllegalArgumentException("不支持的定位器类型: " + type);
         };
     }
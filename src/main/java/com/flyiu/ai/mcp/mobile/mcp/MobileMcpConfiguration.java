@@ -1,5 +1,7 @@
 package com.flyiu.ai.mcp.mobile.mcp;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -14,11 +16,20 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 import com.flyiu.ai.mcp.mobile.config.DeviceConfig;
+import com.flyiu.ai.mcp.mobile.model.ActionStep;
+import com.flyiu.ai.mcp.mobile.model.DeviceMetrics;
 import com.flyiu.ai.mcp.mobile.model.DeviceSession;
+import com.flyiu.ai.mcp.mobile.model.LaunchResult;
+import com.flyiu.ai.mcp.mobile.model.SettleResult;
+import com.flyiu.ai.mcp.mobile.model.WaitPolicy;
+import com.flyiu.ai.mcp.mobile.model.WaitResult;
 import com.flyiu.ai.mcp.mobile.service.appium.AppiumOperationService;
 import com.flyiu.ai.mcp.mobile.service.appium.AppiumSessionManager;
+import com.flyiu.ai.mcp.mobile.service.appium.DeviceLeaseManager;
 import com.flyiu.ai.mcp.mobile.service.screenshot.ScreenshotService;
+import com.flyiu.ai.mcp.mobile.util.UiSettle;
 
+import io.appium.java_client.AppiumBy;
 import io.appium.java_client.android.AndroidDriver;
 import lombok.extern.slf4j.Slf4j;
 
@@ -33,15 +44,18 @@ public class MobileMcpConfiguration {
     private final AppiumSessionManager sessionManager;
     private final AppiumOperationService operationService;
     private final ScreenshotService screenshotService;
+    private final DeviceLeaseManager leaseManager;
 
     @Autowired
     public MobileMcpConfiguration(
             AppiumSessionManager sessionManager,
             AppiumOperationService operationService,
-            ScreenshotService screenshotService) {
+            ScreenshotService screenshotService,
+            DeviceLeaseManager leaseManager) {
         this.sessionManager = sessionManager;
         this.operationService = operationService;
         this.screenshotService = screenshotService;
+        this.leaseManager = leaseManager;
     }
 
     /**
@@ -50,7 +64,8 @@ public class MobileMcpConfiguration {
     @Bean
     public ToolCallbackProvider mobileToolCallbackProvider() {
         // 创建工具对象
-        MobileTools mobileTools = new MobileTools(sessionManager, operationService, screenshotService);
+        MobileTools mobileTools = new MobileTools(sessionManager, operationService, screenshotService,
+                leaseManager);
 
         // 注册工具对象
         return MethodToolCallbackProvider.builder()
@@ -66,21 +81,24 @@ public class MobileMcpConfiguration {
         private final AppiumSessionManager sessionManager;
         private final AppiumOperationService operationService;
         private final ScreenshotService screenshotService;
+        private final DeviceLeaseManager leaseManager;
         private final Map<String, AndroidDriver> driverMap = new HashMap<>();
 
         public MobileTools(
                 AppiumSessionManager sessionManager,
                 AppiumOperationService operationService,
-                ScreenshotService screenshotService) {
+                ScreenshotService screenshotService,
+                DeviceLeaseManager leaseManager) {
             this.sessionManager = sessionManager;
             this.operationService = operationService;
             this.screenshotService = screenshotService;
+            this.leaseManager = leaseManager;
         }
 
         /**
          * 连接Android设备
          */
-        @Tool(name = "connectAndroid", description = "连接Android设备")
+        @Tool(name = "connectAndroid", description = "连接Android设备，设备已有存活会话时直接复用")
         public Map<String, Object> connectAndroid(@ToolParam(description = "默认使用 default-android") String deviceName) {
             try {
                 deviceName = (deviceName == null || deviceName.isEmpty()) ? "default-android" : deviceName;
@@ -108,14 +126,16 @@ public class MobileMcpConfiguration {
         /**
          * 连接iOS设备
          */
-        @Tool(name = "connectIOS", description = "连接iOS设备")
+        @Tool(name = "connectIOS", description = "连接iOS设备，设备已有存活会话时直接复用")
         public Map<String, Object> connectIOS(String deviceName) {
             try {
                 deviceName = (deviceName == null || deviceName.isEmpty()) ? "default-ios" : deviceName;
+                DeviceSession existing = sessionManager.getSession(deviceName).orElse(null);
                 DeviceSession session = sessionManager.createIOSSession(deviceName);
                 return Map.of(
                         "success", true,
                         "deviceName", session.getDeviceName(),
+                        "reused", session == existing,
                         "message", "成功连接iOS设备: " + deviceName);
             } catch (Exception e) {
                 log.error("连接iOS设备失败", e);
@@ -125,6 +145,21 @@ public class MobileMcpConfiguration {
             }
         }
 
+        /**
+         * 并行连接所有已配置的设备
+         */
+        @Tool(name = "connectAllDevices", description = "并行连接所有已配置的设备")
+        public Map<String, Object> connectAllDevices() {
+            try {
+                return sessionManager.connectAllDevices().join();
+            } catch (Exception e) {
+                log.error("连接所有设备失败", e);
+                return Map.of(
+                        "success", false,
+                        "error", e.getMessage());
+            }
+        }
+
         /**
          * 连接Android设备（兼容原方法）
          */
@@ -181,20 +216,142 @@ public class MobileMcpConfiguration {
             }
         }
 
+        /**
+         * 租用设备
+         */
+        @Tool(name = "acquireDevice", description = "租用设备，多个客户端共享设备时先租用再操作，设备被占用时排队等待")
+        public Map<String, Object> acquireDevice(String deviceName,
+                @ToolParam(description = "租用者标识，同一客户端重复租用时返回原租约") String owner,
+                @ToolParam(description = "优先级，数值越大越优先，默认0", required = false) Integer priority,
+                @ToolParam(description = "租约有效期（秒），到期未续租自动释放", required = false) Integer ttlSeconds,
+                @ToolParam(description = "最长等待时间（秒）", required = false) Integer waitSeconds) {
+            try {
+                return leaseManager.acquire(deviceName, owner,
+                        priority != null ? priority : 0,
+                        ttlSeconds != null ? ttlSeconds * 1000L : 0,
+                        waitSeconds != null ? waitSeconds * 1000L : -1);
+            } catch (Exception e) {
+                log.error("租用设备失败: {}", deviceName, e);
+                return Map.of(
+                        "success", false,
+                        "error", e.getMessage());
+            }
+        }
+
+        /**
+         * 续租设备
+         */
+        @Tool(name = "renewDeviceLease", description = "续租设备，延长租约有效期")
+        public Map<String, Object> renewDeviceLease(String leaseId,
+                @ToolParam(description = "新的有效期（秒），从当前时间算起", required = false) Integer ttlSeconds) {
+            try {
+                return leaseManager.renew(leaseId, ttlSeconds != null ? ttlSeconds * 1000L : 0);
+            } catch (Exception e) {
+                log.error("续租设备失败: {}", leaseId, e);
+                return Map.of(
+                        "success", false,
+                        "error", e.getMessage());
+            }
+        }
+
+        /**
+         * 释放设备租约
+         */
+        @Tool(name = "releaseDeviceLease", description = "释放设备租约，设备交给下一个等待者")
+        public Map<String, Object> releaseDeviceLease(String leaseId) {
+            try {
+                boolean released = leaseManager.release(leaseId);
+                return Map.of(
+                        "success", released,
+                        "message", released ? "成功释放设备租约" : "租约不存在或已过期: " + leaseId);
+            } catch (Exception e) {
+                log.error("释放设备租约失败: {}", leaseId, e);
+                return Map.of(
+                        "success", false,
+                        "error", e.getMessage());
+            }
+        }
+
+        /**
+         * 获取设备租约状态
+         */
+        @Tool(name = "getDeviceLeaseStatus", description = "获取设备租约持有者、排队数量与等待时间统计")
+        public Map<String, Object> getDeviceLeaseStatus() {
+            try {
+                Map<String, Object> result = new HashMap<>(leaseManager.getLeaseStatus());
+                result.put("success", true);
+                return result;
+            } catch (Exception e) {
+                log.error("获取设备租约状态失败", e);
+                return Map.of(
+                        "success", false,
+                        "error", e.getMessage());
+            }
+        }
+
         /**
          * 启动应用
          */
-        @Tool(name = "launchApp", description = "启动应用")
+        @Tool(name = "launchApp", description = "重启应用：强制停止后冷启动，保证从首页开始，返回启动类型与耗时")
         public Map<String, Object> launchApp(String deviceName, String appPackage,
-                @ToolParam(description = "应用名称,在使用appPackage启动失败时,会使用appName启动") String appName) {
+                @ToolParam(description = "应用名称，仅用于日志") String appName,
+                @ToolParam(description = "是否同时开始录屏，默认否", required = false) Boolean record) {
             try {
-                operationService.restartApp(deviceName, appPackage, appName, 5);
-                // operationService.launchApp(deviceName, appPackage, appActivity);
+                LaunchResult result = operationService.restartApp(deviceName, appPackage, appName,
+                        Boolean.TRUE.equals(record));
+                Map<String, Object> response = new HashMap<>();
+                response.put("success", true);
+                response.put("message", "成功启动应用");
+                response.put("startType", result.startType());
+                response.put("totalTime", result.totalTime());
+                response.put("elapsedMs", result.elapsedMillis());
+                response.put("settleMs", result.settleMillis());
+                return response;
+            } catch (Exception e) {
+                log.error("启动应用失败: {}", deviceName, e);
+                return Map.of(
+                        "success", false,
+                        "error", e.getMessage());
+            }
+        }
+
+        /**
+         * 获取界面变化
+         */
+        @Tool(name = "getScreenChanges", description = "获取界面变化，只返回自指定版本以来新增、消失和移动的元素。"
+                + "把上次返回的version作为sinceVersion传入；首次调用或传0时返回全部元素（full为true）")
+        public Map<String, Object> getScreenChanges(String deviceName,
+                @ToolParam(description = "上次返回的version，不传时使用该设备上一次观察的版本", required = false) Long sinceVersion) {
+            try {
+                Map<String, Object> response = new HashMap<>(operationService.getScreenChanges(deviceName, sinceVersion));
+                response.put("success", true);
+                return response;
+            } catch (Exception e) {
+                log.error("获取界面变化失败: {}", deviceName, e);
+                return Map.of(
+                        "success", false,
+                        "error", e.getMessage());
+            }
+        }
+
+        /**
+         * 等待界面稳定
+         */
+        @Tool(name = "waitForSettle", description = "等待界面稳定（页面内容在静默期内不再变化），代替固定时长的等待，返回界面实际稳定所用的时间")
+        public Map<String, Object> waitForSettle(String deviceName,
+                @ToolParam(description = "静默期（毫秒），默认300", required = false) Integer quietMillis,
+                @ToolParam(description = "最长等待时间（毫秒），默认5000", required = false) Integer timeoutMillis) {
+            try {
+                SettleResult result = operationService.waitForSettle(deviceName,
+                        quietMillis != null ? quietMillis : UiSettle.DEFAULT_QUIET_MILLIS,
+                        timeoutMillis != null ? timeoutMillis : UiSettle.DEFAULT_TIMEOUT_MILLIS);
                 return Map.of(
                         "success", true,
-                        "message", "成功启动应用");
+                        "settled", result.settled(),
+                        "settleMs", result.settleMillis(),
+                        "elapsedMs", result.elapsedMillis());
             } catch (Exception e) {
-                log.error("启动应用失败: {}", deviceName, e);
+                log.error("等待界面稳定失败: {}", deviceName, e);
                 return Map.of(
                         "success", false,
                         "error", e.getMessage());
@@ -204,13 +361,17 @@ public class MobileMcpConfiguration {
         /**
          * 等待元素出现
          */
-        @Tool(name = "waitForElement", description = "等待元素出现")
+        @Tool(name = "waitForElement", description = "等待元素出现，超时时间为0时只检查一次并立即返回")
         public Map<String, Object> waitForElement(String deviceName, String locatorType, String locatorValue,
-                Integer timeoutInSeconds) {
+                Integer timeoutInSeconds,
+                @ToolParam(description = "轮询间隔（毫秒），默认250", required = false) Integer pollIntervalMillis) {
             try {
                 By locator = createLocator(locatorType, locatorValue);
-                boolean found = operationService.waitForElement(deviceName, locator,
-                        timeoutInSeconds != null ? timeoutInSeconds : 10);
+                WaitPolicy policy = WaitPolicy.ofSeconds(timeoutInSeconds != null ? timeoutInSeconds : 10);
+                if (pollIntervalMillis != null && pollIntervalMillis > 0) {
+                    policy = policy.withPollInterval(Duration.ofMillis(pollIntervalMillis));
+                }
+                boolean found = operationService.waitForElement(deviceName, locator, policy);
                 return Map.of(
                         "success", true,
                         "found", found);
@@ -222,6 +383,48 @@ public class MobileMcpConfiguration {
             }
         }
 
+        /**
+         * 等待多个元素中任意一个出现
+         */
+        @Tool(name = "waitForAnyElement", description = "等待多个元素中任意一个出现，返回最先出现的定位器，适合等待成功页、错误弹窗等多种可能的结果")
+        public Map<String, Object> waitForAnyElement(String deviceName,
+                @ToolParam(description = "定位器类型列表，与定位值一一对应") List<String> locatorTypes,
+                @ToolParam(description = "定位值列表，按优先级排列") List<String> locatorValues,
+                @ToolParam(description = "超时时间（秒），默认10", required = false) Integer timeoutInSeconds,
+                @ToolParam(description = "最大轮询间隔（毫秒），默认250", required = false) Integer pollIntervalMillis) {
+            try {
+                if (locatorTypes == null || locatorValues == null || locatorTypes.size() != locatorValues.size()) {
+                    throw new IllegalArgumentException("定位器类型与定位值数量不一致");
+                }
+                List<By> locators = new ArrayList<>();
+                for (int i = 0; i < locatorTypes.size(); i++) {
+                    locators.add(createLocator(locatorTypes.get(i), locatorValues.get(i)));
+                }
+                WaitPolicy policy = WaitPolicy.ofSeconds(timeoutInSeconds != null ? timeoutInSeconds : 10);
+                if (pollIntervalMillis != null && pollIntervalMillis > 0) {
+                    policy = policy.withPollInterval(Duration.ofMillis(pollIntervalMillis));
+                }
+                WaitResult result = operationService.waitForAnyElement(deviceName, locators, policy);
+
+                Map<String, Object> response = new HashMap<>();
+                response.put("success", true);
+                response.put("found", result.found());
+                response.put("elapsedMs", result.elapsedMillis());
+                response.put("probes", result.probes());
+                if (result.found()) {
+                    response.put("matchedIndex", result.matchedIndex());
+                    response.put("locatorType", locatorTypes.get(result.matchedIndex()));
+                    response.put("locatorValue", locatorValues.get(result.matchedIndex()));
+                }
+                return response;
+            } catch (Exception e) {
+                log.error("等待元素失败: {}", deviceName, e);
+                return Map.of(
+                        "success", false,
+                        "error", e.getMessage());
+            }
+        }
+
         /**
          * 点击元素
          */
@@ -245,7 +448,7 @@ public class MobileMcpConfiguration {
         /**
          * 在元素中输入文本
          */
-        @Tool(name = "sendKeys", description = "在元素中输入文本")
+        @Tool(name = "sendKeys", description = "向当前获得焦点的输入框输入文本，整段一次发送，支持中文等任意字符")
         public Map<String, Object> sendKeys(String deviceName, String text) {
             try {
                 operationService.sendKeysToCurrentInput(deviceName, text);
@@ -397,6 +600,88 @@ public class MobileMcpConfiguration {
             }
         }
 
+        /**
+         * 按元素ID点击元素
+         */
+        @Tool(name = "clickElementById", description = "按getAllVisibleElements或getElements返回的elementId点击元素，页面变化后元素ID会失效")
+        public Map<String, Object> clickElementById(String deviceName, Integer elementId) {
+            try {
+                if (elementId == null) {
+                    return Map.of(
+                            "success", false,
+                            "error", "必须指定elementId");
+                }
+
+                if (!operationService.clickElementById(deviceName, elementId)) {
+                    return Map.of(
+                            "success", false,
+                            "error", "元素ID不存在或已随页面变化失效，请重新获取元素: " + elementId);
+                }
+                return Map.of(
+                        "success", true,
+                        "message", "成功点击元素");
+            } catch (Exception e) {
+                log.error("按元素ID点击失败: {}", deviceName, e);
+                return Map.of(
+                        "success", false,
+                        "error", e.getMessage());
+            }
+        }
+
+        /**
+         * 获取设备屏幕参数
+         */
+        @Tool(name = "getDeviceMetrics", description = "获取设备屏幕宽高、密度、方向及状态栏和导航栏高度，用于计算点击与滑动坐标")
+        public Map<String, Object> getDeviceMetrics(String deviceName) {
+            try {
+                DeviceMetrics metrics = operationService.getDeviceMetrics(deviceName);
+                Map<String, Object> response = new HashMap<>();
+                response.put("success", true);
+                response.put("width", metrics.width());
+                response.put("height", metrics.height());
+                response.put("density", metrics.density());
+                response.put("orientation", metrics.orientation());
+                response.put("statusBarHeight", metrics.statusBarHeight());
+                response.put("navigationBarHeight", metrics.navigationBarHeight());
+                return response;
+            } catch (Exception e) {
+                log.error("获取设备屏幕参数失败: {}", deviceName, e);
+                return Map.of(
+                        "success", false,
+                        "error", e.getMessage());
+            }
+        }
+
+        /**
+         * 批量执行操作
+         */
+        @Tool(name = "batchActions", description = "按顺序批量执行点击、长按、滑动、停顿与按键，多步操作一次调用完成。"
+                + "type取值tap、longPress、swipe、pause、key；tap与longPress需要x、y；swipe需要x、y、endX、endY；"
+                + "duration为毫秒；key为按键名，如BACK、HOME、ENTER")
+        public Map<String, Object> batchActions(String deviceName,
+                @ToolParam(description = "操作列表，按顺序执行") List<ActionStep> steps) {
+            try {
+                if (steps == null || steps.isEmpty()) {
+                    return Map.of(
+                            "success", false,
+                            "error", "操作列表不能为空");
+                }
+
+                long start = System.currentTimeMillis();
+                int requests = operationService.performActions(deviceName, steps);
+                return Map.of(
+                        "success", true,
+                        "steps", steps.size(),
+                        "requests", requests,
+                        "elapsedMs", System.currentTimeMillis() - start);
+            } catch (Exception e) {
+                log.error("批量执行操作失败: {}", deviceName, e);
+                return Map.of(
+                        "success", false,
+                        "error", e.getMessage());
+            }
+        }
+
         /**
          * 按坐标点击屏幕
          */
@@ -432,7 +717,8 @@ public class MobileMcpConfiguration {
                 case "tag" -> By.tagName(value);
                 case "linktext" -> By.linkText(value);
                 case "partiallinktext" -> By.partialLinkText(value);
-                case "accessibility" -> By.xpath("//*[@content-desc='" + value + "']");
+                case "accessibility" -> AppiumBy.accessibilityId(value);
+                case "uiautomator" -> AppiumBy.androidUIAutomator(value);
                 default -> throw new IllegalArgumentException("不支持的定位器类型: " + type);
             };
         }
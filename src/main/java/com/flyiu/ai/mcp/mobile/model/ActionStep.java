@@ -0,0 +1,45 @@
+package com.flyiu.ai.mcp.mobile.model;
+
+/**
+ * 批量操作中的一步
+ * type为tap（点击）、longPress（长按）、swipe（滑动）、pause（停顿）或key（按键）。
+ * 点击、长按、滑动与停顿会合并为一次W3C performActions调用，按键单独发送
+ *
+ * @param type     操作类型
+ * @param x        点击、长按或滑动起点的X坐标
+ * @param y        点击、长按或滑动起点的Y坐标
+ * @param endX     滑动终点的X坐标
+ * @param endY     滑动终点的Y坐标
+ * @param duration 长按、滑动或停顿的持续时间（毫秒），为空时使用默认值
+ * @param key      按键名称，取值为AndroidKey枚举名，如BACK、HOME、ENTER
+ */
+public record ActionStep(String type, Integer x, Integer y, Integer endX, Integer endY, Integer duration,
+        String key) {
+
+    public static ActionStep tap(int x, int y) {
+        return new ActionStep("tap", x, y, null, null, null, null);
+    }
+
+    public static ActionStep longPress(int x, int y, int duration) {
+        return new ActionStep("longPress", x, y, null, null, duration, null);
+    }
+
+    public static ActionStep swipe(int startX, int startY, int endX, int endY, int duration) {
+        return new ActionStep("swipe", startX, startY, endX, endY, duration, null);
+    }
+
+    public static ActionStep pause(int duration) {
+        return new ActionStep("pause", null, null, null, null, duration, null);
+    }
+
+    public static ActionStep key(String key) {
+        return new ActionStep("key", null, null, null, null, null, key);
+    }
+
+    /**
+     * 是否为按键操作，按键无法并入触摸序列
+     */
+    public boolean isKey() {
+        return "key".equalsIgnoreCase(type);
+    }
+}
@@ -0,0 +1,42 @@
+package com.flyiu.ai.mcp.mobile.model;
+
+/**
+ * 设备屏幕参数
+ * 每个会话获取一次并缓存在DeviceSession上，手势与视觉识别直接使用，不再逐次请求设备
+ *
+ * @param width               窗口宽度（像素）
+ * @param height              窗口高度（像素）
+ * @param density             屏幕密度（dpi），iOS为缩放倍数，无法获取时为0
+ * @param orientation         屏幕方向，PORTRAIT或LANDSCAPE
+ * @param statusBarHeight     状态栏高度（像素），无法获取时为0
+ * @param navigationBarHeight 导航栏高度（像素），无法获取时为0
+ * @param fetchedAt           获取时间（毫秒时间戳）
+ */
+public record DeviceMetrics(int width, int height, double density, String orientation, int statusBarHeight,
+        int navigationBarHeight, long fetchedAt) {
+
+    public static final String PORTRAIT = "PORTRAIT";
+    public static final String LANDSCAPE = "LANDSCAPE";
+
+    /**
+     * 去掉状态栏与导航栏后可安全操作区域的顶部Y坐标
+     */
+    public int safeTop() {
+        return statusBarHeight;
+    }
+
+    /**
+     * 可安全操作区域的高度
+     */
+    public int safeHeight() {
+        return Math.max(0, height - statusBarHeight - navigationBarHeight);
+    }
+
+    public int centerX() {
+        return width / 2;
+    }
+
+    public int centerY() {
+        return safeTop() + safeHeight() / 2;
+    }
+}
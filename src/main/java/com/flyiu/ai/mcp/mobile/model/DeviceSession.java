@@ -1,5 +1,7 @@
 package com.flyiu.ai.mcp.mobile.model;
 
+import com.flyiu.ai.mcp.mobile.config.DeviceConfig;
+
 import io.appium.java_client.AppiumDriver;
 import lombok.Data;
 
@@ -16,10 +18,50 @@ public class DeviceSession {
     private final AppiumDriver driver;
     // 会话创建时间
     private final LocalDateTime createdAt;
+    // 创建会话时使用的设备配置，重连时复用
+    private final DeviceConfig.DeviceCapabilities capabilities;
+    // 会话所在的Appium服务器地址
+    private volatile String serverUrl;
+    // 会话健康状态
+    private volatile State state = State.HEALTHY;
+    // 累计重连次数
+    private volatile int reconnectCount;
+    // 最近一次重连耗时（毫秒）
+    private volatile long lastReconnectMillis;
+    // 最近一次心跳时间
+    private volatile LocalDateTime lastHeartbeatAt;
+    // 最近一次被命令使用的时间（毫秒时间戳），心跳不计入
+    private volatile long lastUsedMillis = System.currentTimeMillis();
+    // 屏幕尺寸、密度、方向等设备参数，首次使用时获取，旋转或分辨率变化后清空
+    private volatile DeviceMetrics metrics;
+
+    /**
+     * 会话健康状态
+     */
+    public enum State {
+        // 会话正常
+        HEALTHY,
+        // 会话已失效，正在重连
+        RECONNECTING,
+        // 重连失败
+        FAILED
+    }
 
     public DeviceSession(String deviceName, AppiumDriver driver) {
+        this(deviceName, driver, null);
+    }
+
+    public DeviceSession(String deviceName, AppiumDriver driver, DeviceConfig.DeviceCapabilities capabilities) {
         this.deviceName = deviceName;
         this.driver = driver;
+        this.capabilities = capabilities;
         this.createdAt = LocalDateTime.now();
     }
-}
\ No newline at end of file
+
+    /**
+     * 记录会话被使用，用于空闲淘汰与LRU
+     */
+    public void touch() {
+        this.lastUsedMillis = System.currentTimeMillis();
+    }
+}
@@ -0,0 +1,30 @@
+package com.flyiu.ai.mcp.mobile.model;
+
+/**
+ * 应用启动结果
+ *
+ * @param appPackage    应用包名
+ * @param activity      启动的Activity组件名，如com.tencent.mm/.ui.LauncherUI，未通过am start启动时为null
+ * @param method        启动方式，am-start或activate-app，重启时前面加上停止方式，如force-stop+am-start
+ * @param startType     启动类型，COLD（冷启动）、WARM（温启动）、HOT（热启动）或UNKNOWN
+ * @param totalTime     系统报告的启动耗时TotalTime（毫秒），未报告时为-1
+ * @param stopMillis    重启时停止应用的耗时（毫秒），直接启动时为0
+ * @param elapsedMillis 从发出第一条命令到返回的总耗时（毫秒），重启时包含停止应用的耗时
+ * @param settleMillis  启动后界面稳定所用的时间（毫秒），未等待界面稳定时为-1
+ */
+public record LaunchResult(String appPackage, String activity, String method, String startType, long totalTime,
+        long stopMillis, long elapsedMillis, long settleMillis) {
+
+    public static final String COLD = "COLD";
+    public static final String WARM = "WARM";
+    public static final String HOT = "HOT";
+    public static final String UNKNOWN = "UNKNOWN";
+
+    /**
+     * 附加启动后等待界面稳定的结果，总耗时同时加上等待时间
+     */
+    public LaunchResult withSettle(SettleResult settle) {
+        return new LaunchResult(appPackage, activity, method, startType, totalTime, stopMillis,
+                elapsedMillis + settle.elapsedMillis(), settle.settleMillis());
+    }
+}
@@ -0,0 +1,249 @@
+package com.flyiu.ai.mcp.mobile.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.w3c.dom.Document;
+
+import com.flyiu.ai.mcp.mobile.util.PageSourceParser;
+
+/**
+ * 页面源码快照
+ * 一次getPageSource解析得到的紧凑节点树，节点按文档顺序存放，
+ * 并按resource-id、text、content-desc、class建立索引，快照有效期内的元素查询都在本地完成
+ */
+public final class PageSnapshot {
+
+    // 快照版本，同一设备上每次重新获取递增
+    @Getter
+    private final long version;
+    // 快照创建时间
+    @Getter
+    private final long createdAt;
+    // 页面源码的指纹，页面内容不变时指纹相同
+    @Getter
+    private final long fingerprint;
+    // 按文档顺序排列的所有节点，下标即节点序号
+    @Getter
+    private final List<Node> nodes;
+    // 原始页面源码，用于本地执行完整的XPath
+    @Getter
+    private final String pageSource;
+    // 按需构建的DOM，只有复杂XPath查询才需要
+    private Document document;
+    // 按需构建的子节点列表，下标为父节点序号
+    private List<List<Node>> children;
+
+    private final Map<String, List<Node>> byResourceId;
+    private final Map<String, List<Node>> byText;
+    private final Map<String, List<Node>> byContentDesc;
+    private final Map<String, List<Node>> byClass;
+
+    public PageSnapshot(long version, long createdAt, long fingerprint, List<Node> nodes, String pageSource) {
+        this.version = version;
+        this.createdAt = createdAt;
+        this.fingerprint = fingerprint;
+        this.nodes = List.copyOf(nodes);
+        this.pageSource = pageSource;
+        this.byResourceId = index(this.nodes, Node::getResourceId);
+        this.byText = index(this.nodes, Node::getText);
+        this.byContentDesc = index(this.nodes, Node::getContentDesc);
+        this.byClass = index(this.nodes, Node::getClassName);
+    }
+
+    public Node getNode(int index) {
+        return nodes.get(index);
+    }
+
+    public int size() {
+        return nodes.size();
+    }
+
+    /**
+     * 获取页面源码的DOM，首次调用时构建，元素节点的序号保存在用户数据index中
+     * DOM读取也不是线程安全的，只应在设备命令队列中使用
+     */
+    public synchronized Document getDocument() {
+        if (document == null) {
+            document = PageSourceParser.toDocument(pageSource);
+        }
+        return document;
+    }
+
+    /**
+     * 获取节点的直接子节点，按文档顺序排列
+     */
+    public List<Node> getChildren(Node node) {
+        return childrenIndex().get(node.getIndex());
+    }
+
+    /**
+     * 获取节点的父节点
+     *
+     * @return 父节点，根节点返回null
+     */
+    public Node getParent(Node node) {
+        return node.getParent() >= 0 ? nodes.get(node.getParent()) : null;
+    }
+
+    private synchronized List<List<Node>> childrenIndex() {
+        if (children == null) {
+            List<List<Node>> index = new ArrayList<>(nodes.size());
+            for (int i = 0; i < nodes.size(); i++) {
+                index.add(new ArrayList<>(0));
+            }
+            for (Node node : nodes) {
+                if (node.getParent() >= 0) {
+                    index.get(node.getParent()).add(node);
+                }
+            }
+            index.replaceAll(Collections::unmodifiableList);
+            children = index;
+        }
+        return children;
+    }
+
+    /**
+     * 按位置和大小查找节点
+     *
+     * @return 唯一匹配的节点，没有或有多个节点位置相同时返回null
+     */
+    public Node findByBounds(int x, int y, int width, int height) {
+        Node found = null;
+        for (Node node : nodes) {
+            if (node.x == x && node.y == y && node.width == width && node.height == height) {
+                if (found != null) {
+                    return null;
+                }
+                found = node;
+            }
+        }
+        return found;
+    }
+
+    public List<Node> findByResourceId(String resourceId) {
+        return byResourceId.getOrDefault(resourceId, List.of());
+    }
+
+    public List<Node> findByText(String text) {
+        return byText.getOrDefault(text, List.of());
+    }
+
+    public List<Node> findByContentDesc(String contentDesc) {
+        return byContentDesc.getOrDefault(contentDesc, List.of());
+    }
+
+    public List<Node> findByClass(String className) {
+        return byClass.getOrDefault(className, List.of());
+    }
+
+    /**
+     * 按属性名查找精确匹配的节点，只支持已建立索引的属性
+     *
+     * @param attribute 属性名: resource-id、text、content-desc、class
+     * @param value     属性值
+     * @return 匹配的节点，属性未建立索引时返回null
+     */
+    public List<Node> findIndexed(String attribute, String value) {
+        return switch (attribute) {
+            case "resource-id" -> findByResourceId(value);
+            case "text" -> findByText(value);
+            case "content-desc" -> findByContentDesc(value);
+            case "class" -> findByClass(value);
+            default -> null;
+        };
+    }
+
+    private static Map<String, List<Node>> index(List<Node> nodes, Function<Node, String> key) {
+        Map<String, List<Node>> index = new HashMap<>();
+        for (Node node : nodes) {
+            String value = key.apply(node);
+            if (value != null && !value.isEmpty()) {
+                index.computeIfAbsent(value, k -> new ArrayList<>(1)).add(node);
+            }
+        }
+        index.replaceAll((k, v) -> Collections.unmodifiableList(v));
+        return index;
+    }
+
+    /**
+     * 快照中的一个节点
+     */
+    @Getter
+    @AllArgsConstructor
+    public static final class Node {
+
+        // attribute()支持的属性名
+        public static final Set<String> ATTRIBUTES = Set.of("class", "text", "resource-id", "content-desc",
+                "package", "displayed", "enabled", "clickable", "focused", "scrollable", "selected", "checked");
+
+        // 节点在快照中的序号（文档顺序）
+        private final int index;
+        // 父节点序号，根节点为-1
+        private final int parent;
+        private final int depth;
+        // 节点标签名，UiAutomator2中与class相同
+        private final String tag;
+        private final String className;
+        private final String text;
+        private final String resourceId;
+        private final String contentDesc;
+        private final String packageName;
+        private final int x;
+        private final int y;
+        private final int width;
+        private final int height;
+        private final boolean displayed;
+        private final boolean enabled;
+        private final boolean clickable;
+        private final boolean focused;
+        private final boolean scrollable;
+        private final boolean selected;
+        private final boolean checked;
+
+        /**
+         * 按XPath中的属性名读取节点属性
+         *
+         * @param name 属性名
+         * @return 属性值，不支持的属性返回null
+         */
+        public String attribute(String name) {
+            return switch (name) {
+                case "class" -> className;
+                case "text" -> text;
+                case "resource-id" -> resourceId;
+                case "content-desc" -> contentDesc;
+                case "package" -> packageName;
+                case "displayed" -> String.valueOf(displayed);
+                case "enabled" -> String.valueOf(enabled);
+                case "clickable" -> String.valueOf(clickable);
+                case "focused" -> String.valueOf(focused);
+                case "scrollable" -> String.valueOf(scrollable);
+                case "selected" -> String.valueOf(selected);
+                case "checked" -> String.valueOf(checked);
+                default -> null;
+            };
+        }
+
+        public int getCenterX() {
+            return x + width / 2;
+        }
+
+        public int getCenterY() {
+            return y + height / 2;
+        }
+
+        @Override
+        public String toString() {
+            return "Node{" + index + ", " + className + ", text=" + text + ", resourceId=" + resourceId
+                    + ", bounds=[" + x + "," + y + "][" + (x + width) + "," + (y + height) + "]}";
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.flyiu.ai.mcp.mobile.model;
+
+/**
+ * 等待界面稳定的结果
+ *
+ * @param settled       是否在截止时间前稳定
+ * @param settleMillis  界面最后一次变化距开始等待的时间（毫秒），即界面实际用了多久才稳定
+ * @param elapsedMillis 从开始等待到返回的耗时（毫秒），包含确认稳定所需的静默期
+ * @param probes        获取指纹的次数
+ * @param fingerprint   最后一次获取的界面指纹
+ */
+public record SettleResult(boolean settled, long settleMillis, long elapsedMillis, int probes, long fingerprint) {
+}
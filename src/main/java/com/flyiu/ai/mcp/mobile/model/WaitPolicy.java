@@ -0,0 +1,57 @@
+package com.flyiu.ai.mcp.mobile.model;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.With;
+
+import java.time.Duration;
+
+/**
+ * 元素查找的等待策略
+ * 会话不再设置隐式等待，每次查找通过等待策略显式指定最长等待时间、轮询间隔，
+ * 以及遇到非"元素不存在"类错误时是否立即失败
+ */
+@Getter
+@With
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public final class WaitPolicy {
+
+    // 只查找一次，元素不存在时立即返回
+    public static final WaitPolicy IMMEDIATE = new WaitPolicy(Duration.ZERO, Duration.ZERO, true);
+    // 操作类调用的默认等待，与原先会话级10秒隐式等待一致
+    public static final WaitPolicy DEFAULT = new WaitPolicy(Duration.ofSeconds(10), Duration.ofMillis(250), true);
+
+    // 最长等待时间
+    private final Duration timeout;
+    // 两次查找之间的间隔
+    private final Duration pollInterval;
+    // 查找出现会话失效等错误时立即抛出，而不是继续等待到超时
+    private final boolean failFast;
+
+    /**
+     * 创建指定超时时间的等待策略，使用默认轮询间隔
+     *
+     * @param timeout 最长等待时间
+     * @return 等待策略
+     */
+    public static WaitPolicy of(Duration timeout) {
+        return new WaitPolicy(timeout, DEFAULT.pollInterval, true);
+    }
+
+    /**
+     * 创建指定超时秒数的等待策略，小于等于0时只查找一次
+     *
+     * @param timeoutInSeconds 最长等待时间（秒）
+     * @return 等待策略
+     */
+    public static WaitPolicy ofSeconds(int timeoutInSeconds) {
+        return timeoutInSeconds <= 0 ? IMMEDIATE : of(Duration.ofSeconds(timeoutInSeconds));
+    }
+
+    @Override
+    public String toString() {
+        return "WaitPolicy{timeout=" + timeout.toMillis() + "ms, pollInterval=" + pollInterval.toMillis()
+                + "ms, failFast=" + failFast + "}";
+    }
+}
@@ -0,0 +1,23 @@
+package com.flyiu.ai.mcp.mobile.model;
+
+import org.openqa.selenium.By;
+
+/**
+ * 等待元素的结果
+ *
+ * @param found         是否在超时前等到
+ * @param matchedIndex  最先出现的定位器在传入列表中的下标，未等到时为-1
+ * @param matched       最先出现的定位器，未等到时为null
+ * @param elapsedMillis 从开始等待到返回的耗时（毫秒）
+ * @param probes        查找的轮数
+ */
+public record WaitResult(boolean found, int matchedIndex, By matched, long elapsedMillis, int probes) {
+
+    public static WaitResult found(int matchedIndex, By matched, long elapsedMillis, int probes) {
+        return new WaitResult(true, matchedIndex, matched, elapsedMillis, probes);
+    }
+
+    public static WaitResult notFound(long elapsedMillis, int probes) {
+        return new WaitResult(false, -1, null, elapsedMillis, probes);
+    }
+}
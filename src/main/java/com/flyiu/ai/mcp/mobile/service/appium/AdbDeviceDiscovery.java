@@ -0,0 +1,272 @@
+package com.flyiu.ai.mcp.mobile.service.appium;
+
+import com.flyiu.ai.mcp.mobile.config.AppiumConfig;
+import com.flyiu.ai.mcp.mobile.config.DeviceConfig;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * adb设备自动发现
+ * 定期执行adb devices -l，为新接入的设备按模板生成配置并注册到设备注册表，
+ * 设备拔出或离线后注销并关闭其会话
+ */
+@Slf4j
+@Component
+public class AdbDeviceDiscovery {
+
+    private final DeviceConfig deviceConfig;
+    private final AppiumConfig appiumConfig;
+    private final DeviceRegistry deviceRegistry;
+    private final AppiumSessionManager sessionManager;
+    private final DeviceCommandQueue commandQueue;
+
+    // 当前已注册的设备，按序列号索引
+    private final Map<String, DiscoveredDevice> devices = new ConcurrentHashMap<>();
+    // 最近一次adb输出中的全部设备状态，包含unauthorized、offline等未注册的设备
+    private volatile Map<String, Map<String, String>> lastSeen = Map.of();
+
+    private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(1);
+    // 读取adb输出的线程，避免输出阻塞进程
+    private final ExecutorService readerExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final AtomicLong pollCount = new AtomicLong();
+    private final AtomicLong attachCount = new AtomicLong();
+    private final AtomicLong detachCount = new AtomicLong();
+    private volatile String lastError;
+
+    @Autowired
+    public AdbDeviceDiscovery(DeviceConfig deviceConfig, AppiumConfig appiumConfig, DeviceRegistry deviceRegistry,
+            AppiumSessionManager sessionManager, DeviceCommandQueue commandQueue) {
+        this.deviceConfig = deviceConfig;
+        this.appiumConfig = appiumConfig;
+        this.deviceRegistry = deviceRegistry;
+        this.sessionManager = sessionManager;
+        this.commandQueue = commandQueue;
+    }
+
+    /**
+     * 应用启动完成后开始轮询adb设备列表
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        DeviceConfig.Discovery discovery = deviceConfig.getDiscovery();
+        if (!discovery.isEnabled()) {
+            return;
+        }
+
+        log.info("启动adb设备自动发现，adb: {}, 间隔: {}ms", discovery.getAdbPath(), discovery.getInterval());
+        scheduler.scheduleWithFixedDelay(this::poll, 0, discovery.getInterval(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 执行一次adb devices -l，同步设备注册表
+     */
+    public void poll() {
+        try {
+            Map<String, Map<String, String>> seen = parseDevices(runAdb("devices", "-l"));
+            pollCount.incrementAndGet();
+            lastSeen = seen;
+            lastError = null;
+
+            seen.forEach((serial, properties) -> {
+                if ("device".equals(properties.get("state")) && !devices.containsKey(serial)) {
+                    attach(serial, properties);
+                }
+            });
+
+            devices.keySet().forEach(serial -> {
+                Map<String, String> properties = seen.get(serial);
+                if (properties == null || !"device".equals(properties.get("state"))) {
+                    detach(serial);
+                }
+            });
+        } catch (Exception e) {
+            lastError = e.getMessage();
+            log.warn("adb设备发现失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 获取自动发现的设备状态
+     *
+     * @return 已注册的设备、adb可见的全部设备及统计信息
+     */
+    public Map<String, Object> getDiscoveryStatus() {
+        Map<String, Object> registered = new HashMap<>();
+        devices.forEach((serial, device) -> {
+            Map<String, Object> info = new HashMap<>();
+            info.put("deviceName", device.capabilities().getName());
+            info.put("model", device.model());
+            info.put("systemPort", device.systemPort());
+            info.put("attachedAt", device.attachedAt());
+            registered.put(serial, info);
+        });
+
+        Map<String, Object> status = new HashMap<>();
+        status.put("enabled", deviceConfig.getDiscovery().isEnabled());
+        status.put("pollCount", pollCount.get());
+        status.put("attachCount", attachCount.get());
+        status.put("detachCount", detachCount.get());
+        status.put("lastError", lastError != null ? lastError : "");
+        status.put("registered", registered);
+        status.put("adbDevices", lastSeen);
+        return status;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+        readerExecutor.shutdownNow();
+    }
+
+    // 为新接入的设备生成配置并注册
+    private void attach(String serial, Map<String, String> properties) {
+        DeviceConfig.Discovery discovery = deviceConfig.getDiscovery();
+        DeviceConfig.DeviceCapabilities template = discovery.getTemplate();
+        int systemPort = allocateSystemPort();
+
+        DeviceConfig.DeviceCapabilities capabilities = new DeviceConfig.DeviceCapabilities();
+        capabilities.setName(discovery.getNamePrefix() + serial);
+        capabilities.setPlatformName(template.getPlatformName());
+        capabilities.setAutomationName(template.getAutomationName());
+        capabilities.setUdid(serial);
+        capabilities.setNoReset(template.isNoReset());
+        capabilities.setNewCommandTimeout(template.getNewCommandTimeout());
+
+        Map<String, Object> extraCapabilities = new HashMap<>();
+        if (template.getExtraCapabilities() != null) {
+            extraCapabilities.putAll(template.getExtraCapabilities());
+        }
+        extraCapabilities.put("systemPort", systemPort);
+        capabilities.setExtraCapabilities(extraCapabilities);
+
+        devices.put(serial, new DiscoveredDevice(capabilities, properties.getOrDefault("model", ""), systemPort,
+                System.currentTimeMillis()));
+        deviceRegistry.register(capabilities);
+        attachCount.incrementAndGet();
+        log.info("发现设备: {}, 型号: {}, systemPort: {}", serial, properties.getOrDefault("model", ""), systemPort);
+
+        if (discovery.isAutoConnect()) {
+            sessionManager.createAndroidSessionAsync(capabilities);
+        } else if (appiumConfig.getPool().isEnabled()) {
+            sessionManager.warmUp(capabilities);
+        }
+    }
+
+    // 注销已拔出或离线的设备并关闭其会话
+    private void detach(String serial) {
+        DiscoveredDevice device = devices.remove(serial);
+        if (device == null) {
+            return;
+        }
+
+        String deviceName = device.capabilities().getName();
+        deviceRegistry.unregister(deviceName);
+        detachCount.incrementAndGet();
+        log.info("设备已断开: {}", serial);
+
+        try {
+            // 设备已不存在，会话不能归还到预热池
+            sessionManager.discardSession(deviceName);
+        } catch (Exception e) {
+            log.debug("关闭已断开设备的会话失败: {}, {}", deviceName, e.getMessage());
+        }
+        commandQueue.remove(deviceName);
+    }
+
+    // 分配未被占用的最小systemPort
+    private int allocateSystemPort() {
+        int port = deviceConfig.getDiscovery().getSystemPortBase();
+        List<Integer> used = devices.values().stream().map(DiscoveredDevice::systemPort).toList();
+        while (used.contains(port)) {
+            port++;
+        }
+        return port;
+    }
+
+    // 执行adb命令并返回输出
+    private String runAdb(String... args) throws IOException, InterruptedException {
+        DeviceConfig.Discovery discovery = deviceConfig.getDiscovery();
+        List<String> command = new ArrayList<>();
+        command.add(discovery.getAdbPath());
+        command.addAll(List.of(args));
+
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        CompletableFuture<String> output = CompletableFuture.supplyAsync(() -> {
+            try {
+                return new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                throw new RuntimeException(e.getMessage(), e);
+            }
+        }, readerExecutor);
+
+        if (!process.waitFor(discovery.getCommandTimeout(), TimeUnit.MILLISECONDS)) {
+            process.destroyForcibly();
+            throw new IOException("adb命令执行超时: " + String.join(" ", command));
+        }
+        if (process.exitValue() != 0) {
+            throw new IOException("adb命令执行失败，退出码: " + process.exitValue() + ", " + output.join().trim());
+        }
+        return output.join();
+    }
+
+    /**
+     * 解析adb devices -l的输出
+     * 每行格式为: 序列号 状态 [key:value ...]
+     *
+     * @param output adb输出
+     * @return 按序列号索引的设备属性，state为设备状态
+     */
+    static Map<String, Map<String, String>> parseDevices(String output) {
+        Map<String, Map<String, String>> result = new LinkedHashMap<>();
+        for (String line : output.split("\\R")) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("List of devices") || line.startsWith("*")) {
+                continue;
+            }
+
+            String[] parts = line.split("\\s+");
+            if (parts.length < 2) {
+                continue;
+            }
+
+            Map<String, String> properties = new LinkedHashMap<>();
+            properties.put("state", parts[1]);
+            for (int i = 2; i < parts.length; i++) {
+                int separator = parts[i].indexOf(':');
+                if (separator > 0) {
+                    properties.put(parts[i].substring(0, separator), parts[i].substring(separator + 1));
+                }
+            }
+            result.put(parts[0], properties);
+        }
+        return result;
+    }
+
+    /**
+     * 已注册的自动发现设备
+     */
+    private record DiscoveredDevice(DeviceConfig.DeviceCapabilities capabilities, String model, int systemPort,
+            long attachedAt) {
+    }
+}
@@ -0,0 +1,210 @@
+package com.flyiu.ai.mcp.mobile.service.appium;
+
+import com.flyiu.ai.mcp.mobile.model.LaunchResult;
+
+import io.appium.java_client.AppiumDriver;
+import io.appium.java_client.InteractsWithApps;
+import io.appium.java_client.android.AndroidDriver;
+import lombok.extern.slf4j.Slf4j;
+import org.openqa.selenium.WebDriverException;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 应用启动服务
+ * 每台设备上每个包的启动Activity只通过cmd package resolve-activity解析一次并缓存，
+ * 之后用am start -W直接启动，同时得到系统报告的启动类型与TotalTime。
+ * shell不可用（未开启--relaxed-security）时回退到activateApp。
+ * 调用方需在设备命令队列中调用
+ */
+@Slf4j
+@Service
+public class AppLaunchService {
+
+    // 各设备上包名到启动Activity组件名的缓存
+    private final Map<String, Map<String, String>> activities = new ConcurrentHashMap<>();
+
+    private final AtomicLong resolveCount = new AtomicLong();
+    private final AtomicLong launchCount = new AtomicLong();
+    private final AtomicLong fallbackCount = new AtomicLong();
+    private final AtomicLong restartCount = new AtomicLong();
+    private final Map<String, AtomicLong> startTypeCounts = new ConcurrentHashMap<>();
+
+    /**
+     * 启动应用，应用已在前台时只把任务切换到前台
+     *
+     * @param deviceName 设备名称
+     * @param driver     设备驱动
+     * @param appPackage 应用包名
+     * @return 启动结果
+     */
+    public LaunchResult launch(String deviceName, AppiumDriver driver, String appPackage) {
+        long start = System.currentTimeMillis();
+        LaunchResult result;
+        try {
+            if (!(driver instanceof AndroidDriver)) {
+                throw new WebDriverException("当前设备不支持am start");
+            }
+            result = startActivity(deviceName, driver, appPackage, start);
+        } catch (WebDriverException e) {
+            log.warn("通过am start启动应用失败，改用activateApp: {}, {}", appPackage, e.getMessage());
+            fallbackCount.incrementAndGet();
+            ((InteractsWithApps) driver).activateApp(appPackage);
+            result = new LaunchResult(appPackage, null, "activate-app", LaunchResult.UNKNOWN, -1, 0,
+                    System.currentTimeMillis() - start, -1);
+        }
+
+        launchCount.incrementAndGet();
+        startTypeCounts.computeIfAbsent(result.startType(), k -> new AtomicLong()).incrementAndGet();
+        log.info("启动应用完成: {}, 包名: {}, 方式: {}, 类型: {}, TotalTime: {}ms, 耗时: {}ms", deviceName, appPackage,
+                result.method(), result.startType(), result.totalTime(), result.elapsedMillis());
+        return result;
+    }
+
+    /**
+     * 重启应用：先强制停止再启动，保证冷启动到首页
+     * Android上使用am force-stop，shell不可用或非Android设备时使用terminateApp
+     *
+     * @param deviceName 设备名称
+     * @param driver     设备驱动
+     * @param appPackage 应用包名
+     * @return 启动结果，耗时包含停止应用的时间
+     */
+    public LaunchResult restart(String deviceName, AppiumDriver driver, String appPackage) {
+        long start = System.currentTimeMillis();
+        String stopMethod;
+        try {
+            if (!(driver instanceof AndroidDriver)) {
+                throw new WebDriverException("当前设备不支持am force-stop");
+            }
+            shell(driver, "am", List.of("force-stop", appPackage));
+            stopMethod = "force-stop";
+        } catch (WebDriverException e) {
+            log.warn("通过am force-stop停止应用失败，改用terminateApp: {}, {}", appPackage, e.getMessage());
+            ((InteractsWithApps) driver).terminateApp(appPackage);
+            stopMethod = "terminate-app";
+        }
+        long stopMillis = System.currentTimeMillis() - start;
+
+        LaunchResult launched = launch(deviceName, driver, appPackage);
+        restartCount.incrementAndGet();
+        LaunchResult result = new LaunchResult(appPackage, launched.activity(), stopMethod + "+" + launched.method(),
+                launched.startType(), launched.totalTime(), stopMillis, System.currentTimeMillis() - start, -1);
+        log.info("重启应用完成: {}, 包名: {}, 停止耗时: {}ms, 总耗时: {}ms", deviceName, appPackage, stopMillis,
+                result.elapsedMillis());
+        return result;
+    }
+
+    /**
+     * 清除设备的启动Activity缓存，应用安装或升级后调用
+     *
+     * @param deviceName 设备名称
+     */
+    public void clear(String deviceName) {
+        activities.remove(deviceName);
+    }
+
+    /**
+     * 获取应用启动统计信息
+     */
+    public Map<String, Object> getLaunchStatus() {
+        Map<String, Object> startTypes = new HashMap<>();
+        startTypeCounts.forEach((type, count) -> startTypes.put(type, count.get()));
+
+        Map<String, Object> status = new HashMap<>();
+        status.put("resolveCount", resolveCount.get());
+        status.put("launchCount", launchCount.get());
+        status.put("fallbackCount", fallbackCount.get());
+        status.put("restartCount", restartCount.get());
+        status.put("startTypes", startTypes);
+        status.put("cachedActivities", Map.copyOf(activities));
+        return status;
+    }
+
+    // 通过am start -W启动，组件不存在时重新解析一次
+    private LaunchResult startActivity(String deviceName, AppiumDriver driver, String appPackage, long start) {
+        String activity = resolveActivity(deviceName, driver, appPackage, false);
+        Map<String, String> output = amStart(driver, activity);
+        if (output.containsKey("Error")) {
+            // 应用升级后启动Activity可能改变
+            log.info("启动Activity已失效，重新解析: {}, {}", activity, output.get("Error"));
+            activity = resolveActivity(deviceName, driver, appPackage, true);
+            output = amStart(driver, activity);
+            if (output.containsKey("Error")) {
+                throw new WebDriverException("启动应用失败: " + output.get("Error"));
+            }
+        }
+
+        String startType = output.get("LaunchState");
+        if (startType == null || startType.isEmpty()) {
+            // Android 10以前没有LaunchState，任务已在前台时系统给出Warning
+            startType = output.containsKey("Warning") ? LaunchResult.HOT : LaunchResult.UNKNOWN;
+        }
+        return new LaunchResult(appPackage, activity, "am-start", startType.toUpperCase(),
+                parseLong(output.get("TotalTime")), 0, System.currentTimeMillis() - start, -1);
+    }
+
+    // 解析包的启动Activity，结果按设备缓存
+    private String resolveActivity(String deviceName, AppiumDriver driver, String appPackage, boolean refresh) {
+        Map<String, String> cache = activities.computeIfAbsent(deviceName, k -> new ConcurrentHashMap<>());
+        if (!refresh) {
+            String cached = cache.get(appPackage);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        String output = shell(driver, "cmd", List.of("package", "resolve-activity", "--brief",
+                "-a", "android.intent.action.MAIN", "-c", "android.intent.category.LAUNCHER", appPackage));
+        resolveCount.incrementAndGet();
+        // --brief输出的最后一行是组件名，找不到时输出No activity found
+        String activity = null;
+        for (String line : output.split("\\R")) {
+            line = line.trim();
+            if (line.startsWith(appPackage + "/")) {
+                activity = line;
+            }
+        }
+        if (activity == null) {
+            throw new WebDriverException("未找到应用的启动Activity: " + appPackage + ", " + output.trim());
+        }
+        cache.put(appPackage, activity);
+        log.info("解析启动Activity: {}, {}", deviceName, activity);
+        return activity;
+    }
+
+    // 执行am start -W，按"键: 值"解析输出
+    private Map<String, String> amStart(AppiumDriver driver, String activity) {
+        String output = shell(driver, "am", List.of("start", "-W", "-a", "android.intent.action.MAIN",
+                "-c", "android.intent.category.LAUNCHER", "-n", activity));
+        Map<String, String> values = new HashMap<>();
+        for (String line : output.split("\\R")) {
+            int colon = line.indexOf(':');
+            if (colon > 0) {
+                values.putIfAbsent(line.substring(0, colon).trim(), line.substring(colon + 1).trim());
+            }
+        }
+        return values;
+    }
+
+    private String shell(AppiumDriver driver, String command, List<String> args) {
+        Object result = driver.executeScript("mobile: shell", Map.of("command", command, "args", args));
+        return result == null ? "" : result.toString();
+    }
+
+    private static long parseLong(String value) {
+        if (value == null || value.isEmpty()) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.flyiu.ai.mcp.mobile.service.appium;
 
 import java.io.File;
 import java.nio.file.Files;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Base64;
 import java.util.HashMap;
@@ -9,21 +10,38 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.Callable;
 import java.util.stream.Collectors;
 
 import com.google.gson.Gson;
 import org.openqa.selenium.By;
+import org.openqa.selenium.NoSuchElementException;
 import org.openqa.selenium.OutputType;
+import org.openqa.selenium.Rectangle;
 import org.openqa.selenium.WebElement;
+import org.openqa.selenium.interactions.Sequence;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.flyiu.ai.mcp.mobile.config.AppiumConfig;
+import com.flyiu.ai.mcp.mobile.model.ActionStep;
+import com.flyiu.ai.mcp.mobile.model.DeviceMetrics;
 import com.flyiu.ai.mcp.mobile.model.DeviceSession;
+import com.flyiu.ai.mcp.mobile.model.LaunchResult;
+import com.flyiu.ai.mcp.mobile.model.PageSnapshot;
+import com.flyiu.ai.mcp.mobile.model.SettleResult;
+import com.flyiu.ai.mcp.mobile.model.WaitPolicy;
+import com.flyiu.ai.mcp.mobile.model.WaitResult;
 import com.flyiu.ai.mcp.mobile.service.screenshot.RecordService;
+import com.flyiu.ai.mcp.mobile.service.vision.VisionChatClient;
 import com.flyiu.ai.mcp.mobile.util.AndroidPageUtils;
+import com.flyiu.ai.mcp.mobile.util.ElementLookup;
+import com.flyiu.ai.mcp.mobile.util.GestureActions;
+import com.flyiu.ai.mcp.mobile.util.LocatorDeriver;
+import com.flyiu.ai.mcp.mobile.util.SnapshotQuery;
+import com.flyiu.ai.mcp.mobile.util.UiSettle;
 
 import dev.langchain4j.data.message.ChatMessage;
 import dev.langchain4j.data.message.ImageContent;
@@ -32,7 +50,6 @@ import dev.langchain4j.data.message.UserMessage;
 import dev.langchain4j.model.chat.request.ChatRequest;
 import dev.langchain4j.model.chat.request.ResponseFormat;
 import dev.langchain4j.model.chat.response.ChatResponse;
-import dev.langchain4j.model.openai.OpenAiChatModel;
 import io.appium.java_client.AppiumDriver;
 import io.appium.java_client.android.AndroidDriver;
 import io.appium.java_client.android.nativekey.AndroidKey;
@@ -46,23 +63,36 @@ import lombok.extern.slf4j.Slf4j;
 @Service
 public class AppiumOperationService {
 
+    private final AppiumConfig appiumConfig;
     private final AppiumSessionManager sessionManager;
-
-    @Value("${spring.ai.openai.api-key:xxxxxxxxxxxx}")
-    private String apiKey;
-
-    @Value("${spring.ai.openai.base-url:https://dashscope.aliyuncs.com/compatible-mode/v1}")
-    private String baseUrl;
-
-    @Value("${spring.ai.openai.chat.options.model:qwen-vl-plus}")
-    private String model;
+    private final DeviceCommandQueue commandQueue;
+    private final PageSnapshotService snapshotService;
+    private final ElementHandleRegistry handleRegistry;
+    private final TextInputService textInputService;
+    private final DeviceMetricsService metricsService;
+    private final AppLaunchService appLaunchService;
+    private final ScreenDeltaService deltaService;
+    private final VisionChatClient visionClient;
 
     @Autowired
     private RecordService recordService;
 
     @Autowired
-    public AppiumOperationService(AppiumSessionManager sessionManager) {
+    public AppiumOperationService(AppiumConfig appiumConfig, AppiumSessionManager sessionManager,
+            DeviceCommandQueue commandQueue, PageSnapshotService snapshotService,
+            ElementHandleRegistry handleRegistry, TextInputService textInputService,
+            DeviceMetricsService metricsService, AppLaunchService appLaunchService,
+            ScreenDeltaService deltaService, VisionChatClient visionClient) {
+        this.appiumConfig = appiumConfig;
         this.sessionManager = sessionManager;
+        this.commandQueue = commandQueue;
+        this.snapshotService = snapshotService;
+        this.handleRegistry = handleRegistry;
+        this.textInputService = textInputService;
+        this.metricsService = metricsService;
+        this.appLaunchService = appLaunchService;
+        this.deltaService = deltaService;
+        this.visionClient = visionClient;
     }
 
     /**
@@ -73,7 +103,8 @@ public class AppiumOperationService {
      */
     public File takeScreenshot(String deviceName) {
         log.info("获取设备屏幕截图: {}", deviceName);
-        return getDriverOrThrow(deviceName).getScreenshotAs(OutputType.FILE);
+        return commandQueue.execute(deviceName,
+                () -> getDriverOrThrow(deviceName).getScreenshotAs(OutputType.FILE));
     }
 
     /**
@@ -84,9 +115,21 @@ public class AppiumOperationService {
      * @return 截图文件
      */
     public File takeElementScreenshot(String deviceName, By locator) {
+        return takeElementScreenshot(deviceName, locator, WaitPolicy.DEFAULT);
+    }
+
+    /**
+     * 获取指定元素的屏幕截图
+     * 
+     * @param deviceName 设备名称
+     * @param locator    元素定位器
+     * @param policy     查找元素的等待策略
+     * @return 截图文件
+     */
+    public File takeElementScreenshot(String deviceName, By locator, WaitPolicy policy) {
         log.info("获取元素屏幕截图: {}, 定位器: {}", deviceName, locator);
-        WebElement element = findElement(deviceName, locator);
-        return element.getScreenshotAs(OutputType.FILE);
+        return commandQueue.execute(deviceName,
+                () -> findElement(deviceName, locator, policy).getScreenshotAs(OutputType.FILE));
     }
 
     /**
@@ -96,8 +139,19 @@ public class AppiumOperationService {
      * @param locator    元素定位器
      */
     public void clickElement(String deviceName, By locator) {
+        clickElement(deviceName, locator, WaitPolicy.DEFAULT);
+    }
+
+    /**
+     * 点击指定元素
+     * 
+     * @param deviceName 设备名称
+     * @param locator    元素定位器
+     * @param policy     查找元素的等待策略
+     */
+    public void clickElement(String deviceName, By locator, WaitPolicy policy) {
         log.info("点击元素: {}, 定位器: {}", deviceName, locator);
-        findElement(deviceName, locator).click();
+        runAction(deviceName, () -> findElement(deviceName, locator, policy).click());
     }
 
     /**
@@ -108,42 +162,46 @@ public class AppiumOperationService {
      * @param text       要输入的文本
      */
     public void sendKeys(String deviceName, By locator, String text) {
+        sendKeys(deviceName, locator, text, WaitPolicy.DEFAULT);
+    }
+
+    /**
+     * 在指定元素中输入文本
+     * 
+     * @param deviceName 设备名称
+     * @param locator    元素定位器
+     * @param text       要输入的文本
+     * @param policy     查找元素的等待策略
+     */
+    public void sendKeys(String deviceName, By locator, String text, WaitPolicy policy) {
         log.info("输入文本: {}, 定位器: {}, 文本: {}", deviceName, locator, text);
-        findElement(deviceName, locator).sendKeys(text);
+        runAction(deviceName, () -> findElement(deviceName, locator, policy).sendKeys(text));
     }
 
     /**
-     * sendkeys 直接获取当前输入框
+     * 向当前获得焦点的输入框输入文本
+     * 不再查找输入框，整段文本一次发送，支持中文等任意Unicode字符
      * 
      * @param deviceName 设备名称
      * @param text       要输入的文本
      */
-    // FIXME: 输入键盘文字 需要优化
     public void sendKeysToCurrentInput(String deviceName, String text) {
         log.info("输入键盘文字: {}, 文本: {}", deviceName, text);
-        AppiumDriver driver = getDriverOrThrow(deviceName);
-        // 查询当前输入框
-        WebElement currentInput = driver.findElement(By.className("android.widget.EditText"));
-        currentInput.sendKeys(text);
+        if (text == null || text.isEmpty()) {
+            return;
+        }
+        runAction(deviceName, () -> textInputService.type(deviceName, getDriverOrThrow(deviceName), text));
     }
 
     /**
-     * 按指定元素输入键盘文字
+     * 通过键盘输入文字
+     * 与sendKeysToCurrentInput相同，整段文本一次发送，保留空白字符
      * 
      * @param deviceName 设备名称
      * @param text       要输入的文本
      */
-    // FIXME: 输入键盘文字 需要优化
     public void inputKeyboardText(String deviceName, String text) {
-        log.info("输入键盘文字: {}, 文本: {}", deviceName, text);
-        AppiumDriver driver = getDriverOrThrow(deviceName);
-        AndroidDriver androidDriver = (AndroidDriver) driver;
-        String inputs = text.replaceAll("\\s+", "");
-        for (char c : inputs.toCharArray()) {
-            log.info("输入键盘文字: {}, 字符: {}", deviceName, c);
-            // 将字符转换为AndroidKey
-            androidDriver.pressKey(new KeyEvent(AndroidKey.valueOf(String.valueOf(c))));
-        }
+        sendKeysToCurrentInput(deviceName, text);
     }
 
     /**
@@ -153,8 +211,19 @@ public class AppiumOperationService {
      * @param locator    元素定位器
      */
     public void clearElement(String deviceName, By locator) {
+        clearElement(deviceName, locator, WaitPolicy.DEFAULT);
+    }
+
+    /**
+     * 清除指定元素中的文本
+     * 
+     * @param deviceName 设备名称
+     * @param locator    元素定位器
+     * @param policy     查找元素的等待策略
+     */
+    public void clearElement(String deviceName, By locator, WaitPolicy policy) {
         log.info("清除元素文本: {}, 定位器: {}", deviceName, locator);
-        findElement(deviceName, locator).clear();
+        runAction(deviceName, () -> findElement(deviceName, locator, policy).clear());
     }
 
     /**
@@ -165,22 +234,53 @@ public class AppiumOperationService {
      * @return 元素文本
      */
     public String getElementText(String deviceName, By locator) {
+        return getElementText(deviceName, locator, WaitPolicy.DEFAULT);
+    }
+
+    /**
+     * 获取元素文本
+     * 
+     * @param deviceName 设备名称
+     * @param locator    元素定位器
+     * @param policy     查找元素的等待策略
+     * @return 元素文本
+     */
+    public String getElementText(String deviceName, By locator, WaitPolicy policy) {
         log.info("获取元素文本: {}, 定位器: {}", deviceName, locator);
-        return findElement(deviceName, locator).getText();
+        return commandQueue.execute(deviceName, () -> findElement(deviceName, locator, policy).getText());
     }
 
     /**
-     * 检查元素是否存在
+     * 检查元素是否存在，只查找一次，不存在时立即返回
      * 
      * @param deviceName 设备名称
      * @param locator    元素定位器
      * @return 是否存在
      */
     public boolean isElementPresent(String deviceName, By locator) {
-        log.info("检查元素是否存在: {}, 定位器: {}", deviceName, locator);
+        return isElementPresent(deviceName, locator, WaitPolicy.IMMEDIATE);
+    }
+
+    /**
+     * 检查元素是否存在
+     * 
+     * @param deviceName 设备名称
+     * @param locator    元素定位器
+     * @param policy     等待策略
+     * @return 是否存在
+     */
+    public boolean isElementPresent(String deviceName, By locator, WaitPolicy policy) {
+        log.info("检查元素是否存在: {}, 定位器: {}, {}", deviceName, locator, policy);
+        SnapshotQuery query = snapshotService.compile(locator);
         try {
-            return !findElements(deviceName, locator).isEmpty();
+            if (query != null) {
+                return !snapshotService.findAll(deviceName, query, policy).isEmpty();
+            }
+            return commandQueue.execute(deviceName, () -> !findElements(deviceName, locator, policy).isEmpty());
         } catch (Exception e) {
+            if (policy.isFailFast() && !(e instanceof NoSuchElementException)) {
+                throw e;
+            }
             return false;
         }
     }
@@ -194,20 +294,150 @@ public class AppiumOperationService {
      * @return 是否成功等到
      */
     public boolean waitForElement(String deviceName, By locator, int timeoutInSeconds) {
-        log.info("等待元素出现: {}, 定位器: {}, 超时时间: {}秒", deviceName, locator, timeoutInSeconds);
-        long endTime = System.currentTimeMillis() + (timeoutInSeconds * 1000L);
-        while (System.currentTimeMillis() < endTime) {
-            if (isElementPresent(deviceName, locator)) {
-                return true;
+        return waitForElement(deviceName, locator, WaitPolicy.ofSeconds(timeoutInSeconds));
+    }
+
+    /**
+     * 等待元素出现
+     * 
+     * @param deviceName 设备名称
+     * @param locator    元素定位器
+     * @param policy     等待策略
+     * @return 是否成功等到
+     */
+    public boolean waitForElement(String deviceName, By locator, WaitPolicy policy) {
+        return waitForAnyElement(deviceName, List.of(locator), policy).found();
+    }
+
+    /**
+     * 等待多个定位器中任意一个出现，返回最先出现的定位器
+     * 能在快照上查询的定位器每轮只获取一次页面源码，全部在本地匹配；
+     * 页面仍在变化时按最小间隔轮询，页面不变时间隔按倍数增长，上限为等待策略中的轮询间隔。
+     * 只有一个定位器且无法在快照上查询时，交给服务端隐式等待，元素出现后服务端立即返回。
+     * 每轮查找单独进入设备命令队列，等待期间不会长时间阻塞同一设备上的其他命令
+     * 
+     * @param deviceName 设备名称
+     * @param locators   元素定位器，按优先级排列，同一轮中多个出现时返回靠前的一个
+     * @param policy     等待策略
+     * @return 等待结果
+     */
+    public WaitResult waitForAnyElement(String deviceName, List<By> locators, WaitPolicy policy) {
+        log.info("等待元素出现: {}, 定位器: {}, {}", deviceName, locators, policy);
+        if (locators == null || locators.isEmpty()) {
+            throw new IllegalArgumentException("至少需要一个定位器");
+        }
+
+        AppiumConfig.Wait wait = appiumConfig.getWait();
+        List<SnapshotQuery> queries = locators.stream().map(snapshotService::compile).toList();
+        boolean serverSide = wait.isServerSide() && locators.size() == 1 && queries.get(0) == null;
+        long maxInterval = Math.max(wait.getMinPollInterval(), policy.getPollInterval().toMillis());
+        long start = System.currentTimeMillis();
+        long deadline = start + policy.getTimeout().toMillis();
+
+        long interval = wait.getMinPollInterval();
+        Long lastFingerprint = null;
+        int probes = 0;
+        while (true) {
+            long remaining = deadline - System.currentTimeMillis();
+            probes++;
+            int matched;
+            if (serverSide && remaining > 0) {
+                matched = findWithServerWait(deviceName, locators.get(0), Math.min(remaining, wait.getServerSlice()),
+                        policy.isFailFast()) ? 0 : -1;
+            } else {
+                boolean refresh = probes > 1;
+                Probe probe = commandQueue.execute(deviceName,
+                        () -> probe(deviceName, locators, queries, refresh, policy.isFailFast()));
+                matched = probe.matchedIndex();
+
+                // 页面有变化说明界面仍在切换，回到最小间隔；否则逐步放慢
+                if (probe.fingerprint() != null && lastFingerprint != null
+                        && !probe.fingerprint().equals(lastFingerprint)) {
+                    interval = wait.getMinPollInterval();
+                } else if (probes > 1) {
+                    interval = Math.min(maxInterval, (long) (interval * wait.getBackoffMultiplier()));
+                }
+                if (probe.fingerprint() != null) {
+                    lastFingerprint = probe.fingerprint();
+                }
+            }
+
+            long elapsed = System.currentTimeMillis() - start;
+            if (matched >= 0) {
+                log.info("元素已出现: {}, 定位器: {}, 耗时: {}ms, 轮数: {}", deviceName, locators.get(matched), elapsed,
+                        probes);
+                return WaitResult.found(matched, locators.get(matched), elapsed, probes);
+            }
+
+            remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                return WaitResult.notFound(elapsed, probes);
             }
             try {
-                Thread.sleep(500);
+                Thread.sleep(Math.min(remaining, interval));
             } catch (InterruptedException e) {
                 Thread.currentThread().interrupt();
-                return false;
+                return WaitResult.notFound(System.currentTimeMillis() - start, probes);
             }
         }
-        return false;
+    }
+
+    // 查找一轮，返回第一个找到的定位器下标及本轮快照的指纹
+    private Probe probe(String deviceName, List<By> locators, List<SnapshotQuery> queries, boolean refresh,
+            boolean failFast) {
+        PageSnapshot snapshot = null;
+        for (int i = 0; i < locators.size(); i++) {
+            try {
+                if (queries.get(i) != null) {
+                    if (snapshot == null) {
+                        snapshot = refresh ? snapshotService.refresh(deviceName)
+                                : snapshotService.getSnapshot(deviceName);
+                    }
+                    if (!queries.get(i).apply(snapshot).isEmpty()) {
+                        return new Probe(i, snapshot.getFingerprint());
+                    }
+                } else if (!findElements(deviceName, locators.get(i), WaitPolicy.IMMEDIATE).isEmpty()) {
+                    return new Probe(i, snapshot != null ? snapshot.getFingerprint() : null);
+                }
+            } catch (NoSuchElementException e) {
+                // 元素不存在，继续查找下一个定位器
+            } catch (RuntimeException e) {
+                if (failFast) {
+                    throw e;
+                }
+                log.debug("查找元素失败: {}, {}", locators.get(i), e.getMessage());
+            }
+        }
+        return new Probe(-1, snapshot != null ? snapshot.getFingerprint() : null);
+    }
+
+    // 由服务端隐式等待查找元素，元素出现时立即返回，超时后恢复为不等待
+    private boolean findWithServerWait(String deviceName, By locator, long timeoutMillis, boolean failFast) {
+        try {
+            return commandQueue.execute(deviceName, () -> {
+                AppiumDriver driver = getDriverOrThrow(deviceName);
+                driver.manage().timeouts().implicitlyWait(Duration.ofMillis(timeoutMillis));
+                try {
+                    return !driver.findElements(locator).isEmpty();
+                } finally {
+                    driver.manage().timeouts().implicitlyWait(Duration.ZERO);
+                }
+            });
+        } catch (NoSuchElementException e) {
+            return false;
+        } catch (RuntimeException e) {
+            if (failFast) {
+                throw e;
+            }
+            log.debug("服务端等待元素失败: {}, {}", locator, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 一轮查找的结果
+     */
+    private record Probe(int matchedIndex, Long fingerprint) {
     }
 
     /**
@@ -218,36 +448,38 @@ public class AppiumOperationService {
      */
     public void backHomeMenu(String deviceName, String action) {
         log.info("执行Back / Home / Menu: {}, {}", deviceName, action);
-        AppiumDriver driver = getDriverOrThrow(deviceName);
-
-        if (driver instanceof AndroidDriver) {
-            AndroidDriver androidDriver = (AndroidDriver) driver;
-
-            switch (action.toLowerCase()) {
-                case "back":
-                    // 返回键
-                    driver.navigate().back();
-                    break;
-                case "home":
-                    // 主页键
-                    androidDriver.pressKey(new KeyEvent(AndroidKey.HOME));
-                    break;
-                case "menu":
-                    // 菜单键
-                    androidDriver.pressKey(new KeyEvent(AndroidKey.MENU));
-                    break;
-                case "recent":
-                    // 最近任务键（多任务键）
-                    androidDriver.pressKey(new KeyEvent(AndroidKey.APP_SWITCH));
-                    break;
-                default:
-                    log.warn("未知的操作类型: {}", action);
-                    throw new IllegalArgumentException("不支持的操作: " + action + "，支持的操作: back, home, menu, recent");
+        runAction(deviceName, () -> {
+            AppiumDriver driver = getDriverOrThrow(deviceName);
+
+            if (driver instanceof AndroidDriver) {
+                AndroidDriver androidDriver = (AndroidDriver) driver;
+
+                switch (action.toLowerCase()) {
+                    case "back":
+                        // 返回键
+                        driver.navigate().back();
+                        break;
+                    case "home":
+                        // 主页键
+                        androidDriver.pressKey(new KeyEvent(AndroidKey.HOME));
+                        break;
+                    case "menu":
+                        // 菜单键
+                        androidDriver.pressKey(new KeyEvent(AndroidKey.MENU));
+                        break;
+                    case "recent":
+                        // 最近任务键（多任务键）
+                        androidDriver.pressKey(new KeyEvent(AndroidKey.APP_SWITCH));
+                        break;
+                    default:
+                        log.warn("未知的操作类型: {}", action);
+                        throw new IllegalArgumentException("不支持的操作: " + action + "，支持的操作: back, home, menu, recent");
+                }
+            } else {
+                log.warn("当前设备驱动不是AndroidDriver，无法执行系统按键操作: {}", deviceName);
+                throw new UnsupportedOperationException("当前设备不支持系统按键操作");
             }
-        } else {
-            log.warn("当前设备驱动不是AndroidDriver，无法执行系统按键操作: {}", deviceName);
-            throw new UnsupportedOperationException("当前设备不支持系统按键操作");
-        }
+        });
     }
 
     /**
@@ -269,8 +501,9 @@ public class AppiumOperationService {
 
             // 获取设备屏幕尺寸
             AppiumDriver driver = getDriverOrThrow(deviceName);
-            int screenWidth = driver.manage().window().getSize().getWidth();
-            int screenHeight = driver.manage().window().getSize().getHeight();
+            DeviceMetrics metrics = metricsService.getMetrics(deviceName);
+            int screenWidth = metrics.width();
+            int screenHeight = metrics.height();
             log.info("设备屏幕尺寸: {}x{}", screenWidth, screenHeight);
 
             // 如果不使用大模型，尝试使用本地UI元素识别方法
@@ -278,7 +511,13 @@ public class AppiumOperationService {
                 log.info("不使用大模型，尝试使用本地UI元素识别方法");
                 // 这里可以添加本地UI元素识别的逻辑
                 // 例如使用UIAutomator获取元素
-                visibleElements = AndroidPageUtils.getLocalElements(driver);
+                if (snapshotService.isEnabled()) {
+                    PageSnapshot snapshot = snapshotService.getSnapshot(deviceName);
+                    visibleElements = AndroidPageUtils.getLocalElements(snapshot,
+                            node -> handleRegistry.register(deviceName, snapshot, node));
+                } else {
+                    visibleElements = commandQueue.execute(deviceName, () -> AndroidPageUtils.getLocalElements(driver));
+                }
                 return visibleElements;
             }
 
@@ -307,7 +546,12 @@ public class AppiumOperationService {
                     "请以JSON格式返回，每个元素包含上述属性。格式示例：\n" +
                     "[{\"type\": \"按钮\", \"text\": \"确定\", \"bounds\": {\"x\": 100, \"y\": 200, \"width\": 80, \"height\": 40}, \"center\": {\"x\": 140, \"y\": 220}, \"interactive\": true}]";
 
-            prompt = AndroidPageUtils.getLocalString(driver, prompt);
+            // 设备相关的查询进入命令队列，大模型请求在队列外执行，不阻塞该设备上的其他命令
+            String basePrompt = prompt;
+            PageSnapshot snapshot = snapshotService.isEnabled() ? snapshotService.getSnapshot(deviceName) : null;
+            prompt = snapshot != null
+                    ? AndroidPageUtils.getLocalString(snapshot, basePrompt)
+                    : commandQueue.execute(deviceName, () -> AndroidPageUtils.getLocalString(driver, basePrompt));
 
             System.out.println(prompt);
 
@@ -319,14 +563,9 @@ public class AppiumOperationService {
                 contents.add(ImageContent.from("data:image/png;base64," + base64Image));
                 ChatMessage userMessage = UserMessage.from(contents);
 
-                // OpenAiApi openAiApi =
-                // OpenAiApi.builder().apiKey(apiKey).baseUrl(baseUrl).build();
-                OpenAiChatModel chatModel = OpenAiChatModel.builder().apiKey(apiKey).baseUrl(baseUrl).modelName(model)
-                        .build();
-
                 ChatRequest chatRequest = ChatRequest.builder().responseFormat(ResponseFormat.JSON)
                         .messages(List.of(userMessage)).build();
-                ChatResponse response = chatModel.chat(chatRequest);
+                ChatResponse response = visionClient.chat(chatRequest);
                 log.info("大模型分析结果: {}", response.aiMessage().text());
 
                 // 解析响应数据
@@ -441,8 +680,12 @@ public class AppiumOperationService {
                         // elementInfo.put("selected", false);
                         // elementInfo.put("displayed", true);
 
-                        // 设置唯一ID
-                        // elementInfo.put("elementId", id++);
+                        // 设置唯一ID，页面不变时可直接按ID点击，无需再次识别
+                        if (snapshot != null) {
+                            elementInfo.put("elementId", handleRegistry.registerBounds(deviceName, snapshot,
+                                    String.valueOf(elementInfo.get("text")), locationMap.get("x"),
+                                    locationMap.get("y"), sizeMap.get("width"), sizeMap.get("height")));
+                        }
 
                         visibleElements.add(elementInfo);
                     }
@@ -509,115 +752,141 @@ public class AppiumOperationService {
      * @return 包含元素信息的列表，每个元素包含其类型、文本、属性等信息
      */
     public List<Map<String, Object>> getElements(String deviceName, By locator) {
+        return getElements(deviceName, locator, WaitPolicy.IMMEDIATE);
+    }
+
+    /**
+     * 获取指定条件的所有元素
+     * 
+     * @param deviceName 设备名称
+     * @param locator    元素定位器
+     * @param policy     等待至少一个元素出现的策略
+     * @return 包含元素信息的列表，每个元素包含其类型、文本、属性等信息
+     */
+    public List<Map<String, Object>> getElements(String deviceName, By locator, WaitPolicy policy) {
         log.info("获取指定条件的所有元素: {}, 定位器: {}", deviceName, locator);
-        List<WebElement> elements = findElements(deviceName, locator);
+        SnapshotQuery query = snapshotService.compile(locator);
+        if (query != null) {
+            // 一次获取页面源码，在快照上完成查询与属性读取
+            PageSnapshotService.QueryResult result = snapshotService.find(deviceName, query, policy);
+            return result.nodes().stream()
+                    .filter(node -> node.getWidth() > 0 && node.getHeight() > 0)
+                    .map(node -> toElementInfo(deviceName, result.snapshot(), node))
+                    .collect(Collectors.toList());
+        }
+
+        return commandQueue.execute(deviceName, () -> {
+            List<WebElement> elements = findElements(deviceName, locator, policy);
+            if (elements.isEmpty()) {
+                return new ArrayList<Map<String, Object>>();
+            }
 
-        AppiumDriver driver = getDriverOrThrow(deviceName);
+            // 定位器无法在快照上执行时，每个元素只读取一次位置，其余属性按位置从同一份快照中获取
+            PageSnapshot snapshot = snapshotService.isEnabled() ? snapshotService.getSnapshot(deviceName) : null;
 
-        // 将WebElement转换为包含元素属性的Map列表
-        return elements.stream()
-                .map(element -> {
-                    Map<String, Object> elementInfo = new HashMap<>();
-                    try {
-                        // 检查元素是否真的可见
-                        boolean isDisplayed = false;
+            // 将WebElement转换为包含元素属性的Map列表
+            return elements.stream()
+                    .map(element -> {
+                        Map<String, Object> elementInfo = new HashMap<>();
                         try {
-                            isDisplayed = element.isDisplayed();
-                        } catch (Exception e) {
-                            log.debug("检查元素可见性失败: {}", e.getMessage());
-                        }
+                            // 获取元素位置和大小
+                            Rectangle rect = element.getRect();
 
-                        // 获取元素位置和大小
-                        org.openqa.selenium.Point location = element.getLocation();
-                        org.openqa.selenium.Dimension size = element.getSize();
+                            // 只处理有尺寸的元素
+                            if (rect.getWidth() <= 0 || rect.getHeight() <= 0) {
+                                return null;
+                            }
 
-                        // 只处理有尺寸的元素
-                        if (size.getWidth() <= 0 || size.getHeight() <= 0) {
-                            return null;
-                        }
+                            PageSnapshot.Node node = snapshot != null
+                                    ? snapshot.findByBounds(rect.getX(), rect.getY(), rect.getWidth(),
+                                            rect.getHeight())
+                                    : null;
+                            if (node != null) {
+                                return toElementInfo(deviceName, snapshot, node);
+                            }
 
-                        // 获取元素基本信息
-                        String text = element.getText();
-                        elementInfo.put("text", text != null && !text.isEmpty() ? text : "");
+                            // 快照中没有唯一对应的节点，逐个读取属性
+                            boolean isDisplayed = false;
+                            try {
+                                isDisplayed = element.isDisplayed();
+                            } catch (Exception e) {
+                                log.debug("检查元素可见性失败: {}", e.getMessage());
+                            }
 
-                        String tagName = element.getTagName();
-                        elementInfo.put("tagName", tagName != null ? tagName : "");
+                            // 获取元素基本信息
+                            String text = element.getText();
+                            elementInfo.put("text", text != null && !text.isEmpty() ? text : "");
 
-                        String className = element.getAttribute("className");
-                        elementInfo.put("className", className != null ? className : "");
+                            String tagName = element.getTagName();
+                            elementInfo.put("tagName", tagName != null ? tagName : "");
 
-                        String resourceId = element.getAttribute("resource-id");
-                        elementInfo.put("resourceId", resourceId != null ? resourceId : "");
+                            String className = element.getAttribute("className");
+                            elementInfo.put("className", className != null ? className : "");
 
-                        String contentDesc = element.getAttribute("content-desc");
-                        elementInfo.put("contentDesc", contentDesc != null ? contentDesc : "");
+                            String resourceId = element.getAttribute("resource-id");
+                            elementInfo.put("resourceId", resourceId != null ? resourceId : "");
 
-                        // 添加位置和大小
-                        Map<String, Integer> locationMap = new HashMap<>();
-                        locationMap.put("x", location.getX());
-                        locationMap.put("y", location.getY());
-                        elementInfo.put("location", locationMap);
+                            String contentDesc = element.getAttribute("content-desc");
+                            elementInfo.put("contentDesc", contentDesc != null ? contentDesc : "");
 
-                        Map<String, Integer> sizeMap = new HashMap<>();
-                        sizeMap.put("width", size.getWidth());
-                        sizeMap.put("height", size.getHeight());
-                        elementInfo.put("size", sizeMap);
+                            // 添加位置和大小
+                            Map<String, Integer> locationMap = new HashMap<>();
+                            locationMap.put("x", rect.getX());
+                            locationMap.put("y", rect.getY());
+                            elementInfo.put("location", locationMap);
 
-                        // 获取元素状态
-                        elementInfo.put("displayed", isDisplayed);
-                        elementInfo.put("enabled", element.isEnabled());
-                        elementInfo.put("selected", element.isSelected());
+                            Map<String, Integer> sizeMap = new HashMap<>();
+                            sizeMap.put("width", rect.getWidth());
+                            sizeMap.put("height", rect.getHeight());
+                            elementInfo.put("size", sizeMap);
 
-                        // 尝试获取元素的XPath
-                        try {
-                            String xpath = generateXPath(driver, element);
-                            if (xpath != null && !xpath.isEmpty()) {
-                                elementInfo.put("xpath", xpath);
-                            }
+                            // 获取元素状态
+                            elementInfo.put("displayed", isDisplayed);
+                            elementInfo.put("enabled", element.isEnabled());
+                            elementInfo.put("selected", element.isSelected());
+
+                            // 添加唯一ID以便标识元素
+                            elementInfo.put("elementId", snapshot != null
+                                    ? handleRegistry.registerBounds(deviceName, snapshot, String.valueOf(className),
+                                            rect.getX(), rect.getY(), rect.getWidth(), rect.getHeight())
+                                    : System.identityHashCode(element));
                         } catch (Exception e) {
-                            log.debug("生成元素XPath失败: {}", e.getMessage());
+                            log.warn("获取元素属性时出错: {}", e.getMessage());
+                            return null;
                         }
+                        return elementInfo;
+                    })
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toList());
+        });
+    }
 
-                        // 添加唯一ID以便标识元素
-                        elementInfo.put("elementId", System.identityHashCode(element));
-                    } catch (Exception e) {
-                        log.warn("获取元素属性时出错: {}", e.getMessage());
-                        return null;
-                    }
-                    return elementInfo;
-                })
-                .filter(Objects::nonNull)
-                .collect(Collectors.toList());
-    }
-
-    /**
-     * 生成元素的XPath路径
-     * 
-     * @param driver  Appium驱动
-     * @param element 目标元素
-     * @return 元素的XPath路径
-     */
-    private String generateXPath(AppiumDriver driver, WebElement element) {
-        // 这里使用JavaScript执行器来获取元素的XPath
-        return (String) driver.executeScript(
-                "function getPathTo(element) {" +
-                        "    if (element.id !== '')" +
-                        "        return '//*[@id=\"' + element.id + '\"]';" +
-                        "    if (element === document.body)" +
-                        "        return '/html/body';" +
-                        "    var index = 1;" +
-                        "    var siblings = element.parentNode.childNodes;" +
-                        "    for (var i = 0; i < siblings.length; i++) {" +
-                        "        var sibling = siblings[i];" +
-                        "        if (sibling === element)" +
-                        "            return getPathTo(element.parentNode) + '/' + element.tagName.toLowerCase() + '[' + index + ']';"
-                        +
-                        "        if (sibling.nodeType === 1 && sibling.tagName === element.tagName)" +
-                        "            index++;" +
-                        "    }" +
-                        "}" +
-                        "return getPathTo(arguments[0]);",
-                element);
+    // 快照节点转换为与getElements相同格式的元素信息，定位器在本地生成
+    private Map<String, Object> toElementInfo(String deviceName, PageSnapshot snapshot, PageSnapshot.Node node) {
+        Map<String, Object> elementInfo = new HashMap<>();
+        elementInfo.put("text", node.getText());
+        elementInfo.put("tagName", node.getTag());
+        elementInfo.put("className", node.getClassName());
+        elementInfo.put("resourceId", node.getResourceId());
+        elementInfo.put("contentDesc", node.getContentDesc());
+
+        Map<String, Integer> locationMap = new HashMap<>();
+        locationMap.put("x", node.getX());
+        locationMap.put("y", node.getY());
+        elementInfo.put("location", locationMap);
+
+        Map<String, Integer> sizeMap = new HashMap<>();
+        sizeMap.put("width", node.getWidth());
+        sizeMap.put("height", node.getHeight());
+        elementInfo.put("size", sizeMap);
+
+        elementInfo.put("displayed", node.isDisplayed());
+        elementInfo.put("enabled", node.isEnabled());
+        elementInfo.put("selected", node.isSelected());
+        elementInfo.put("xpath", LocatorDeriver.deriveXPath(snapshot, node));
+        elementInfo.put("locator", LocatorDeriver.deriveLocator(snapshot, node));
+        elementInfo.put("elementId", handleRegistry.register(deviceName, snapshot, node));
+        return elementInfo;
     }
 
     /**
@@ -628,81 +897,24 @@ public class AppiumOperationService {
      */
     public String getPageSource(String deviceName) {
         log.info("获取页面源码: {}", deviceName);
-        return getDriverOrThrow(deviceName).getPageSource();
+        return commandQueue.execute(deviceName, () -> getDriverOrThrow(deviceName).getPageSource());
     }
 
     /**
      * 启动应用程序
+     * Android上通过缓存的启动Activity执行am start -W，返回系统报告的启动类型与耗时；
+     * 无法执行shell或非Android设备时使用activateApp
      * 
      * @param deviceName 设备名称
      * @param appPackage 应用包名
-     * @param appName    应用名
+     * @param appName    应用名，仅用于日志
+     * @return 启动结果
      */
-    public void launchApp(String deviceName, String appPackage, String appName) {
+    public LaunchResult launchApp(String deviceName, String appPackage, String appName) {
         log.info("启动应用: {}, 包名: {}, 应用名: {}", deviceName, appPackage, appName);
-        AppiumDriver driver = getDriverOrThrow(deviceName);
-        try {
-            AndroidDriver androidDriver = (AndroidDriver) driver;
-            androidDriver.activateApp(appPackage);
-            System.out.println("通过activateApp方法启动应用: " + appPackage);
-        } catch (Exception e) {
-            System.err.println("启动应用失败: " + e.getMessage());
-
-            log.info("尝试通过应用名称搜索并启动: {}", appName);
-            try {
-                AndroidDriver androidDriver = (AndroidDriver) driver;
-
-                // 按Home键回到主屏幕
-                backHomeMenu(deviceName, "home");
-                Thread.sleep(500);
-
-                // 在某些设备上可能需要打开应用抽屉
-                swipe(deviceName, "down");
-                Thread.sleep(500);
-
-                log.info("没有找到应用图标，尝试在搜索框中搜索");
-
-                // 尝试找到搜索框并搜索
-                // List<WebElement> searchBoxes = androidDriver.findElements(
-                // By.xpath(
-                // "//*[@resource-id='search_box_input' or contains(@resource-id, 'search') or
-                // @text='搜索' or @content-desc='搜索']"));
-
-                // 查找EditText
-                // 输入应用名称
-                WebElement searchInput = androidDriver.findElement(By.className("android.widget.EditText"));
-
-                if (searchInput != null) {
-                    searchInput.click();
-                    Thread.sleep(500);
-                    // 清空搜索框
-                    searchInput.clear();
-
-                    searchInput.sendKeys(appName);
-                    Thread.sleep(1000);
-                    // enter
-
-                    // 点击搜索结果:预期是通过文字定位数组第一个,如果是英文需要忽视大小写
-                    List<WebElement> searchResults = androidDriver.findElements(By.xpath(
-                            "//*[@text='" + appName + "' or @content-desc='" + appName + "']"));
-
-                    if (!searchResults.isEmpty() && searchResults.size() > 1) {
-                        searchResults.get(1).click();
-                    } else {
-                        log.error("搜索结果中未找到应用: {}", appName);
-                        throw new RuntimeException("无法找到并启动应用: " + appName);
-                    }
-                } else {
-                    // 如果找不到搜索框，尝试使用adb命令启动
-                    log.info("尝试使用adb命令启动应用: {}", appPackage);
-                    String command = "monkey -p " + appPackage + " -c android.intent.category.LAUNCHER 1";
-                    driver.executeScript("mobile: shell", Map.of("command", command));
-                }
-            } catch (Exception ex) {
-                log.error("所有启动应用方法均失败: {}", ex.getMessage());
-                throw new RuntimeException("无法启动应用: " + appName + ", " + ex.getMessage(), ex);
-            }
-        }
+        LaunchResult result = callAction(deviceName,
+                () -> appLaunchService.launch(deviceName, getDriverOrThrow(deviceName), appPackage));
+        return settleAfterLaunch(deviceName, result);
     }
 
     /**
@@ -719,37 +931,104 @@ public class AppiumOperationService {
         log.info("滑动屏幕: {}, 从({},{})到({},{}),方向: {}, 持续时间: {}毫秒",
                 deviceName, startX, startY, endX, endY, getSwipeDirection(startX, startY, endX, endY), duration);
 
-        AppiumDriver driver = getDriverOrThrow(deviceName);
-        driver.executeScript("mobile: swipeGesture",
-                Map.of(
-                        "left", startX,
-                        "top", startY,
-                        "width", endX - startX,
-                        "height", endY - startY,
-                        "direction", getSwipeDirection(startX, startY, endX, endY),
-                        "percent", 0.75,
-                        "speed", duration));
+        runAction(deviceName, () -> {
+            AppiumDriver driver = getDriverOrThrow(deviceName);
+            driver.executeScript("mobile: swipeGesture",
+                    Map.of(
+                            "left", startX,
+                            "top", startY,
+                            "width", endX - startX,
+                            "height", endY - startY,
+                            "direction", getSwipeDirection(startX, startY, endX, endY),
+                            "percent", 0.75,
+                            "speed", duration));
+        });
     }
 
     /**
      * 向指定方向滑动
+     * 滑动区域取状态栏与导航栏之间、左右各留10%边距的屏幕中部，避免触发系统手势
      * 
      * @param deviceName 设备名称
      * @param direction  方向（up, down, left, right）
      */
     public void swipe(String deviceName, String direction) {
         log.info("向{}方向滑动: {}", direction, deviceName);
+        DeviceMetrics metrics = metricsService.getMetrics(deviceName);
+        int left = metrics.width() / 10;
+        int top = metrics.safeTop() + metrics.safeHeight() / 10;
 
-        AppiumDriver driver = getDriverOrThrow(deviceName);
+        runAction(deviceName, () -> {
+            AppiumDriver driver = getDriverOrThrow(deviceName);
 
-        driver.executeScript("mobile: swipeGesture",
-                Map.of(
-                        "left", 100,
-                        "top", 200,
-                        "width", 200,
-                        "height", 400,
-                        "direction", direction,
-                        "percent", 0.75));
+            driver.executeScript("mobile: swipeGesture",
+                    Map.of(
+                            "left", left,
+                            "top", top,
+                            "width", metrics.width() - 2 * left,
+                            "height", metrics.safeHeight() * 8 / 10,
+                            "direction", direction,
+                            "percent", 0.75));
+        });
+    }
+
+    /**
+     * 获取指定版本之后的界面变化，只返回新增、消失与移动的元素
+     * 
+     * @param deviceName   设备名称
+     * @param sinceVersion 上次获取到的版本，为null时使用该设备上一次观察的版本，为0时返回全部元素
+     * @return 界面变化
+     */
+    public Map<String, Object> getScreenChanges(String deviceName, Long sinceVersion) {
+        log.info("获取界面变化: {}, 基准版本: {}", deviceName, sinceVersion);
+        return deltaService.getChanges(deviceName, sinceVersion);
+    }
+
+    /**
+     * 等待界面稳定，使用配置的静默期与截止时间
+     * 
+     * @param deviceName 设备名称
+     * @return 等待结果
+     */
+    public SettleResult waitForSettle(String deviceName) {
+        AppiumConfig.Settle settle = appiumConfig.getSettle();
+        return waitForSettle(deviceName, settle.getQuietPeriod(), settle.getTimeout());
+    }
+
+    /**
+     * 等待界面稳定
+     * 反复获取页面快照，指纹在静默期内不变即返回；每次获取单独进入设备命令队列，
+     * 最后一次获取的快照留在缓存中，稳定后的元素查询不必再请求设备
+     * 
+     * @param deviceName    设备名称
+     * @param quietMillis   静默期（毫秒）
+     * @param timeoutMillis 截止时间（毫秒）
+     * @return 等待结果
+     */
+    public SettleResult waitForSettle(String deviceName, long quietMillis, long timeoutMillis) {
+        SettleResult result = UiSettle.waitForStable(() -> snapshotService.refresh(deviceName).getFingerprint(),
+                quietMillis, timeoutMillis, appiumConfig.getSettle().getPollInterval());
+        log.info("等待界面稳定: {}, 是否稳定: {}, 稳定用时: {}ms, 总耗时: {}ms, 次数: {}", deviceName, result.settled(),
+                result.settleMillis(), result.elapsedMillis(), result.probes());
+        return result;
+    }
+
+    // 按配置在启动应用后等待界面稳定
+    private LaunchResult settleAfterLaunch(String deviceName, LaunchResult result) {
+        if (!appiumConfig.getSettle().isAfterLaunch()) {
+            return result;
+        }
+        return result.withSettle(waitForSettle(deviceName));
+    }
+
+    /**
+     * 获取设备屏幕参数，会话内只请求一次设备，屏幕旋转后重新获取
+     * 
+     * @param deviceName 设备名称
+     * @return 屏幕参数
+     */
+    public DeviceMetrics getDeviceMetrics(String deviceName) {
+        return metricsService.getMetrics(deviceName);
     }
 
     /**
@@ -762,25 +1041,113 @@ public class AppiumOperationService {
     public void tapByCoordinates(String deviceName, int x, int y) {
         log.info("按坐标点击屏幕: {}, 坐标: ({},{})", deviceName, x, y);
 
-        AppiumDriver driver = getDriverOrThrow(deviceName);
-        driver.executeScript("mobile: clickGesture", Map.of("x", x, "y", y));
+        runAction(deviceName, () -> {
+            AppiumDriver driver = getDriverOrThrow(deviceName);
+            driver.executeScript("mobile: clickGesture", Map.of("x", x, "y", y));
+        });
+    }
+
+    /**
+     * 批量执行点击、长按、滑动、停顿与按键
+     * 相邻的触摸操作与停顿合并为一次W3C performActions调用，按键各自发送一次，
+     * 所有操作在执行前先完成校验，任一步骤非法时不会执行任何操作
+     * 
+     * @param deviceName 设备名称
+     * @param steps      操作列表，按顺序执行
+     * @return 实际发往设备的请求次数
+     */
+    public int performActions(String deviceName, List<ActionStep> steps) {
+        log.info("批量执行操作: {}, 步骤数: {}", deviceName, steps.size());
+        if (steps.isEmpty()) {
+            return 0;
+        }
+
+        // 先编译全部步骤，每一批是一段触摸序列或一个按键
+        List<Object> batches = new ArrayList<>();
+        List<ActionStep> pending = new ArrayList<>();
+        for (ActionStep step : steps) {
+            if (step.isKey()) {
+                if (!pending.isEmpty()) {
+                    batches.add(GestureActions.toSequence(pending));
+                    pending = new ArrayList<>();
+                }
+                batches.add(toAndroidKey(step.key()));
+            } else {
+                pending.add(step);
+            }
+        }
+        if (!pending.isEmpty()) {
+            batches.add(GestureActions.toSequence(pending));
+        }
+
+        runAction(deviceName, () -> {
+            AppiumDriver driver = getDriverOrThrow(deviceName);
+            long start = System.currentTimeMillis();
+            for (Object batch : batches) {
+                if (batch instanceof Sequence sequence) {
+                    driver.perform(List.of(sequence));
+                } else if (driver instanceof AndroidDriver androidDriver) {
+                    androidDriver.pressKey(new KeyEvent((AndroidKey) batch));
+                } else {
+                    throw new UnsupportedOperationException("当前设备不支持系统按键操作");
+                }
+            }
+            log.info("批量操作完成: {}, 步骤数: {}, 请求次数: {}, 耗时: {}ms", deviceName, steps.size(), batches.size(),
+                    System.currentTimeMillis() - start);
+        });
+        return batches.size();
+    }
+
+    // 按键名称转换为AndroidKey，如BACK、HOME、ENTER
+    private AndroidKey toAndroidKey(String key) {
+        if (key == null || key.isBlank()) {
+            throw new IllegalArgumentException("key操作需要指定按键名称");
+        }
+        try {
+            return AndroidKey.valueOf(key.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("不支持的按键: " + key);
+        }
     }
 
-    // 查找单个元素
-    private WebElement findElement(String deviceName, By locator) {
-        return getDriverOrThrow(deviceName).findElement(locator);
+    // 执行会改变屏幕内容的命令，执行后页面快照失效
+    private void runAction(String deviceName, Runnable action) {
+        commandQueue.run(deviceName, () -> {
+            try {
+                action.run();
+            } finally {
+                snapshotService.invalidate(deviceName);
+            }
+        });
     }
 
-    // 查找多个元素
-    private List<WebElement> findElements(String deviceName, By locator) {
-        return getDriverOrThrow(deviceName).findElements(locator);
+    // 执行会改变屏幕内容并返回结果的命令，执行后页面快照失效
+    private <T> T callAction(String deviceName, Callable<T> action) {
+        return commandQueue.execute(deviceName, () -> {
+            try {
+                return action.call();
+            } finally {
+                snapshotService.invalidate(deviceName);
+            }
+        });
+    }
+
+    // 按等待策略查找单个元素
+    private WebElement findElement(String deviceName, By locator, WaitPolicy policy) {
+        return ElementLookup.require(getDriverOrThrow(deviceName), locator, policy);
+    }
+
+    // 按等待策略查找多个元素
+    private List<WebElement> findElements(String deviceName, By locator, WaitPolicy policy) {
+        return ElementLookup.findAll(getDriverOrThrow(deviceName), locator, policy);
     }
 
     // 获取驱动或抛出异常
     private AppiumDriver getDriverOrThrow(String deviceName) {
-        return sessionManager.getSession(deviceName)
-                .orElseThrow(() -> new RuntimeException("设备未连接或会话不存在: " + deviceName))
-                .getDriver();
+        DeviceSession session = sessionManager.getSession(deviceName)
+                .orElseThrow(() -> new RuntimeException("设备未连接或会话不存在: " + deviceName));
+        session.touch();
+        return session.getDriver();
     }
 
     // 计算滑动方向
@@ -797,6 +1164,8 @@ public class AppiumOperationService {
 
     /**
      * 通过元素ID点击屏幕上的元素
+     * 元素ID来自getElements或getAllVisibleElements的返回结果，页面未变化时直接使用缓存的位置点击，
+     * 页面变化后只重新获取一次页面源码确认元素仍在原处
      * 
      * @param deviceName 设备名称
      * @param elementId  元素ID
@@ -805,23 +1174,21 @@ public class AppiumOperationService {
     public boolean clickElementById(String deviceName, int elementId) {
         log.info("通过ID点击元素: {}, elementId: {}", deviceName, elementId);
         try {
-            List<Map<String, Object>> elements = getAllVisibleElements(deviceName, "");
-
-            for (Map<String, Object> element : elements) {
-                int id = (Integer) element.get("elementId");
-                if (id == elementId) {
-                    Map<String, Integer> center = (Map<String, Integer>) element.get("center");
-                    int x = center.get("x");
-                    int y = center.get("y");
-
-                    log.info("找到元素ID: {}，点击坐标: ({}, {})", elementId, x, y);
-                    tapByCoordinates(deviceName, x, y);
-                    return true;
+            // 确认句柄与点击在同一条命令中完成，期间其他命令无法改变屏幕
+            return callAction(deviceName, () -> {
+                Optional<ElementHandleRegistry.ElementHandle> handle = handleRegistry.resolve(deviceName, elementId,
+                        snapshotService.getSnapshot(deviceName));
+                if (handle.isEmpty()) {
+                    log.error("未找到元素ID或元素已随页面变化失效: {}", elementId);
+                    return false;
                 }
-            }
 
-            log.error("未找到元素ID: {}", elementId);
-            return false;
+                int x = handle.get().centerX();
+                int y = handle.get().centerY();
+                log.info("找到元素ID: {}，点击坐标: ({}, {})", elementId, x, y);
+                getDriverOrThrow(deviceName).executeScript("mobile: clickGesture", Map.of("x", x, "y", y));
+                return true;
+            });
         } catch (Exception e) {
             log.error("通过ID点击元素失败: {}", e.getMessage());
             return false;
@@ -829,42 +1196,24 @@ public class AppiumOperationService {
     }
 
     /**
-     * 通过多次按返回键退出应用，然后重新启动应用
+     * 重启应用：强制停止后重新启动，不再逐次按返回键与Home键
      * 
-     * @param deviceName   设备名称
-     * @param appPackage   应用包名
-     * @param appName      应用名
-     * @param maxBackCount 最大返回次数
+     * @param deviceName 设备名称
+     * @param appPackage 应用包名
+     * @param appName    应用名，仅用于日志
+     * @param record     是否同时开始录屏，录屏时长使用配置的默认值
+     * @return 启动结果，elapsedMillis为重启总耗时
      */
-    public void restartApp(String deviceName, String appPackage, String appName, int maxBackCount) {
-        log.info("通过返回键退出并重启应用: {}, 包名: {}, 应用名: {}, 最大返回次数: {}", deviceName, appPackage, appName, maxBackCount);
-        AppiumDriver driver = getDriverOrThrow(deviceName);
-
-        recordService.startRecording(deviceName, 600);
-
-        // 先尝试通过多次返回键退出应用
-        for (int i = 0; i < maxBackCount; i++) {
-            try {
-                log.info("执行返回操作 {}/{}", i + 1, maxBackCount);
-                backHomeMenu(deviceName, "back");
-                // 每次返回后等待一小段时间
-                Thread.sleep(100);
-            } catch (Exception e) {
-                log.warn("执行返回操作失败: {}", e.getMessage());
-                break;
+    public LaunchResult restartApp(String deviceName, String appPackage, String appName, boolean record) {
+        log.info("重启应用: {}, 包名: {}, 应用名: {}, 录屏: {}", deviceName, appPackage, appName, record);
+        LaunchResult result = callAction(deviceName, () -> {
+            AppiumDriver driver = getDriverOrThrow(deviceName);
+            if (record) {
+                recordService.startRecording(deviceName, 0);
             }
-        }
-
-        // 确保应用完全退出，按Home键回到主屏幕
-        try {
-            backHomeMenu(deviceName, "home");
-            Thread.sleep(1000);
-        } catch (Exception e) {
-            log.warn("执行Home键操作失败: {}", e.getMessage());
-        }
-
-        // 重新启动应用
-        launchApp(deviceName, appPackage, appName);
+            return appLaunchService.restart(deviceName, driver, appPackage);
+        });
+        return settleAfterLaunch(deviceName, result);
     }
 
     /**
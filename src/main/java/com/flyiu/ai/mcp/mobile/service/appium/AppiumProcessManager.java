@@ -0,0 +1,223 @@
+package com.flyiu.ai.mcp.mobile.service.appium;
+
+import com.flyiu.ai.mcp.mobile.config.AppiumConfig;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 本机Appium进程池
+ * 在分配到的端口上启动多个Appium进程，就绪后注册为服务器节点参与设备分配，
+ * 进程异常退出后按指数退避重启
+ */
+@Slf4j
+@Component
+public class AppiumProcessManager {
+
+    private final AppiumConfig appiumConfig;
+    private final AppiumServerService appiumServerService;
+    private final AppiumServerRegistry serverRegistry;
+    private final AppiumServerStatusMonitor serverStatusMonitor;
+
+    // 按端口索引的托管进程
+    private final Map<Integer, ManagedProcess> processes = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(1);
+    // 启动与等待就绪在虚拟线程中执行，多个进程并行启动
+    private final ExecutorService launchExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private volatile boolean stopping;
+
+    @Autowired
+    public AppiumProcessManager(AppiumConfig appiumConfig, AppiumServerService appiumServerService,
+            AppiumServerRegistry serverRegistry, AppiumServerStatusMonitor serverStatusMonitor) {
+        this.appiumConfig = appiumConfig;
+        this.appiumServerService = appiumServerService;
+        this.serverRegistry = serverRegistry;
+        this.serverStatusMonitor = serverStatusMonitor;
+    }
+
+    /**
+     * 应用启动完成后启动所有托管进程
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        AppiumConfig.Processes config = appiumConfig.getProcesses();
+        if (!config.isEnabled()) {
+            return;
+        }
+
+        log.info("启动本机Appium进程池，数量: {}, 起始端口: {}", config.getSize(), config.getBasePort());
+        int port = config.getBasePort();
+        for (int i = 0; i < config.getSize(); i++) {
+            while (!isPortFree(config.getHost(), port)) {
+                log.info("端口已被占用，跳过: {}", port);
+                port++;
+            }
+
+            ManagedProcess managed = new ManagedProcess(port, "http://" + config.getHost() + ":" + port);
+            processes.put(port, managed);
+            launchExecutor.execute(() -> launch(managed));
+            port++;
+        }
+    }
+
+    /**
+     * 获取所有托管进程的状态
+     *
+     * @return 各进程的端口、PID、存活状态、重启次数与运行时长
+     */
+    public List<Map<String, Object>> getProcessStatus() {
+        long now = System.currentTimeMillis();
+        List<Map<String, Object>> status = new ArrayList<>();
+        processes.values().forEach(managed -> {
+            Process process = managed.process;
+            Map<String, Object> info = new HashMap<>();
+            info.put("port", managed.port);
+            info.put("url", managed.url);
+            info.put("pid", process != null ? process.pid() : -1);
+            info.put("alive", process != null && process.isAlive());
+            info.put("ready", managed.ready);
+            info.put("restartCount", managed.restartCount);
+            info.put("uptimeMs", process != null && process.isAlive() ? now - managed.startedAt : 0);
+            info.put("nextBackoffMs", managed.backoff);
+            status.add(info);
+        });
+        return status;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        stopping = true;
+        scheduler.shutdownNow();
+        launchExecutor.shutdownNow();
+
+        processes.values().forEach(managed -> {
+            serverRegistry.unregister(managed.url);
+            Process process = managed.process;
+            if (process == null || !process.isAlive()) {
+                return;
+            }
+            process.destroy();
+            try {
+                if (!process.waitFor(10, TimeUnit.SECONDS)) {
+                    log.warn("Appium进程未能在10秒内停止，强制终止: {}", managed.port);
+                    process.destroyForcibly();
+                }
+            } catch (InterruptedException e) {
+                process.destroyForcibly();
+                Thread.currentThread().interrupt();
+            }
+        });
+        processes.clear();
+    }
+
+    // 启动进程并等待就绪，就绪后注册为服务器节点
+    private void launch(ManagedProcess managed) {
+        if (stopping) {
+            return;
+        }
+
+        Process process;
+        try {
+            process = appiumServerService.launch(appiumConfig.getProcesses().getHost(), managed.port);
+        } catch (IOException e) {
+            log.error("启动Appium进程失败: {}, {}", managed.port, e.getMessage());
+            scheduleRestart(managed);
+            return;
+        }
+
+        managed.process = process;
+        managed.ready = false;
+        managed.startedAt = System.currentTimeMillis();
+        process.onExit().thenAccept(exited -> onExit(managed, exited));
+
+        if (appiumServerService.waitForServer(managed.url, process,
+                appiumConfig.getServer().getStartupTimeout())) {
+            managed.ready = true;
+            serverRegistry.register(managed.url, appiumConfig.getProcesses().getCapacity());
+            serverStatusMonitor.refresh(managed.url);
+            log.info("Appium进程已就绪: {}, PID: {}", managed.url, process.pid());
+        } else if (process.isAlive()) {
+            // 超时未就绪，终止后由退出回调安排重启
+            log.warn("Appium进程启动超时，终止后重启: {}", managed.port);
+            process.destroyForcibly();
+        }
+    }
+
+    // 进程退出回调，非主动停止时安排重启
+    private void onExit(ManagedProcess managed, Process exited) {
+        if (stopping || managed.process != exited) {
+            return;
+        }
+
+        managed.ready = false;
+        log.warn("Appium进程已退出: {}, 退出码: {}", managed.port, exited.exitValue());
+        serverRegistry.markDown(managed.url);
+        serverStatusMonitor.refresh(managed.url);
+        scheduleRestart(managed);
+    }
+
+    // 按指数退避安排重启，进程稳定运行一段时间后重置退避时间
+    private void scheduleRestart(ManagedProcess managed) {
+        if (stopping) {
+            return;
+        }
+
+        AppiumConfig.Processes config = appiumConfig.getProcesses();
+        if (managed.startedAt > 0 && System.currentTimeMillis() - managed.startedAt >= config.getStableAfter()) {
+            managed.backoff = config.getRestartBackoff();
+        }
+
+        long delay = managed.backoff;
+        managed.backoff = Math.min(delay * 2, config.getMaxRestartBackoff());
+        managed.restartCount++;
+        log.info("{}ms后重启Appium进程: {}", delay, managed.port);
+        scheduler.schedule(() -> launchExecutor.execute(() -> launch(managed)), delay, TimeUnit.MILLISECONDS);
+    }
+
+    private static boolean isPortFree(String host, int port) {
+        try (ServerSocket socket = new ServerSocket()) {
+            socket.setReuseAddress(false);
+            socket.bind(new InetSocketAddress(host, port));
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 托管的Appium进程
+     */
+    private class ManagedProcess {
+        private final int port;
+        private final String url;
+        private volatile Process process;
+        private volatile boolean ready;
+        private volatile long startedAt;
+        private volatile long backoff = appiumConfig.getProcesses().getRestartBackoff();
+        private volatile int restartCount;
+
+        ManagedProcess(int port, String url) {
+            this.port = port;
+            this.url = url;
+        }
+    }
+}
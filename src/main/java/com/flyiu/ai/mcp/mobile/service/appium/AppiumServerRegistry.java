@@ -0,0 +1,278 @@
+package com.flyiu.ai.mcp.mobile.service.appium;
+
+import com.flyiu.ai.mcp.mobile.config.AppiumConfig;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Appium服务器节点注册表
+ * 将设备分配到多个Appium服务器上，支持最小负载与一致性哈希两种策略，
+ * 节点不可用时设备自动迁移到其他节点
+ */
+@Slf4j
+@Component
+public class AppiumServerRegistry {
+
+    // 一致性哈希环上每个节点的虚拟节点数量
+    private static final int VIRTUAL_NODES = 128;
+
+    private final AppiumConfig appiumConfig;
+
+    private final List<Node> nodes = new CopyOnWriteArrayList<>();
+    // 设备当前分配到的节点
+    private final Map<String, Node> assignments = new ConcurrentHashMap<>();
+    // 一致性哈希环
+    private volatile TreeMap<Long, Node> ring = new TreeMap<>();
+
+    @Autowired
+    public AppiumServerRegistry(AppiumConfig appiumConfig) {
+        this.appiumConfig = appiumConfig;
+
+        AppiumConfig.Server server = appiumConfig.getServer();
+        if (server.getNodes() != null && !server.getNodes().isEmpty()) {
+            server.getNodes().forEach(node -> register(node.getUrl(), node.getCapacity()));
+        } else if (!appiumConfig.getProcesses().isEnabled()) {
+            // 启用本机进程池时只使用托管进程，默认地址不参与分配
+            register(server.getUrl(), 0);
+        }
+    }
+
+    /**
+     * 注册Appium服务器节点，已存在时更新容量
+     *
+     * @param url      服务器地址
+     * @param capacity 最大会话数量，0表示不限制
+     */
+    public synchronized void register(String url, int capacity) {
+        Node existing = findNode(url);
+        if (existing != null) {
+            existing.capacity = capacity;
+            existing.markUp();
+            return;
+        }
+
+        nodes.add(new Node(url, capacity));
+        rebuildRing();
+        log.info("注册Appium服务器节点: {}, 容量: {}", url, capacity == 0 ? "不限" : capacity);
+    }
+
+    /**
+     * 注销Appium服务器节点，已分配到该节点的设备会在下次创建会话时迁移
+     *
+     * @param url 服务器地址
+     */
+    public synchronized void unregister(String url) {
+        Node node = findNode(url);
+        if (node == null) {
+            return;
+        }
+
+        nodes.remove(node);
+        assignments.values().removeIf(assigned -> assigned == node);
+        rebuildRing();
+        log.info("注销Appium服务器节点: {}", url);
+    }
+
+    /**
+     * 为设备分配一个可用节点
+     *
+     * @param deviceName 设备名称
+     * @param excluded   本次需要跳过的节点地址（例如刚刚失败的节点）
+     * @return 分配到的服务器地址
+     */
+    public synchronized String acquire(String deviceName, Set<String> excluded) {
+        // 设备重新分配前先释放原来的位置
+        assignments.remove(deviceName);
+
+        List<Node> candidates = nodes.stream()
+                .filter(node -> !excluded.contains(node.url))
+                .filter(this::isAvailable)
+                .filter(Node::hasCapacity)
+                .toList();
+        if (candidates.isEmpty()) {
+            throw new IllegalStateException("没有可用的Appium服务器节点，设备: " + deviceName);
+        }
+
+        Node selected = "consistent-hash".equalsIgnoreCase(appiumConfig.getServer().getPlacement())
+                ? selectByHash(deviceName, candidates)
+                : candidates.stream()
+                        .min(Comparator.comparingDouble(Node::loadFactor))
+                        .orElseThrow();
+
+        assignments.put(deviceName, selected);
+        log.info("设备 {} 分配到Appium服务器: {}, 当前负载: {}", deviceName, selected.url, selected.load());
+        return selected.url;
+    }
+
+    /**
+     * 释放设备在节点上占用的位置
+     *
+     * @param deviceName 设备名称
+     * @param url        会话所在的服务器地址，与当前分配不一致时忽略
+     */
+    public void release(String deviceName, String url) {
+        if (url == null) {
+            return;
+        }
+        assignments.computeIfPresent(deviceName, (name, node) -> node.url.equals(url) ? null : node);
+    }
+
+    /**
+     * 将节点标记为不可用，在nodeRetryInterval之内不会再被分配
+     *
+     * @param url 服务器地址
+     */
+    public void markDown(String url) {
+        Node node = findNode(url);
+        if (node != null && node.up) {
+            node.markDown();
+            log.warn("Appium服务器节点不可用: {}", url);
+        }
+    }
+
+    /**
+     * 将节点标记为可用
+     *
+     * @param url 服务器地址
+     */
+    public void markUp(String url) {
+        Node node = findNode(url);
+        if (node != null && !node.up) {
+            node.markUp();
+            log.info("Appium服务器节点恢复可用: {}", url);
+        }
+    }
+
+    /**
+     * 获取所有节点地址
+     */
+    public List<String> getNodeUrls() {
+        return nodes.stream().map(node -> node.url).toList();
+    }
+
+    /**
+     * 获取所有节点的状态
+     *
+     * @return 各节点的可用性、容量、负载与已分配设备
+     */
+    public List<Map<String, Object>> getServerStatus() {
+        List<Map<String, Object>> status = new ArrayList<>();
+        for (Node node : nodes) {
+            Map<String, Object> info = new HashMap<>();
+            info.put("url", node.url);
+            info.put("up", node.up);
+            info.put("capacity", node.capacity);
+            info.put("load", node.load());
+            info.put("devices", assignments.entrySet().stream()
+                    .filter(entry -> entry.getValue() == node)
+                    .map(Map.Entry::getKey)
+                    .sorted()
+                    .toList());
+            status.add(info);
+        }
+        return status;
+    }
+
+    // 节点当前是否可以分配，不可用的节点超过重试间隔后允许再次尝试
+    private boolean isAvailable(Node node) {
+        return node.up || System.currentTimeMillis() - node.downSince >= appiumConfig.getServer().getNodeRetryInterval();
+    }
+
+    // 按一致性哈希选择节点，沿哈希环顺时针找到第一个候选节点
+    private Node selectByHash(String deviceName, Collection<Node> candidates) {
+        long hash = hash(deviceName);
+        SortedMap<Long, Node> tail = ring.tailMap(hash);
+        for (Node node : tail.values()) {
+            if (candidates.contains(node)) {
+                return node;
+            }
+        }
+        for (Node node : ring.values()) {
+            if (candidates.contains(node)) {
+                return node;
+            }
+        }
+        return candidates.iterator().next();
+    }
+
+    private void rebuildRing() {
+        TreeMap<Long, Node> newRing = new TreeMap<>();
+        for (Node node : nodes) {
+            for (int i = 0; i < VIRTUAL_NODES; i++) {
+                newRing.put(hash(node.url + "#" + i), node);
+            }
+        }
+        ring = newRing;
+    }
+
+    private Node findNode(String url) {
+        return nodes.stream().filter(node -> node.url.equals(url)).findFirst().orElse(null);
+    }
+
+    // 取MD5的前8个字节作为哈希值，分布比String.hashCode更均匀
+    private static long hash(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("MD5").digest(key.getBytes(StandardCharsets.UTF_8));
+            long hash = 0;
+            for (int i = 0; i < 8; i++) {
+                hash = (hash << 8) | (digest[i] & 0xFF);
+            }
+            return hash;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Appium服务器节点
+     */
+    private class Node {
+        private final String url;
+        private volatile int capacity;
+        private volatile boolean up = true;
+        private volatile long downSince;
+
+        Node(String url, int capacity) {
+            this.url = url;
+            this.capacity = capacity;
+        }
+
+        int load() {
+            return (int) assignments.values().stream().filter(node -> node == this).count();
+        }
+
+        boolean hasCapacity() {
+            return capacity <= 0 || load() < capacity;
+        }
+
+        double loadFactor() {
+            return capacity <= 0 ? load() : (double) load() / capacity;
+        }
+
+        void markDown() {
+            up = false;
+            downSince = System.currentTimeMillis();
+        }
+
+        void markUp() {
+            up = true;
+        }
+    }
+}
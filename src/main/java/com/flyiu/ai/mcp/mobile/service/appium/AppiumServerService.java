@@ -1,6 +1,7 @@
 package com.flyiu.ai.mcp.mobile.service.appium;
 
 import com.flyiu.ai.mcp.mobile.config.AppiumConfig;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -8,11 +9,19 @@ import org.springframework.stereotype.Service;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
-import java.net.HttpURLConnection;
+import java.net.URI;
 import java.net.URL;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
 
 /**
  * Appium服务器管理服务
@@ -22,11 +31,18 @@ import java.nio.file.Paths;
 public class AppiumServerService {
 
     private final AppiumConfig appiumConfig;
+    // 共享的HTTP客户端，复用到各服务器的keep-alive连接
+    private final HttpClient httpClient;
     private Process appiumProcess;
 
     @Autowired
     public AppiumServerService(AppiumConfig appiumConfig) {
         this.appiumConfig = appiumConfig;
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofMillis(appiumConfig.getServer().getStatusTimeout()))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
 
         // 初始化日志
         log.info("初始化Appium服务器管理，服务器URL: {}, Appium路径: {}, 自动启动: {}",
@@ -41,13 +57,26 @@ public class AppiumServerService {
      * @return 是否运行中
      */
     public boolean isServerRunning() {
+        return isServerRunning(appiumConfig.getServer().getUrl());
+    }
+
+    /**
+     * 检查指定地址的Appium服务器是否运行中
+     * 
+     * @param serverUrl 服务器地址
+     * @return 是否运行中
+     */
+    public boolean isServerRunning(String serverUrl) {
         try {
-            URL url = new URL(appiumConfig.getServer().getUrl() + "/status");
-            HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-            connection.setConnectTimeout(appiumConfig.getServer().getConnectTimeout());
-            connection.setRequestMethod("GET");
-            int responseCode = connection.getResponseCode();
-            return responseCode == 200;
+            HttpRequest request = HttpRequest.newBuilder(URI.create(serverUrl + "/status"))
+                    .timeout(Duration.ofMillis(appiumConfig.getServer().getStatusTimeout()))
+                    .GET()
+                    .build();
+            HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+            return response.statusCode() == 200;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
         } catch (Exception e) {
             log.debug("Appium服务器未运行: {}", e.getMessage());
             return false;
@@ -59,84 +88,119 @@ public class AppiumServerService {
      * 
      * @return 是否成功启动
      */
-    public boolean startServer() {
-        return true;
-//        if (isServerRunning()) {
-//            log.info("Appium服务器已经在运行中");
-//            return true;
-//        }
-//        try {
-//            log.info("正在启动Appium服务器...");
-//
-//            String appiumPath = appiumConfig.getServer().getAppiumPath();
-//            log.info("使用Appium路径: {}", appiumPath);
-//
-//            // 检查是否是文件路径
-//            if (appiumPath.contains("/") || appiumPath.contains("\\")) {
-//                // 验证路径是否存在
-//                Path path = Paths.get(appiumPath);
-//                if (!Files.exists(path)) {
-//                    log.error("Appium可执行文件不存在: {}", appiumPath);
-//                    return false;
-//                }
-//            }
-//
-//            // 构建启动命令 - 使用cmd /c来执行命令
-//            ProcessBuilder processBuilder = new ProcessBuilder("cmd", "/c", appiumPath,
-//                    "--address", "0.0.0.0",
-//                    "--port", String.valueOf(getPortFromUrl(appiumConfig.getServer().getUrl())),
-//                    "--log-level", "debug",
-//                    "--relaxed-security");
-//            processBuilder.redirectErrorStream(true);
-//
-//            log.info("执行命令: cmd /c {} --address 0.0.0.0 --port {} --log-level debug --relaxed-security",
-//                    appiumPath, getPortFromUrl(appiumConfig.getServer().getUrl()));
-//
-//            // 启动进程
-//            appiumProcess = processBuilder.start();
-//
-//            // 读取输出
-//            BufferedReader reader = new BufferedReader(new InputStreamReader(appiumProcess.getInputStream()));
-//            String line;
-//            int timeoutSeconds = 30;
-//            long startTime = System.currentTimeMillis();
-//
-//            // 等待Appium服务器启动
-//            while ((System.currentTimeMillis() - startTime) < timeoutSeconds * 1000) {
-//                if (isServerRunning()) {
-//                    log.info("Appium服务器已成功启动");
-//                    return true;
-//                }
-//
-//                // 输出Appium启动日志
-//                while (reader.ready() && (line = reader.readLine()) != null) {
-//                    log.info("Appium: {}", line);
-//                }
-//
-//                Thread.sleep(1000);
-//            }
-//
-//            Runnable runnable = () -> {
-//                try {
-//                    appiumProcess.waitFor();
-//                } catch (InterruptedException e) {
-//                    log.error("Appium服务器异常", e);
-//                }
-//            };
-//            new Thread(runnable).start();
-//
-//            log.error("Appium服务器启动超时");
-//            return false;
-//        } catch (IOException | InterruptedException e) {
-//            log.error("启动Appium服务器失败", e);
-//            return false;
-//        }
+    public synchronized boolean startServer() {
+        String serverUrl = appiumConfig.getServer().getUrl();
+        if (isServerRunning(serverUrl)) {
+            log.info("Appium服务器已经在运行中");
+            return true;
+        }
+
+        try {
+            log.info("正在启动Appium服务器...");
+            if (appiumProcess == null || !appiumProcess.isAlive()) {
+                appiumProcess = launch("0.0.0.0", getPortFromUrl(serverUrl));
+            }
+
+            if (waitForServer(serverUrl, appiumProcess, appiumConfig.getServer().getStartupTimeout())) {
+                log.info("Appium服务器已成功启动");
+                return true;
+            }
+            log.error("Appium服务器启动超时");
+            return false;
+        } catch (IOException e) {
+            log.error("启动Appium服务器失败", e);
+            return false;
+        }
+    }
+
+    /**
+     * 启动一个Appium进程，进程输出在后台线程中写入日志
+     * 
+     * @param address 监听地址
+     * @param port    监听端口
+     * @return Appium进程
+     */
+    public Process launch(String address, int port) throws IOException {
+        String appiumPath = appiumConfig.getServer().getAppiumPath();
+
+        // 检查是否是文件路径
+        if (appiumPath.contains("/") || appiumPath.contains("\\")) {
+            Path path = Paths.get(appiumPath);
+            if (!Files.exists(path)) {
+                throw new IOException("Appium可执行文件不存在: " + appiumPath);
+            }
+        }
+
+        List<String> command = new ArrayList<>();
+        // Windows下appium为.cmd脚本，需要通过cmd /c执行
+        if (System.getProperty("os.name", "").toLowerCase().contains("win")) {
+            command.add("cmd");
+            command.add("/c");
+        }
+        command.add(appiumPath);
+        command.add("--address");
+        command.add(address);
+        command.add("--port");
+        command.add(String.valueOf(port));
+        command.addAll(appiumConfig.getServer().getArgs());
+
+        log.info("执行命令: {}", String.join(" ", command));
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .start();
+        pumpLogs(process, port);
+        return process;
+    }
+
+    /**
+     * 等待Appium服务器可用
+     * 
+     * @param serverUrl     服务器地址
+     * @param process       对应的进程，进程退出时立即返回
+     * @param timeoutMillis 最长等待时间（毫秒）
+     * @return 是否在超时前可用
+     */
+    public boolean waitForServer(String serverUrl, Process process, long timeoutMillis) {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        long delay = 100;
+        try {
+            while (System.currentTimeMillis() < deadline) {
+                if (process != null && !process.isAlive()) {
+                    log.error("Appium进程在就绪前退出，退出码: {}", process.exitValue());
+                    return false;
+                }
+                if (isServerRunning(serverUrl)) {
+                    return true;
+                }
+                Thread.sleep(delay);
+                delay = Math.min(delay * 2, 1000);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return false;
+    }
+
+    // 在虚拟线程中持续读取进程输出，避免缓冲区写满导致进程阻塞
+    private void pumpLogs(Process process, int port) {
+        Thread.ofVirtual().name("appium-log-" + port).start(() -> {
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    log.info("Appium[{}]: {}", port, line);
+                }
+            } catch (IOException e) {
+                log.debug("读取Appium进程输出结束: {}, {}", port, e.getMessage());
+            }
+        });
     }
 
     /**
      * 停止Appium服务器
      */
-    public void stopServer() {
+    @PreDestroy
+    public synchronized void stopServer() {
         if (appiumProcess != null && appiumProcess.isAlive()) {
             log.info("正在停止Appium服务器...");
             appiumProcess.destroy();
@@ -0,0 +1,211 @@
+package com.flyiu.ai.mcp.mobile.service.appium;
+
+import com.flyiu.ai.mcp.mobile.config.AppiumConfig;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Appium服务器状态监控
+ * 在后台定期探测所有服务器节点并缓存可用状态，创建会话时直接读取缓存，
+ * 状态发生变化时通知监听器
+ */
+@Slf4j
+@Component
+public class AppiumServerStatusMonitor {
+
+    private final AppiumConfig appiumConfig;
+    private final AppiumServerService appiumServerService;
+    private final AppiumServerRegistry serverRegistry;
+
+    // 各服务器最近一次的探测结果
+    private final Map<String, ServerStatus> statuses = new ConcurrentHashMap<>();
+    private final List<StatusListener> listeners = new CopyOnWriteArrayList<>();
+
+    private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(1);
+    // 每个服务器的探测在独立的虚拟线程中执行，慢节点不影响其他节点
+    private final ExecutorService probeExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    // 正在探测中的服务器，避免同一服务器的探测重叠
+    private final Set<String> probing = ConcurrentHashMap.newKeySet();
+
+    private final AtomicLong probeCount = new AtomicLong();
+    private final AtomicLong cacheHitCount = new AtomicLong();
+    private final AtomicLong cacheMissCount = new AtomicLong();
+    private final AtomicLong stateChangeCount = new AtomicLong();
+
+    /**
+     * 服务器状态变化监听器
+     */
+    @FunctionalInterface
+    public interface StatusListener {
+        void onStatusChange(String serverUrl, boolean up);
+    }
+
+    @Autowired
+    public AppiumServerStatusMonitor(AppiumConfig appiumConfig, AppiumServerService appiumServerService,
+            AppiumServerRegistry serverRegistry) {
+        this.appiumConfig = appiumConfig;
+        this.appiumServerService = appiumServerService;
+        this.serverRegistry = serverRegistry;
+
+        // 节点的可用状态跟随探测结果
+        addListener((serverUrl, up) -> {
+            if (up) {
+                serverRegistry.markUp(serverUrl);
+            } else {
+                serverRegistry.markDown(serverUrl);
+            }
+        });
+    }
+
+    /**
+     * 应用启动完成后开始后台探测
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        long interval = appiumConfig.getServer().getStatusInterval();
+        log.info("启动Appium服务器状态探测，间隔: {}ms", interval);
+        scheduler.scheduleWithFixedDelay(this::probeAll, 0, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 异步探测所有已注册的服务器节点
+     */
+    public void probeAll() {
+        try {
+            serverRegistry.getNodeUrls().forEach(serverUrl -> {
+                if (probing.add(serverUrl)) {
+                    probeExecutor.execute(() -> {
+                        try {
+                            refresh(serverUrl);
+                        } finally {
+                            probing.remove(serverUrl);
+                        }
+                    });
+                }
+            });
+        } catch (Exception e) {
+            log.error("Appium服务器状态探测失败", e);
+        }
+    }
+
+    /**
+     * 获取服务器是否可用，缓存有效时直接返回缓存结果
+     *
+     * @param serverUrl 服务器地址
+     * @return 是否可用
+     */
+    public boolean isUp(String serverUrl) {
+        ServerStatus status = statuses.get(serverUrl);
+        if (status != null && System.currentTimeMillis() - status.checkedAt() <= appiumConfig.getServer().getStatusTtl()) {
+            cacheHitCount.incrementAndGet();
+            return status.up();
+        }
+
+        // 缓存缺失或已过期时同步探测一次
+        cacheMissCount.incrementAndGet();
+        return refresh(serverUrl);
+    }
+
+    /**
+     * 立即探测服务器并更新缓存
+     *
+     * @param serverUrl 服务器地址
+     * @return 是否可用
+     */
+    public boolean refresh(String serverUrl) {
+        long start = System.currentTimeMillis();
+        boolean up = appiumServerService.isServerRunning(serverUrl);
+        long latency = System.currentTimeMillis() - start;
+        probeCount.incrementAndGet();
+
+        ServerStatus previous = statuses.put(serverUrl, new ServerStatus(up, System.currentTimeMillis(), latency));
+        if (previous == null || previous.up() != up) {
+            if (previous != null) {
+                stateChangeCount.incrementAndGet();
+                log.info("Appium服务器状态变化: {}, {}", serverUrl, up ? "可用" : "不可用");
+            }
+            notifyListeners(serverUrl, up);
+        }
+        return up;
+    }
+
+    /**
+     * 注册状态变化监听器
+     */
+    public void addListener(StatusListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * 移除状态变化监听器
+     */
+    public void removeListener(StatusListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * 获取所有服务器的缓存状态
+     *
+     * @return 各服务器的可用性、探测耗时与缓存年龄，以及汇总统计
+     */
+    public Map<String, Object> getStatus() {
+        long now = System.currentTimeMillis();
+        Map<String, Object> servers = new HashMap<>();
+        statuses.forEach((serverUrl, status) -> {
+            Map<String, Object> info = new HashMap<>();
+            info.put("up", status.up());
+            info.put("latencyMs", status.latencyMs());
+            info.put("ageMs", now - status.checkedAt());
+            servers.put(serverUrl, info);
+        });
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("intervalMs", appiumConfig.getServer().getStatusInterval());
+        result.put("ttlMs", appiumConfig.getServer().getStatusTtl());
+        result.put("probeCount", probeCount.get());
+        result.put("cacheHitCount", cacheHitCount.get());
+        result.put("cacheMissCount", cacheMissCount.get());
+        result.put("stateChangeCount", stateChangeCount.get());
+        result.put("servers", servers);
+        return result;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+        probeExecutor.shutdownNow();
+    }
+
+    private void notifyListeners(String serverUrl, boolean up) {
+        for (StatusListener listener : listeners) {
+            try {
+                listener.onStatusChange(serverUrl, up);
+            } catch (Exception e) {
+                log.warn("Appium服务器状态监听器执行失败: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 单个服务器的探测结果
+     */
+    private record ServerStatus(boolean up, long checkedAt, long latencyMs) {
+    }
+}
@@ -10,17 +10,35 @@ import io.appium.java_client.Setting;
 import io.appium.java_client.android.AndroidDriver;
 import io.appium.java_client.android.options.UiAutomator2Options;
 import io.appium.java_client.ios.IOSDriver;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.openqa.selenium.remote.DesiredCapabilities;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 
 import java.net.URL;
 import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Appium会话管理服务
@@ -30,39 +48,157 @@ import java.util.concurrent.ConcurrentHashMap;
 public class AppiumSessionManager {
 
     private final AppiumConfig appiumConfig;
-    private final DeviceConfig deviceConfig;
+    private final DeviceRegistry deviceRegistry;
     private final AppiumServerService appiumServerService;
+    private final AppiumServerRegistry serverRegistry;
+    private final AppiumServerStatusMonitor serverStatusMonitor;
+    private final DeviceCommandQueue commandQueue;
 
     // 存储已创建的设备会话
     private final Map<String, DeviceSession> deviceSessions = new ConcurrentHashMap<>();
 
+    // 预热池中空闲（未被租用）的设备会话
+    private final Map<String, DeviceSession> idleSessions = new ConcurrentHashMap<>();
+    // 各设备正在执行的预热任务
+    private final Map<String, CompletableFuture<DeviceSession>> warmUpTasks = new ConcurrentHashMap<>();
+    // 各设备的预热状态
+    private final Map<String, WarmUpState> warmUpStates = new ConcurrentHashMap<>();
+    // 虚拟线程执行器，用于异步创建与预热会话，驱动创建期间的阻塞IO不占用平台线程
+    private final ExecutorService sessionExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    // 每台设备的连接锁，同一设备的并发连接请求只会创建一个会话
+    private final Map<String, ReentrantLock> connectLocks = new ConcurrentHashMap<>();
+    // 挑选容量淘汰对象的锁，只在挑选期间持有，不在等待其他设备的命令队列时持有
+    private final Object capacityLock = new Object();
+
+    // 租用统计
+    private final AtomicLong leaseCount = new AtomicLong();
+    private final AtomicLong poolHitCount = new AtomicLong();
+    private final AtomicLong totalLeaseWaitMillis = new AtomicLong();
+    private final AtomicLong maxLeaseWaitMillis = new AtomicLong();
+
+    // 定时淘汰空闲会话
+    private final ScheduledExecutorService evictionScheduler = Executors.newScheduledThreadPool(1);
+    private final AtomicLong idleEvictionCount = new AtomicLong();
+    private final AtomicLong capacityEvictionCount = new AtomicLong();
+
+    /**
+     * 预热状态
+     */
+    public enum WarmUpState {
+        // 正在创建会话
+        WARMING,
+        // 会话已就绪，等待租用
+        READY,
+        // 会话已被租用
+        LEASED,
+        // 预热失败
+        FAILED
+    }
+
     @Autowired
-    public AppiumSessionManager(AppiumConfig appiumConfig, DeviceConfig deviceConfig,
-            AppiumServerService appiumServerService) {
+    public AppiumSessionManager(AppiumConfig appiumConfig, DeviceRegistry deviceRegistry,
+            AppiumServerService appiumServerService, AppiumServerRegistry serverRegistry,
+            AppiumServerStatusMonitor serverStatusMonitor, DeviceCommandQueue commandQueue) {
         this.appiumConfig = appiumConfig;
-        this.deviceConfig = deviceConfig;
+        this.deviceRegistry = deviceRegistry;
         this.appiumServerService = appiumServerService;
+        this.serverRegistry = serverRegistry;
+        this.serverStatusMonitor = serverStatusMonitor;
+        this.commandQueue = commandQueue;
     }
 
     /**
      * 检查Appium服务器状态，必要时启动服务器
      * 
+     * @param serverUrl 服务器地址
      * @return 服务器是否可用
      */
-    private boolean ensureServerRunning() {
-        if (appiumServerService.isServerRunning()) {
+    private boolean ensureServerRunning(String serverUrl) {
+        // 读取后台探测缓存的状态，不在创建会话的路径上发起网络请求
+        if (serverStatusMonitor.isUp(serverUrl)) {
             return true;
         }
 
-        if (appiumConfig.getServer().isAutoStart()) {
+        // 只有本机默认地址可以自动启动
+        if (appiumConfig.getServer().isAutoStart() && serverUrl.equals(appiumConfig.getServer().getUrl())) {
             log.info("Appium服务器未运行，根据配置正在尝试自动启动");
-            return appiumServerService.startServer();
+            return appiumServerService.startServer() && serverStatusMonitor.refresh(serverUrl);
         } else {
             log.warn("Appium服务器未运行，且未配置自动启动");
             return false;
         }
     }
 
+    /**
+     * 应用启动完成后预热所有已配置设备的会话
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUpOnStartup() {
+        AppiumConfig.Pool pool = appiumConfig.getPool();
+        if (!pool.isEnabled() || !pool.isWarmUpOnStartup()) {
+            return;
+        }
+        warmUpAll();
+    }
+
+    /**
+     * 为所有已配置与自动发现的Android与iOS设备异步预热会话
+     */
+    public void warmUpAll() {
+        List<DeviceConfig.DeviceCapabilities> devices = new ArrayList<>(deviceRegistry.getAndroidDevices());
+        devices.addAll(deviceRegistry.getIOSDevices());
+
+        log.info("开始预热设备会话，设备数量: {}", devices.size());
+        devices.forEach(this::warmUp);
+    }
+
+    /**
+     * 异步预热单个设备的会话，已存在会话或预热任务时直接返回
+     * 
+     * @param capabilities 设备配置
+     * @return 预热任务
+     */
+    public CompletableFuture<DeviceSession> warmUp(DeviceConfig.DeviceCapabilities capabilities) {
+        String deviceName = capabilities.getName();
+        if (deviceSessions.containsKey(deviceName) || idleSessions.containsKey(deviceName)) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        // 预热不会为了腾出空间而淘汰其他会话
+        if (isAtCapacity()) {
+            log.warn("会话数量已达上限，跳过预热: {}", deviceName);
+            return CompletableFuture.completedFuture(null);
+        }
+
+        CompletableFuture<DeviceSession> task = warmUpTasks.computeIfAbsent(deviceName, name -> {
+            warmUpStates.put(name, WarmUpState.WARMING);
+            return CompletableFuture.supplyAsync(() -> {
+                long start = System.currentTimeMillis();
+                try {
+                    DeviceSession session = openSession(capabilities);
+                    // 预热期间设备已被注销（例如已拔出）时不放入预热池
+                    if (!deviceRegistry.contains(name)) {
+                        quitQuietly(session);
+                        warmUpStates.remove(name);
+                        log.info("设备已注销，丢弃预热的会话: {}", name);
+                        return null;
+                    }
+                    idleSessions.put(name, session);
+                    warmUpStates.put(name, WarmUpState.READY);
+                    log.info("设备会话预热完成: {}, 耗时: {}ms", name, System.currentTimeMillis() - start);
+                    return session;
+                } catch (Exception e) {
+                    warmUpStates.put(name, WarmUpState.FAILED);
+                    log.error("设备会话预热失败: {}", name, e);
+                    throw new RuntimeException("设备会话预热失败: " + e.getMessage(), e);
+                }
+            }, sessionExecutor);
+        });
+        // 任务放入表后再登记清理，很快完成的任务也不会残留；只移除本任务，不影响之后新建的任务
+        task.whenComplete((session, e) -> warmUpTasks.remove(deviceName, task));
+        return task;
+    }
+
     /**
      * 创建Android设备会话
      * 
@@ -72,93 +208,584 @@ public class AppiumSessionManager {
     public Map<String, Object> createAndroidSession(DeviceConfig.DeviceCapabilities capabilities) {
         Map<String, Object> result = new HashMap<>();
 
+        ReentrantLock lock = connectLock(capabilities.getName());
+        lock.lock();
         try {
-            // 检查服务器状态，必要时启动
-            if (!ensureServerRunning()) {
-                throw new RuntimeException("Appium服务器未运行，无法创建会话");
+            long start = System.currentTimeMillis();
+
+            // 已有存活会话时直接复用
+            DeviceSession session = reuseLiveSession(capabilities);
+            boolean reused = session != null;
+            boolean pooled = false;
+            if (!reused) {
+                session = leaseFromPool(capabilities.getName());
+                pooled = session != null;
+                if (!pooled) {
+                    ensureCapacity();
+                    session = openAndroidSession(capabilities);
+                }
+
+                // 将结果保存起来
+                deviceSessions.put(capabilities.getName(), session);
             }
 
-            // 使用UiAutomator2Options替代DesiredCapabilities
-            UiAutomator2Options options = new UiAutomator2Options();
-            options.setPlatformName("Android");
-            options.setAutomationName("UiAutomator2");
-            options.setNoReset(capabilities.isNoReset());
-            options.setNewCommandTimeout(Duration.ofSeconds(capabilities.getNewCommandTimeout()));
+            // 返回成功信息
+            result.put("success", true);
+            result.put("deviceName", capabilities.getName());
+            result.put("sessionId", session.getDriver().getSessionId().toString());
+            result.put("reused", reused);
+            result.put("pooled", pooled);
+            result.put("elapsedMs", System.currentTimeMillis() - start);
+
+            log.info("{}Android设备会话，设备名称: {}, 会话ID: {}, 来自预热池: {}",
+                    reused ? "复用" : "成功创建", capabilities.getName(), session.getDriver().getSessionId(), pooled);
+
+        } catch (Exception e) {
+            log.error("创建Android设备会话失败", e);
+            result.put("success", false);
+            result.put("error", e.getMessage());
+        } finally {
+            lock.unlock();
+        }
+
+        return result;
+    }
+
+    /**
+     * 创建iOS设备会话
+     * 
+     * @param deviceName 设备名称
+     * @return 设备会话
+     */
+    public DeviceSession createIOSSession(String deviceName) {
+        try {
+            DeviceConfig.DeviceCapabilities deviceCaps = findIOSDevice(deviceName);
+            if (deviceCaps == null) {
+                throw new IllegalArgumentException("未找到指定的iOS设备配置: " + deviceName);
+            }
 
-            // 如果udid不是"auto"，则设置具体的udid
-            if (!"auto".equals(capabilities.getUdid())) {
-                options.setUdid(capabilities.getUdid());
+            ReentrantLock lock = connectLock(deviceCaps.getName());
+            lock.lock();
+            try {
+                DeviceSession session = reuseLiveSession(deviceCaps);
+                if (session != null) {
+                    log.info("复用iOS设备会话: {}", deviceCaps.getName());
+                    return session;
+                }
+
+                session = leaseFromPool(deviceCaps.getName());
+                if (session == null) {
+                    ensureCapacity();
+                    session = openIOSSession(deviceCaps);
+                }
+
+                deviceSessions.put(deviceCaps.getName(), session);
+                log.info("成功创建iOS设备会话: {}", deviceCaps.getName());
+
+                return session;
+            } finally {
+                lock.unlock();
             }
+        } catch (Exception e) {
+            log.error("创建iOS设备会话失败", e);
+            throw new RuntimeException("创建iOS设备会话失败: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 查找设备已有的存活会话，使重复的连接请求直接返回而不重新创建
+     * 同一udid被其他名称的会话占用时关闭该会话，避免两个会话争用同一台设备；
+     * udid为auto时由Appium自行选择设备，无法判断是否为同一台设备，不做处理
+     * 
+     * @param capabilities 设备配置
+     * @return 存活的会话，不存在或已失效时返回null
+     */
+    private DeviceSession reuseLiveSession(DeviceConfig.DeviceCapabilities capabilities) {
+        String deviceName = capabilities.getName();
+        String udid = capabilities.getUdid();
+        if (udid != null && !udid.isEmpty() && !"auto".equals(udid)) {
+            deviceSessions.forEach((name, other) -> {
+                if (!name.equals(deviceName) && other.getCapabilities() != null
+                        && udid.equals(other.getCapabilities().getUdid())
+                        && deviceSessions.remove(name, other)) {
+                    log.warn("设备 {} 已被会话 {} 占用，关闭原会话", udid, name);
+                    quitQuietly(other);
+                }
+            });
+        }
+
+        DeviceSession existing = deviceSessions.get(deviceName);
+        if (existing == null) {
+            return null;
+        }
+
+        if (isSessionAlive(existing)) {
+            existing.touch();
+            existing.setState(DeviceSession.State.HEALTHY);
+            return existing;
+        }
+
+        log.warn("设备已有会话已失效，重新创建: {}", deviceName);
+        if (deviceSessions.remove(deviceName, existing)) {
+            quitQuietly(existing);
+        }
+        return null;
+    }
+
+    private ReentrantLock connectLock(String deviceName) {
+        return connectLocks.computeIfAbsent(deviceName, name -> new ReentrantLock());
+    }
+
+    /**
+     * 异步创建Android设备会话，在虚拟线程上执行
+     * 
+     * @param capabilities 设备配置
+     * @return 创建结果
+     */
+    public CompletableFuture<Map<String, Object>> createAndroidSessionAsync(
+            DeviceConfig.DeviceCapabilities capabilities) {
+        return CompletableFuture.supplyAsync(() -> createAndroidSession(capabilities), sessionExecutor);
+    }
+
+    /**
+     * 异步创建iOS设备会话，在虚拟线程上执行
+     * 
+     * @param deviceName 设备名称
+     * @return 设备会话
+     */
+    public CompletableFuture<DeviceSession> createIOSSessionAsync(String deviceName) {
+        return CompletableFuture.supplyAsync(() -> createIOSSession(deviceName), sessionExecutor);
+    }
+
+    /**
+     * 并行连接所有已配置与自动发现的设备，总耗时取决于最慢的设备
+     * 
+     * @return 各设备的连接结果及汇总信息
+     */
+    public CompletableFuture<Map<String, Object>> connectAllDevices() {
+        long start = System.currentTimeMillis();
+        Map<String, CompletableFuture<Map<String, Object>>> tasks = new LinkedHashMap<>();
+
+        deviceRegistry.getAndroidDevices()
+                .forEach(caps -> tasks.put(caps.getName(), createAndroidSessionAsync(caps)));
+        deviceRegistry.getIOSDevices().forEach(caps -> tasks.put(caps.getName(),
+                createIOSSessionAsync(caps.getName()).handle((session, ex) -> {
+                    Map<String, Object> result = new HashMap<>();
+                    result.put("success", ex == null);
+                    result.put("deviceName", caps.getName());
+                    if (ex == null) {
+                        result.put("sessionId", session.getDriver().getSessionId().toString());
+                    } else {
+                        result.put("error", ex.getCause() != null ? ex.getCause().getMessage() : ex.getMessage());
+                    }
+                    return result;
+                })));
+
+        log.info("开始并行连接所有设备，设备数量: {}", tasks.size());
+        return CompletableFuture.allOf(tasks.values().toArray(new CompletableFuture[0]))
+                .thenApply(v -> {
+                    Map<String, Object> devices = new LinkedHashMap<>();
+                    tasks.forEach((name, task) -> devices.put(name, task.join()));
+
+                    long connected = devices.values().stream()
+                            .filter(r -> Boolean.TRUE.equals(((Map<?, ?>) r).get("success")))
+                            .count();
+                    long elapsed = System.currentTimeMillis() - start;
+                    log.info("并行连接设备完成，成功: {}/{}, 耗时: {}ms", connected, devices.size(), elapsed);
+
+                    Map<String, Object> result = new HashMap<>();
+                    result.put("success", connected == devices.size());
+                    result.put("total", devices.size());
+                    result.put("connected", connected);
+                    result.put("failed", devices.size() - connected);
+                    result.put("elapsedMs", elapsed);
+                    result.put("devices", devices);
+                    return result;
+                });
+    }
+
+    /**
+     * 从预热池租用会话，设备仍在预热中时最多等待leaseTimeout毫秒
+     * 
+     * @param deviceName 设备名称
+     * @return 可用的预热会话，没有时返回null
+     */
+    private DeviceSession leaseFromPool(String deviceName) {
+        if (!appiumConfig.getPool().isEnabled()) {
+            return null;
+        }
 
-            if (capabilities.getName() != null && !capabilities.getName().isEmpty()) {
-                options.setDeviceName(capabilities.getName());
+        long start = System.currentTimeMillis();
+        DeviceSession session = idleSessions.remove(deviceName);
+        if (session == null) {
+            CompletableFuture<DeviceSession> task = warmUpTasks.get(deviceName);
+            if (task != null) {
+                try {
+                    task.get(appiumConfig.getPool().getLeaseTimeout(), TimeUnit.MILLISECONDS);
+                } catch (TimeoutException e) {
+                    log.warn("等待设备会话预热超时: {}", deviceName);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (Exception e) {
+                    log.warn("设备会话预热失败，将重新创建会话: {}", deviceName);
+                }
+                session = idleSessions.remove(deviceName);
             }
+        }
+
+        // 空闲时间过长的会话可能已被服务器回收，租用前确认其仍然可用
+        if (session != null && !isSessionAlive(session)) {
+            log.warn("预热会话已失效，将重新创建会话: {}", deviceName);
+            quitQuietly(session);
+            session = null;
+        }
+
+        long waited = System.currentTimeMillis() - start;
+        leaseCount.incrementAndGet();
+        totalLeaseWaitMillis.addAndGet(waited);
+        maxLeaseWaitMillis.accumulateAndGet(waited, Math::max);
+        if (session != null) {
+            poolHitCount.incrementAndGet();
+            warmUpStates.put(deviceName, WarmUpState.LEASED);
+        }
+        return session;
+    }
+
+    /**
+     * 根据平台创建新的设备会话
+     */
+    private DeviceSession openSession(DeviceConfig.DeviceCapabilities capabilities) throws Exception {
+        return isIOS(capabilities) ? openIOSSession(capabilities) : openAndroidSession(capabilities);
+    }
 
-            URL serverUrl = new URL(appiumConfig.getServer().getUrl());
+    // 创建新的Android会话
+    private DeviceSession openAndroidSession(DeviceConfig.DeviceCapabilities capabilities) throws Exception {
+        // 使用UiAutomator2Options替代DesiredCapabilities
+        UiAutomator2Options options = new UiAutomator2Options();
+        options.setPlatformName("Android");
+        options.setAutomationName("UiAutomator2");
+        options.setNoReset(capabilities.isNoReset());
+        options.setNewCommandTimeout(Duration.ofSeconds(capabilities.getNewCommandTimeout()));
+
+        // 如果udid不是"auto"，则设置具体的udid
+        if (!"auto".equals(capabilities.getUdid())) {
+            options.setUdid(capabilities.getUdid());
+        }
+
+        if (capabilities.getName() != null && !capabilities.getName().isEmpty()) {
+            options.setDeviceName(capabilities.getName());
+        }
+
+        // 添加额外的capabilities，并行创建多个会话时可通过systemPort等参数避免端口冲突
+        if (capabilities.getExtraCapabilities() != null) {
+            capabilities.getExtraCapabilities().forEach(options::setCapability);
+        }
+
+        return openOnServer(capabilities, serverUrl -> {
             log.info("创建Android设备会话，设备名称: {}, URL: {}", capabilities.getName(), serverUrl);
 
             // 使用正确的选项创建AndroidDriver
             AndroidDriver driver = new AndroidDriver(serverUrl, options);
-            driver.manage().timeouts().implicitlyWait(Duration.ofSeconds(10));
+            // 不使用会话级隐式等待，元素查找按调用方的WaitPolicy显式等待，不存在时立即返回
+            driver.manage().timeouts().implicitlyWait(Duration.ZERO);
             // driver.setSettings(Map.of("fixImageFindScreenshotDims", False));
             // driver.setSetting(Setting.FIX_IMAGE_FIND_SCREENSHOT_DIMENSIONS, false);
             // driver.setSetting(Setting.FIX_IMAGE_TEMPLATE_SIZE, true);
             // driver.setSetting(Setting.UPDATE_IMAGE_ELEMENT_POSITION, true);
+            return driver;
+        });
+    }
 
-            // 将结果保存起来
-            deviceSessions.put(capabilities.getName(), new DeviceSession(capabilities.getName(), driver));
+    // 创建新的iOS会话
+    private DeviceSession openIOSSession(DeviceConfig.DeviceCapabilities deviceCaps) throws Exception {
+        DesiredCapabilities capabilities = createCapabilities(deviceCaps);
+        return openOnServer(deviceCaps, serverUrl -> new IOSDriver(serverUrl, capabilities));
+    }
 
-            // 返回成功信息
-            result.put("success", true);
-            result.put("deviceName", capabilities.getName());
-            result.put("sessionId", driver.getSessionId().toString());
+    /**
+     * 在分配到的Appium服务器节点上创建会话，节点不可用时切换到下一个节点
+     */
+    private DeviceSession openOnServer(DeviceConfig.DeviceCapabilities capabilities, DriverFactory factory)
+            throws Exception {
+        String deviceName = capabilities.getName();
+        Set<String> excluded = new HashSet<>();
+        Exception lastError = null;
+
+        while (true) {
+            String serverUrl;
+            try {
+                serverUrl = serverRegistry.acquire(deviceName, excluded);
+            } catch (IllegalStateException e) {
+                throw lastError != null ? lastError : e;
+            }
 
-            log.info("成功创建Android设备会话，设备名称: {}, 会话ID: {}",
-                    capabilities.getName(), driver.getSessionId());
+            // 检查服务器状态，必要时启动
+            if (!ensureServerRunning(serverUrl)) {
+                serverRegistry.release(deviceName, serverUrl);
+                excluded.add(serverUrl);
+                lastError = new RuntimeException("Appium服务器未运行，无法创建会话: " + serverUrl);
+                continue;
+            }
 
-        } catch (Exception e) {
-            log.error("创建Android设备会话失败", e);
-            result.put("success", false);
-            result.put("error", e.getMessage());
+            try {
+                AppiumDriver driver = factory.create(new URL(serverUrl));
+                DeviceSession session = new DeviceSession(deviceName, driver, capabilities);
+                session.setServerUrl(serverUrl);
+                return session;
+            } catch (Exception e) {
+                serverRegistry.release(deviceName, serverUrl);
+                // 重新探测一次，服务器仍然可用说明是设备侧的问题，切换节点无济于事
+                if (serverStatusMonitor.refresh(serverUrl)) {
+                    throw e;
+                }
+                log.warn("Appium服务器在创建会话时不可用，尝试切换节点: {}", serverUrl);
+                excluded.add(serverUrl);
+                lastError = e;
+            }
         }
+    }
 
-        return result;
+    /**
+     * 在指定服务器上创建驱动
+     */
+    @FunctionalInterface
+    private interface DriverFactory {
+        AppiumDriver create(URL serverUrl) throws Exception;
     }
 
     /**
-     * 创建iOS设备会话
+     * 检查会话在Appium服务器上是否仍然存活
      * 
-     * @param deviceName 设备名称
-     * @return 设备会话
+     * @param session 设备会话
+     * @return 是否存活
      */
-    public DeviceSession createIOSSession(String deviceName) {
+    public boolean isSessionAlive(DeviceSession session) {
         try {
-            // 检查服务器状态，必要时启动
-            if (!ensureServerRunning()) {
-                throw new RuntimeException("Appium服务器未运行，无法创建会话");
+            if (session.getDriver().getSessionId() == null) {
+                return false;
             }
+            // GET /session/{id}/timeouts 是最轻量的会话级命令
+            session.getDriver().manage().timeouts().getImplicitWaitTimeout();
+            return true;
+        } catch (Exception e) {
+            log.debug("会话已失效: {}, {}", session.getDeviceName(), e.getMessage());
+            return false;
+        }
+    }
 
-            DeviceConfig.DeviceCapabilities deviceCaps = findIOSDevice(deviceName);
-            if (deviceCaps == null) {
-                throw new IllegalArgumentException("未找到指定的iOS设备配置: " + deviceName);
+    /**
+     * 应用启动完成后开始定时淘汰空闲会话
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void startEviction() {
+        long idleTtl = appiumConfig.getEviction().getIdleTtl();
+        if (idleTtl <= 0) {
+            return;
+        }
+
+        // 检查周期取空闲超时的四分之一，限制在1秒到1分钟之间
+        long period = Math.max(1000, Math.min(idleTtl / 4, 60000));
+        log.info("启动空闲会话淘汰，空闲超时: {}ms, 检查周期: {}ms", idleTtl, period);
+        evictionScheduler.scheduleWithFixedDelay(this::evictIdleSessions, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 关闭空闲时间超过idleTtl的会话，包括预热池中的空闲会话
+     * 已连接会话在其设备命令队列中关闭，不会中断正在执行的命令
+     */
+    public void evictIdleSessions() {
+        long idleTtl = appiumConfig.getEviction().getIdleTtl();
+        if (idleTtl <= 0) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        deviceSessions.forEach((name, session) -> {
+            if (now - session.getLastUsedMillis() <= idleTtl) {
+                return;
+            }
+            try {
+                commandQueue.run(name, () -> {
+                    // 排队期间会话可能又被使用
+                    long idle = System.currentTimeMillis() - session.getLastUsedMillis();
+                    if (idle > idleTtl && deviceSessions.remove(name, session)) {
+                        idleEvictionCount.incrementAndGet();
+                        log.info("淘汰空闲设备会话: {}, 空闲时间: {}ms", name, idle);
+                        evict(name, session);
+                    }
+                });
+            } catch (Exception e) {
+                log.warn("淘汰空闲设备会话失败: {}, {}", name, e.getMessage());
+            }
+        });
+
+        // 预热池中的会话不会被命令使用，可以直接关闭
+        idleSessions.forEach((name, session) -> {
+            long idle = now - session.getLastUsedMillis();
+            if (idle > idleTtl && idleSessions.remove(name, session)) {
+                idleEvictionCount.incrementAndGet();
+                log.info("淘汰预热池中的空闲会话: {}, 空闲时间: {}ms", name, idle);
+                evict(name, session);
+            }
+        });
+    }
+
+    /**
+     * 会话总数达到上限时，按最近最少使用淘汰，优先淘汰预热池中的空闲会话
+     * 已连接会话在其设备命令队列中关闭，期间被使用过或队列执行失败的会话不再淘汰，改选下一个；
+     * 没有可淘汰的会话时直接返回，不影响当前连接
+     */
+    private void ensureCapacity() {
+        Set<String> skipped = new HashSet<>();
+        while (true) {
+            String name;
+            DeviceSession session;
+            boolean fromPool;
+            synchronized (capacityLock) {
+                if (!isAtCapacity()) {
+                    return;
+                }
+                Optional<Map.Entry<String, DeviceSession>> pooled = leastRecentlyUsed(idleSessions, skipped);
+                fromPool = pooled.isPresent();
+                if (fromPool) {
+                    name = pooled.get().getKey();
+                    session = pooled.get().getValue();
+                    if (!idleSessions.remove(name, session)) {
+                        continue;
+                    }
+                } else {
+                    Optional<Map.Entry<String, DeviceSession>> victim = leastRecentlyUsed(deviceSessions, skipped);
+                    if (victim.isEmpty()) {
+                        log.warn("会话数量已达上限{}，没有可淘汰的会话",
+                                appiumConfig.getEviction().getMaxActiveSessions());
+                        return;
+                    }
+                    name = victim.get().getKey();
+                    session = victim.get().getValue();
+                }
+            }
+
+            if (fromPool) {
+                evictForCapacity(name, session, true);
+                continue;
+            }
+
+            // 等待被淘汰设备的命令队列时不持有capacityLock，其他连接不会排在该设备的长命令之后
+            long lastUsed = session.getLastUsedMillis();
+            try {
+                boolean evicted = commandQueue.execute(name, () -> {
+                    if (session.getLastUsedMillis() == lastUsed && deviceSessions.remove(name, session)) {
+                        evictForCapacity(name, session, false);
+                        return true;
+                    }
+                    return false;
+                });
+                if (!evicted) {
+                    skipped.add(name);
+                }
+            } catch (Exception e) {
+                log.warn("淘汰设备会话失败，改选下一个: {}, {}", name, e.getMessage());
+                skipped.add(name);
             }
+        }
+    }
+
+    private void evictForCapacity(String deviceName, DeviceSession session, boolean fromPool) {
+        capacityEvictionCount.incrementAndGet();
+        log.info("会话数量已达上限{}，淘汰最近最少使用的会话: {}, 来自预热池: {}",
+                appiumConfig.getEviction().getMaxActiveSessions(), deviceName, fromPool);
+        evict(deviceName, session);
+    }
 
-            DesiredCapabilities capabilities = createCapabilities(deviceCaps);
-            URL appiumServerUrl = new URL(appiumConfig.getServer().getUrl());
+    // 会话总数是否已达上限
+    private boolean isAtCapacity() {
+        int max = appiumConfig.getEviction().getMaxActiveSessions();
+        return max > 0 && deviceSessions.size() + idleSessions.size() >= max;
+    }
 
-            IOSDriver driver = new IOSDriver(appiumServerUrl, capabilities);
-            DeviceSession session = new DeviceSession(deviceCaps.getName(), driver);
+    // 找出最近最少使用的会话，跳过已经尝试过的设备
+    private Optional<Map.Entry<String, DeviceSession>> leastRecentlyUsed(Map<String, DeviceSession> sessions,
+            Set<String> skipped) {
+        return sessions.entrySet().stream()
+                .filter(entry -> !skipped.contains(entry.getKey()))
+                .min(Comparator.comparingLong(entry -> entry.getValue().getLastUsedMillis()));
+    }
 
-            deviceSessions.put(deviceCaps.getName(), session);
-            log.info("成功创建iOS设备会话: {}", deviceCaps.getName());
+    // 关闭被淘汰的会话
+    private void evict(String deviceName, DeviceSession session) {
+        warmUpStates.remove(deviceName);
+        quitQuietly(session);
+    }
 
-            return session;
+    /**
+     * 使用原有的设备配置重新创建失效的会话
+     * 
+     * @param deviceName 设备名称
+     * @return 新的设备会话
+     */
+    public DeviceSession reconnect(String deviceName) {
+        DeviceSession old = deviceSessions.get(deviceName);
+        if (old == null) {
+            throw new IllegalStateException("设备会话不存在: " + deviceName);
+        }
+        if (old.getCapabilities() == null) {
+            throw new IllegalStateException("设备会话缺少设备配置，无法重连: " + deviceName);
+        }
+
+        old.setState(DeviceSession.State.RECONNECTING);
+        quitQuietly(old);
+
+        long start = System.currentTimeMillis();
+        try {
+            DeviceSession fresh = openSession(old.getCapabilities());
+            fresh.setReconnectCount(old.getReconnectCount() + 1);
+            fresh.setLastReconnectMillis(System.currentTimeMillis() - start);
+
+            // 会话在重连期间被关闭时不再放回
+            if (!deviceSessions.replace(deviceName, old, fresh)) {
+                quitQuietly(fresh);
+                throw new IllegalStateException("设备会话在重连期间已被关闭: " + deviceName);
+            }
+
+            log.info("设备会话重连成功: {}, 耗时: {}ms, 新会话ID: {}",
+                    deviceName, fresh.getLastReconnectMillis(), fresh.getDriver().getSessionId());
+            return fresh;
         } catch (Exception e) {
-            log.error("创建iOS设备会话失败", e);
-            throw new RuntimeException("创建iOS设备会话失败: " + e.getMessage(), e);
+            old.setState(DeviceSession.State.FAILED);
+            old.setLastReconnectMillis(System.currentTimeMillis() - start);
+            log.error("设备会话重连失败: {}", deviceName, e);
+            throw new RuntimeException("设备会话重连失败: " + e.getMessage(), e);
         }
     }
 
+    /**
+     * 检查预热池中的空闲会话，失效的会话会被丢弃并重新预热
+     */
+    public void checkIdleSessions() {
+        idleSessions.forEach((name, session) -> {
+            if (isSessionAlive(session)) {
+                session.setLastHeartbeatAt(LocalDateTime.now());
+                return;
+            }
+            if (idleSessions.remove(name, session)) {
+                log.warn("预热池中的会话已失效，重新预热: {}", name);
+                quitQuietly(session);
+                if (session.getCapabilities() != null) {
+                    warmUp(session.getCapabilities());
+                }
+            }
+        });
+    }
+
+    /**
+     * 获取所有已连接的设备会话
+     * 
+     * @return 设备名称到会话的快照
+     */
+    public Map<String, DeviceSession> getActiveSessions() {
+        return new HashMap<>(deviceSessions);
+    }
+
     /**
      * 获取设备会话
      * 
@@ -170,25 +797,55 @@ public class AppiumSessionManager {
     }
 
     /**
-     * 关闭设备会话
+     * 关闭设备会话，启用预热池时将仍然存活的会话归还到池中
      * 
      * @param deviceName 设备名称
      */
     public void closeSession(String deviceName) {
-        DeviceSession session = deviceSessions.get(deviceName);
+        DeviceSession session = deviceSessions.remove(deviceName);
+        if (session == null) {
+            return;
+        }
+
+        if (appiumConfig.getPool().isEnabled() && isSessionAlive(session)) {
+            idleSessions.put(deviceName, session);
+            warmUpStates.put(deviceName, WarmUpState.READY);
+            log.info("设备会话已归还到预热池: {}", deviceName);
+            return;
+        }
+
+        try {
+            session.getDriver().quit();
+            log.info("成功关闭设备会话: {}", deviceName);
+        } catch (Exception e) {
+            log.error("关闭设备会话失败: {}", deviceName, e);
+        } finally {
+            serverRegistry.release(deviceName, session.getServerUrl());
+        }
+    }
+
+    /**
+     * 关闭设备的会话且不归还到预热池，用于设备已断开等会话不可能再使用的情况
+     * 设备断开后Appium服务器仍会响应会话级命令，存活检测无法发现会话已不可用，因此总是直接关闭
+     * 
+     * @param deviceName 设备名称
+     */
+    public void discardSession(String deviceName) {
+        warmUpStates.remove(deviceName);
+        DeviceSession idle = idleSessions.remove(deviceName);
+        if (idle != null) {
+            quitQuietly(idle);
+        }
+
+        DeviceSession session = deviceSessions.remove(deviceName);
         if (session != null) {
-            try {
-                session.getDriver().quit();
-                deviceSessions.remove(deviceName);
-                log.info("成功关闭设备会话: {}", deviceName);
-            } catch (Exception e) {
-                log.error("关闭设备会话失败: {}", deviceName, e);
-            }
+            quitQuietly(session);
+            log.info("已关闭设备会话: {}", deviceName);
         }
     }
 
     /**
-     * 关闭所有设备会话
+     * 关闭所有设备会话，包括预热池中的空闲会话
      */
     public void closeAllSessions() {
         deviceSessions.forEach((name, session) -> {
@@ -197,33 +854,73 @@ public class AppiumSessionManager {
                 log.info("成功关闭设备会话: {}", name);
             } catch (Exception e) {
                 log.error("关闭设备会话失败: {}", name, e);
+            } finally {
+                serverRegistry.release(name, session.getServerUrl());
             }
         });
         deviceSessions.clear();
+
+        idleSessions.values().forEach(this::quitQuietly);
+        idleSessions.clear();
+        warmUpStates.clear();
     }
 
-    // 查找Android设备配置
-    public DeviceConfig.DeviceCapabilities findAndroidDevice(String deviceName) {
-        if (deviceConfig.getAndroid() == null) {
-            return null;
+    /**
+     * 获取预热池状态
+     * 
+     * @return 池大小、各设备预热状态以及租用等待时间统计
+     */
+    public Map<String, Object> getPoolStatus() {
+        long leases = leaseCount.get();
+
+        Map<String, Object> status = new HashMap<>();
+        status.put("enabled", appiumConfig.getPool().isEnabled());
+        status.put("idleSessions", idleSessions.size());
+        status.put("activeSessions", deviceSessions.size());
+        status.put("warmingSessions", warmUpTasks.size());
+        status.put("warmUpStates", new HashMap<>(warmUpStates));
+        status.put("leaseCount", leases);
+        status.put("poolHitCount", poolHitCount.get());
+        status.put("avgLeaseWaitMs", leases == 0 ? 0 : totalLeaseWaitMillis.get() / leases);
+        status.put("maxLeaseWaitMs", maxLeaseWaitMillis.get());
+        status.put("maxActiveSessions", appiumConfig.getEviction().getMaxActiveSessions());
+        status.put("idleTtlMs", appiumConfig.getEviction().getIdleTtl());
+        status.put("idleEvictionCount", idleEvictionCount.get());
+        status.put("capacityEvictionCount", capacityEvictionCount.get());
+        return status;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sessionExecutor.shutdownNow();
+        evictionScheduler.shutdownNow();
+        closeAllSessions();
+    }
+
+    // 静默关闭会话
+    private void quitQuietly(DeviceSession session) {
+        try {
+            session.getDriver().quit();
+        } catch (Exception e) {
+            log.debug("关闭会话失败: {}, {}", session.getDeviceName(), e.getMessage());
+        } finally {
+            serverRegistry.release(session.getDeviceName(), session.getServerUrl());
         }
+    }
 
-        return deviceConfig.getAndroid().stream()
-                .filter(device -> device.getName().equals(deviceName))
-                .findFirst()
-                .orElse(deviceConfig.getAndroid().isEmpty() ? null : deviceConfig.getAndroid().get(0));
+    // 判断是否为iOS设备配置
+    private boolean isIOS(DeviceConfig.DeviceCapabilities capabilities) {
+        return "iOS".equalsIgnoreCase(capabilities.getPlatformName());
+    }
+
+    // 查找Android设备配置
+    public DeviceConfig.DeviceCapabilities findAndroidDevice(String deviceName) {
+        return deviceRegistry.findAndroidDevice(deviceName);
     }
 
     // 查找iOS设备配置
     private DeviceConfig.DeviceCapabilities findIOSDevice(String deviceName) {
-        if (deviceConfig.getIos() == null) {
-            return null;
-        }
-
-        return deviceConfig.getIos().stream()
-                .filter(device -> device.getName().equals(deviceName))
-                .findFirst()
-                .orElse(deviceConfig.getIos().isEmpty() ? null : deviceConfig.getIos().get(0));
+        return deviceRegistry.findIOSDevice(deviceName);
     }
 
     // 创建设备能力配置
@@ -247,4 +944,4 @@ public class AppiumSessionManager {
 
         return capabilities;
     }
-}
\ No newline at end of file
+}
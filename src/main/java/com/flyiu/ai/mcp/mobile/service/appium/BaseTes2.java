@@ -39,7 +39,8 @@ public class BaseTes2 {
         
         // 创建AndroidDriver
         driver = new AndroidDriver(new URL("http://127.0.0.1:4723"), options);
-        driver.manage().timeouts().implicitlyWait(Duration.ofSeconds(10));
+        // 不使用隐式等待，元素不存在时立即返回
+        driver.manage().timeouts().implicitlyWait(Duration.ZERO);
         
         // 尝试解锁设备
         unlockDevice();
@@ -7,6 +7,10 @@ import org.openqa.selenium.By;
 import org.openqa.selenium.OutputType;
 import org.openqa.selenium.WebElement;
 
+import com.flyiu.ai.mcp.mobile.model.SettleResult;
+import com.flyiu.ai.mcp.mobile.model.WaitPolicy;
+import com.flyiu.ai.mcp.mobile.util.ElementLookup;
+import com.flyiu.ai.mcp.mobile.util.UiSettle;
 import com.google.gson.Gson;
 
 import java.io.File;
@@ -16,6 +20,7 @@ import java.time.Duration;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 /**
@@ -44,7 +49,8 @@ public class BaseTest {
 
         // 创建AndroidDriver
         driver = new AndroidDriver(new URL("http://127.0.0.1:4723"), options);
-        driver.manage().timeouts().implicitlyWait(Duration.ofSeconds(10));
+        // 不使用隐式等待，查找元素时通过WaitPolicy显式指定等待时间
+        driver.manage().timeouts().implicitlyWait(Duration.ZERO);
 
         // 尝试解锁设备
         unlockDevice();
@@ -63,14 +69,14 @@ public class BaseTest {
 
                 // 唤醒设备
                 ((AndroidDriver) driver).executeScript("mobile: pressKey", Map.of("keycode", 26)); // 电源键
-                Thread.sleep(1000);
+                waitForStable();
 
                 // 上滑解锁屏幕
                 Map<String, Object> args = new HashMap<>();
                 args.put("direction", "up");
                 args.put("percent", 0.5);
                 ((AndroidDriver) driver).executeScript("mobile: swipeGesture", args);
-                Thread.sleep(1000);
+                waitForStable();
 
                 // 这里可以添加输入解锁密码的代码，如果设备有密码锁
                 // 例如：driver.findElement(By.id("密码输入框ID")).sendKeys("1234");
@@ -126,8 +132,8 @@ public class BaseTest {
             startApp(WECHAT_PACKAGE, WECHAT_LAUNCH_ACTIVITY);
             System.out.println("微信已成功启动");
 
-            // 等待微信加载完成，等待5秒
-            Thread.sleep(1000);
+            // 等待微信加载完成
+            waitForStable();
 
             // 查询页面所有可见元素
             List<Map<String, Object>> elements = getAllVisibleElements();
@@ -193,33 +199,37 @@ public class BaseTest {
     }
 
     /**
-     * 检查元素是否存在
+     * 按等待策略查找元素
      */
-    protected boolean isElementPresent(By locator) {
+    protected Optional<WebElement> findElement(By locator, WaitPolicy policy) {
         try {
-            return !driver.findElements(locator).isEmpty();
+            return ElementLookup.find(driver, locator, policy);
         } catch (Exception e) {
-            return false;
+            return Optional.empty();
         }
     }
 
+    /**
+     * 检查元素是否存在，只查找一次
+     */
+    protected boolean isElementPresent(By locator) {
+        return findElement(locator, WaitPolicy.IMMEDIATE).isPresent();
+    }
+
     /**
      * 等待元素出现
      */
     protected boolean waitForElement(By locator, int timeoutInSeconds) {
-        long endTime = System.currentTimeMillis() + (timeoutInSeconds * 1000L);
-        while (System.currentTimeMillis() < endTime) {
-            if (isElementPresent(locator)) {
-                return true;
-            }
-            try {
-                Thread.sleep(500);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                return false;
-            }
-        }
-        return false;
+        return findElement(locator, WaitPolicy.ofSeconds(timeoutInSeconds)).isPresent();
+    }
+
+    /**
+     * 等待界面稳定，代替操作后固定时长的等待
+     */
+    protected SettleResult waitForStable() {
+        SettleResult result = UiSettle.waitForStable(driver);
+        System.out.println("界面稳定用时: " + result.settleMillis() + "ms" + (result.settled() ? "" : "，超时仍在变化"));
+        return result;
     }
 
     /**
@@ -2,38 +2,29 @@ package com.flyiu.ai.mcp.mobile.service.appium;
 
 import java.io.File;
 import java.io.IOException;
-import java.net.InetSocketAddress;
-import java.net.ProxySelector;
-import java.net.http.HttpClient;
 import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Base64;
 import java.util.List;
 
+import com.flyiu.ai.mcp.mobile.service.vision.VisionChatClient;
+
 import dev.langchain4j.data.message.ChatMessage;
 import dev.langchain4j.data.message.ImageContent;
 import dev.langchain4j.data.message.TextContent;
 import dev.langchain4j.data.message.UserMessage;
-import dev.langchain4j.http.client.HttpClientBuilder;
 import dev.langchain4j.model.chat.request.ChatRequest;
 import dev.langchain4j.model.chat.response.ChatResponse;
-import dev.langchain4j.model.openai.OpenAiChatModel;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 @Slf4j
 @Component
 public class ChatTest {
 
-    @Value("${spring.ai.openai.api-key}")
-    private String apiKey;
-
-    @Value("${spring.ai.openai.base-url}")
-    private String baseUrl;
-
-    @Value("${spring.ai.openai.chat.options.model}")
-    private String model;
+    @Autowired
+    private VisionChatClient visionClient;
 
     public void test() throws IOException {
         String prompt = "请分析这张手机屏幕截图，识别并列出所有可见的UI元素。\n" +
@@ -47,13 +38,6 @@ public class ChatTest {
                 "请以JSON格式返回，每个元素包含上述属性。格式示例：\n" +
                 "[{\"type\": \"按钮\", \"text\": \"确定\", \"bounds\": {\"x\": 100, \"y\": 200, \"width\": 80, \"height\": 40}, \"center\": {\"x\": 140, \"y\": 220}, \"interactive\": true}]";
 
-        // 使用配置信息初始化模型
-        OpenAiChatModel chatModel = OpenAiChatModel.builder()
-                .apiKey(apiKey)
-                .baseUrl(baseUrl)
-                .modelName(model)
-                .build();
-
         // 读取截图文件
         File screenshotFile = new File("./screenshots/default-android_latest.png");
         if (!screenshotFile.exists()) {
@@ -70,7 +54,7 @@ public class ChatTest {
         ChatMessage userMessage = UserMessage.from(contents);
 
         ChatRequest chatRequest = ChatRequest.builder().messages(List.of(userMessage)).build();
-        ChatResponse response = chatModel.chat(chatRequest);
+        ChatResponse response = visionClient.chat(chatRequest);
         log.info("大模型分析结果: {}", response.aiMessage().text());
     }
 
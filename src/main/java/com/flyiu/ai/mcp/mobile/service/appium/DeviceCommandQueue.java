@@ -0,0 +1,253 @@
+package com.flyiu.ai.mcp.mobile.service.appium;
+
+import com.flyiu.ai.mcp.mobile.config.AppiumConfig;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 设备命令队列
+ * 每台设备拥有独立的单消费者有界队列，同一设备上的命令按到达顺序串行执行，
+ * 不同设备之间互不影响、完全并行
+ */
+@Slf4j
+@Component
+public class DeviceCommandQueue {
+
+    private final AppiumConfig appiumConfig;
+
+    // 各设备的命令队列
+    private final Map<String, DeviceQueue> queues = new ConcurrentHashMap<>();
+
+    // 当前线程正在执行的设备命令，用于识别嵌套调用
+    private static final ThreadLocal<String> CURRENT_DEVICE = new ThreadLocal<>();
+
+    @Autowired
+    public DeviceCommandQueue(AppiumConfig appiumConfig) {
+        this.appiumConfig = appiumConfig;
+    }
+
+    /**
+     * 在设备队列中执行命令并等待结果
+     * 
+     * @param deviceName 设备名称
+     * @param command    要执行的命令
+     * @return 命令结果
+     */
+    public <T> T execute(String deviceName, Callable<T> command) {
+        // 命令内部再次调用同一设备的命令时直接执行，避免单消费者线程等待自己造成死锁
+        if (deviceName.equals(CURRENT_DEVICE.get())) {
+            return call(command);
+        }
+
+        DeviceQueue queue = queues.computeIfAbsent(deviceName, DeviceQueue::new);
+        queue.acquire();
+
+        long enqueuedAt = System.nanoTime();
+        // 命令开始执行与超时取消只有一方能占用，由占用的一方归还队列空位
+        AtomicBoolean claimed = new AtomicBoolean();
+        Future<T> future;
+        try {
+            future = queue.executor.submit(() -> {
+                if (!claimed.compareAndSet(false, true)) {
+                    return null;
+                }
+                queue.recordWait(System.nanoTime() - enqueuedAt);
+                CURRENT_DEVICE.set(deviceName);
+                long start = System.nanoTime();
+                try {
+                    return command.call();
+                } finally {
+                    CURRENT_DEVICE.remove();
+                    queue.recordExecution(System.nanoTime() - start);
+                    queue.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            queue.release();
+            throw e;
+        }
+
+        long timeout = appiumConfig.getCommandQueue().getExecutionTimeout();
+        try {
+            return timeout > 0 ? future.get(timeout, TimeUnit.MILLISECONDS) : future.get();
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            if (claimed.compareAndSet(false, true)) {
+                // 命令还在排队，未开始执行
+                queue.release();
+            }
+            queue.timedOut.incrementAndGet();
+            log.warn("设备命令执行超时，已取消: {}, 超时时间: {}ms", deviceName, timeout);
+            throw new RuntimeException("设备命令执行超时: " + deviceName, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("等待设备命令执行被中断: " + deviceName, e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new RuntimeException(cause.getMessage(), cause);
+        }
+    }
+
+    /**
+     * 在设备队列中执行无返回值的命令
+     * 
+     * @param deviceName 设备名称
+     * @param command    要执行的命令
+     */
+    public void run(String deviceName, Runnable command) {
+        execute(deviceName, () -> {
+            command.run();
+            return null;
+        });
+    }
+
+    /**
+     * 获取所有设备队列的状态
+     * 
+     * @return 各设备的队列深度、等待时间等指标
+     */
+    public Map<String, Object> getQueueStatus() {
+        Map<String, Object> devices = new HashMap<>();
+        queues.forEach((name, queue) -> devices.put(name, queue.snapshot()));
+
+        Map<String, Object> status = new HashMap<>();
+        status.put("capacity", appiumConfig.getCommandQueue().getCapacity());
+        status.put("policy", appiumConfig.getCommandQueue().getPolicy());
+        status.put("executionTimeout", appiumConfig.getCommandQueue().getExecutionTimeout());
+        status.put("devices", devices);
+        return status;
+    }
+
+    /**
+     * 移除设备的命令队列，设备注销后调用
+     * 已排队的命令继续执行完毕，之后的命令会使用新建的队列
+     * 
+     * @param deviceName 设备名称
+     */
+    public void remove(String deviceName) {
+        DeviceQueue queue = queues.remove(deviceName);
+        if (queue != null) {
+            queue.executor.shutdown();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        queues.values().forEach(queue -> queue.executor.shutdownNow());
+        queues.clear();
+    }
+
+    // 直接执行命令
+    private static <T> T call(Callable<T> command) {
+        try {
+            return command.call();
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 单台设备的命令队列
+     */
+    private class DeviceQueue {
+        private final String deviceName;
+        // 单消费者线程，保证同一设备上的命令串行执行
+        private final ExecutorService executor;
+        // 队列容量（含执行中的命令）
+        private final Semaphore slots;
+
+        private final AtomicInteger depth = new AtomicInteger();
+        private final AtomicInteger maxDepth = new AtomicInteger();
+        private final AtomicLong submitted = new AtomicLong();
+        private final AtomicLong rejected = new AtomicLong();
+        private final AtomicLong timedOut = new AtomicLong();
+        private final AtomicLong completed = new AtomicLong();
+        private final AtomicLong totalWaitNanos = new AtomicLong();
+        private final AtomicLong maxWaitNanos = new AtomicLong();
+        private final AtomicLong totalExecutionNanos = new AtomicLong();
+
+        DeviceQueue(String deviceName) {
+            this.deviceName = deviceName;
+            this.executor = Executors.newSingleThreadExecutor(
+                    Thread.ofVirtual().name("device-command-" + deviceName).factory());
+            this.slots = new Semaphore(Math.max(1, appiumConfig.getCommandQueue().getCapacity()), true);
+        }
+
+        // 按配置的策略占用队列空位
+        void acquire() {
+            AppiumConfig.CommandQueue config = appiumConfig.getCommandQueue();
+            boolean acquired;
+            try {
+                acquired = "reject".equalsIgnoreCase(config.getPolicy())
+                        ? slots.tryAcquire()
+                        : slots.tryAcquire(config.getWaitTimeout(), TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("等待设备命令队列空位被中断: " + deviceName, e);
+            }
+
+            if (!acquired) {
+                rejected.incrementAndGet();
+                log.warn("设备命令队列已满，拒绝命令: {}, 队列深度: {}", deviceName, depth.get());
+                throw new RuntimeException("设备命令队列已满: " + deviceName);
+            }
+
+            submitted.incrementAndGet();
+            maxDepth.accumulateAndGet(depth.incrementAndGet(), Math::max);
+        }
+
+        void release() {
+            depth.decrementAndGet();
+            slots.release();
+        }
+
+        void recordWait(long nanos) {
+            totalWaitNanos.addAndGet(nanos);
+            maxWaitNanos.accumulateAndGet(nanos, Math::max);
+        }
+
+        void recordExecution(long nanos) {
+            completed.incrementAndGet();
+            totalExecutionNanos.addAndGet(nanos);
+        }
+
+        Map<String, Object> snapshot() {
+            long done = completed.get();
+            Map<String, Object> status = new HashMap<>();
+            status.put("depth", depth.get());
+            status.put("maxDepth", maxDepth.get());
+            status.put("submitted", submitted.get());
+            status.put("completed", done);
+            status.put("rejected", rejected.get());
+            status.put("timedOut", timedOut.get());
+            status.put("avgWaitMs", done == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(totalWaitNanos.get() / done));
+            status.put("maxWaitMs", TimeUnit.NANOSECONDS.toMillis(maxWaitNanos.get()));
+            status.put("avgExecutionMs",
+                    done == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(totalExecutionNanos.get() / done));
+            return status;
+        }
+    }
+}
@@ -0,0 +1,415 @@
+package com.flyiu.ai.mcp.mobile.service.appium;
+
+import com.flyiu.ai.mcp.mobile.config.AppiumConfig;
+import com.flyiu.ai.mcp.mobile.model.DeviceSession;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 设备租约管理
+ * 多个MCP客户端共享设备时，客户端先租用设备再操作，同一时间每台设备只有一个租约，
+ * 其余请求按FIFO或优先级排队等待，租约到期未续租自动释放并交给下一个等待者
+ */
+@Slf4j
+@Component
+public class DeviceLeaseManager {
+
+    // 等待时间直方图的桶上限（毫秒），最后一个桶收集超过所有上限的等待
+    private static final long[] WAIT_BUCKETS = { 10, 50, 100, 500, 1000, 5000, 10000, 30000, 60000 };
+
+    private final AppiumConfig appiumConfig;
+    private final AppiumSessionManager sessionManager;
+    private final DeviceRegistry deviceRegistry;
+
+    // 各设备的租约状态
+    private final Map<String, DeviceLeases> devices = new ConcurrentHashMap<>();
+    // 按租约ID索引的有效租约
+    private final Map<String, Lease> leases = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService sweeper = Executors.newScheduledThreadPool(1);
+    // 到达顺序，同优先级时先到先得
+    private final AtomicLong sequence = new AtomicLong();
+
+    // 拿到租约前的等待时间分布，只统计成功的租用
+    private final AtomicLongArray waitHistogram = new AtomicLongArray(WAIT_BUCKETS.length + 1);
+    // 超时放弃前的等待时间分布
+    private final AtomicLongArray timeoutHistogram = new AtomicLongArray(WAIT_BUCKETS.length + 1);
+    private final AtomicLong grantedCount = new AtomicLong();
+    private final AtomicLong timeoutCount = new AtomicLong();
+    private final AtomicLong expiredCount = new AtomicLong();
+    private final AtomicLong totalWaitMillis = new AtomicLong();
+    private final AtomicLong maxWaitMillis = new AtomicLong();
+
+    @Autowired
+    public DeviceLeaseManager(AppiumConfig appiumConfig, AppiumSessionManager sessionManager,
+            DeviceRegistry deviceRegistry) {
+        this.appiumConfig = appiumConfig;
+        this.sessionManager = sessionManager;
+        this.deviceRegistry = deviceRegistry;
+    }
+
+    /**
+     * 应用启动完成后开始检查租约到期
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        long interval = appiumConfig.getLease().getSweepInterval();
+        sweeper.scheduleWithFixedDelay(this::expireLeases, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 租用设备，设备被占用时排队等待
+     * 同一客户端重复租用同一设备时返回原租约并续期；已在排队时沿用原来的排队位置
+     *
+     * @param deviceName 设备名称
+     * @param owner      租用者标识
+     * @param priority   优先级，数值越大越优先，仅priority策略下生效
+     * @param ttlMillis  租约有效期（毫秒），不大于0时使用默认值
+     * @param waitMillis 最长等待时间（毫秒），小于0时使用默认值
+     * @return 租约信息，等待超时时success为false
+     */
+    public Map<String, Object> acquire(String deviceName, String owner, int priority, long ttlMillis,
+            long waitMillis) {
+        if (!deviceRegistry.contains(deviceName) && sessionManager.getSession(deviceName).isEmpty()) {
+            throw new IllegalArgumentException("未找到指定的设备: " + deviceName);
+        }
+
+        if (owner == null || owner.isEmpty()) {
+            throw new IllegalArgumentException("必须指定租用者标识");
+        }
+
+        AppiumConfig.Lease config = appiumConfig.getLease();
+        long ttl = resolveTtl(ttlMillis);
+        long wait = waitMillis < 0 ? config.getWaitTimeout() : waitMillis;
+
+        DeviceLeases state = devices.computeIfAbsent(deviceName, name -> new DeviceLeases());
+        Waiter waiter;
+        int position;
+        synchronized (state) {
+            Lease current = state.current;
+            if (current != null && current.owner.equals(owner)) {
+                current.expiresAt = System.currentTimeMillis() + ttl;
+                touchSession(deviceName);
+                return describe(current, 0, true);
+            }
+            waiter = findWaiter(state, owner);
+            if (waiter == null) {
+                waiter = new Waiter(owner, priority, ttl, sequence.incrementAndGet());
+                state.queue.add(waiter);
+            }
+            waiter.callers++;
+            position = state.queue.size() + (current != null ? 1 : 0);
+            dispatch(deviceName, state);
+        }
+
+        long start = System.currentTimeMillis();
+        try {
+            Lease lease = waiter.future.get(wait, TimeUnit.MILLISECONDS);
+            return describe(lease, System.currentTimeMillis() - start, false);
+        } catch (TimeoutException e) {
+            synchronized (state) {
+                // 超时的同时可能刚好拿到租约；同一租用者还有其他请求在等待时保留排队位置
+                if (!waiter.future.isDone() && --waiter.callers == 0) {
+                    state.queue.remove(waiter);
+                    waiter.future.cancel(false);
+                }
+            }
+            if (waiter.future.isDone() && !waiter.future.isCancelled()) {
+                return describe(waiter.future.join(), System.currentTimeMillis() - start, false);
+            }
+
+            timeoutCount.incrementAndGet();
+            long waited = System.currentTimeMillis() - start;
+            recordWait(timeoutHistogram, waited);
+            log.info("等待设备租约超时: {}, 租用者: {}, 等待: {}ms", deviceName, owner, waited);
+
+            Map<String, Object> result = new HashMap<>();
+            result.put("success", false);
+            result.put("deviceName", deviceName);
+            result.put("error", "等待设备租约超时: " + deviceName);
+            result.put("waitMs", waited);
+            result.put("queuePosition", position);
+            result.put("holder", state.current != null ? state.current.owner : "");
+            return result;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            cancel(state, waiter);
+            throw new RuntimeException("等待设备租约被中断: " + deviceName, e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    /**
+     * 续租
+     *
+     * @param leaseId   租约ID
+     * @param ttlMillis 新的有效期（毫秒），从当前时间算起，不大于0时使用默认值
+     * @return 续租后的租约信息
+     */
+    public Map<String, Object> renew(String leaseId, long ttlMillis) {
+        Lease lease = leases.get(leaseId);
+        if (lease == null) {
+            throw new IllegalArgumentException("租约不存在或已过期: " + leaseId);
+        }
+
+        lease.expiresAt = System.currentTimeMillis() + resolveTtl(ttlMillis);
+        touchSession(lease.deviceName);
+        return describe(lease, 0, true);
+    }
+
+    /**
+     * 释放租约，设备交给下一个等待者
+     *
+     * @param leaseId 租约ID
+     * @return 是否释放成功，租约不存在时返回false
+     */
+    public boolean release(String leaseId) {
+        Lease lease = leases.get(leaseId);
+        if (lease == null) {
+            return false;
+        }
+        end(lease, "释放");
+        return true;
+    }
+
+    /**
+     * 获取租约与排队状态
+     *
+     * @return 各设备的持有者、排队数量，以及等待时间直方图等统计
+     */
+    public Map<String, Object> getLeaseStatus() {
+        Map<String, Object> deviceStatus = new HashMap<>();
+        devices.forEach((name, state) -> {
+            synchronized (state) {
+                Map<String, Object> info = new HashMap<>();
+                info.put("holder", state.current != null ? state.current.owner : "");
+                info.put("leaseId", state.current != null ? state.current.id : "");
+                info.put("expiresAt", state.current != null ? Instant.ofEpochMilli(state.current.expiresAt).toString() : "");
+                info.put("waiting", state.queue.size());
+                info.put("grantedCount", state.grantedCount);
+                deviceStatus.put(name, info);
+            }
+        });
+
+        long granted = grantedCount.get();
+        Map<String, Object> status = new HashMap<>();
+        status.put("policy", appiumConfig.getLease().getPolicy());
+        status.put("activeLeases", leases.size());
+        status.put("grantedCount", granted);
+        status.put("timeoutCount", timeoutCount.get());
+        status.put("expiredCount", expiredCount.get());
+        status.put("avgWaitMs", granted == 0 ? 0 : totalWaitMillis.get() / granted);
+        status.put("maxWaitMs", maxWaitMillis.get());
+        status.put("waitHistogram", histogram(waitHistogram));
+        status.put("timeoutHistogram", histogram(timeoutHistogram));
+        status.put("devices", deviceStatus);
+        return status;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sweeper.shutdownNow();
+    }
+
+    // 设备空闲时把租约交给队首的等待者，调用方需持有state的锁
+    private void dispatch(String deviceName, DeviceLeases state) {
+        while (state.current == null && !state.queue.isEmpty()) {
+            Waiter waiter = state.queue.poll();
+            if (waiter.future.isDone()) {
+                continue;
+            }
+
+            Lease lease = new Lease(UUID.randomUUID().toString(), deviceName, waiter.owner,
+                    System.currentTimeMillis() + waiter.ttl);
+            state.current = lease;
+            state.grantedCount++;
+            leases.put(lease.id, lease);
+
+            long waited = System.currentTimeMillis() - waiter.enqueuedAt;
+            grantedCount.incrementAndGet();
+            totalWaitMillis.addAndGet(waited);
+            maxWaitMillis.accumulateAndGet(waited, Math::max);
+            recordWait(waitHistogram, waited);
+
+            touchSession(deviceName);
+            waiter.future.complete(lease);
+            log.info("设备租约已分配: {}, 租用者: {}, 等待: {}ms", deviceName, waiter.owner, waited);
+        }
+    }
+
+    // 结束租约并分配给下一个等待者
+    private void end(Lease lease, String reason) {
+        DeviceLeases state = devices.get(lease.deviceName);
+        if (state == null) {
+            return;
+        }
+
+        synchronized (state) {
+            if (state.current != lease) {
+                return;
+            }
+            state.current = null;
+            leases.remove(lease.id);
+            log.info("设备租约已{}: {}, 租用者: {}", reason, lease.deviceName, lease.owner);
+            dispatch(lease.deviceName, state);
+        }
+    }
+
+    // 释放所有已到期的租约
+    private void expireLeases() {
+        try {
+            long now = System.currentTimeMillis();
+            new ArrayList<>(leases.values()).stream()
+                    .filter(lease -> lease.expiresAt <= now)
+                    .forEach(lease -> {
+                        expiredCount.incrementAndGet();
+                        end(lease, "过期");
+                    });
+        } catch (Exception e) {
+            log.error("检查租约到期失败", e);
+        }
+    }
+
+    private void cancel(DeviceLeases state, Waiter waiter) {
+        synchronized (state) {
+            // 同一租用者还有其他请求在等待同一位置
+            if (--waiter.callers > 0) {
+                return;
+            }
+            state.queue.remove(waiter);
+            if (!waiter.future.cancel(false)) {
+                // 已经拿到的租约直接释放，避免设备被占用到过期
+                end(waiter.future.join(), "释放");
+            }
+        }
+    }
+
+    // 查找租用者尚未拿到租约的排队请求，调用方需持有state的锁
+    private Waiter findWaiter(DeviceLeases state, String owner) {
+        for (Waiter waiter : state.queue) {
+            if (waiter.owner.equals(owner) && !waiter.future.isDone()) {
+                return waiter;
+            }
+        }
+        return null;
+    }
+
+    // 租约期间保持会话活跃，避免被空闲淘汰
+    private void touchSession(String deviceName) {
+        sessionManager.getSession(deviceName).ifPresent(DeviceSession::touch);
+    }
+
+    private long resolveTtl(long ttlMillis) {
+        AppiumConfig.Lease config = appiumConfig.getLease();
+        long ttl = ttlMillis > 0 ? ttlMillis : config.getDefaultTtl();
+        return Math.min(ttl, config.getMaxTtl());
+    }
+
+    private static void recordWait(AtomicLongArray histogram, long waitMillis) {
+        int bucket = 0;
+        while (bucket < WAIT_BUCKETS.length && waitMillis > WAIT_BUCKETS[bucket]) {
+            bucket++;
+        }
+        histogram.incrementAndGet(bucket);
+    }
+
+    private static Map<String, Object> histogram(AtomicLongArray histogram) {
+        Map<String, Object> buckets = new LinkedHashMap<>();
+        for (int i = 0; i < WAIT_BUCKETS.length; i++) {
+            buckets.put("<=" + WAIT_BUCKETS[i] + "ms", histogram.get(i));
+        }
+        buckets.put(">" + WAIT_BUCKETS[WAIT_BUCKETS.length - 1] + "ms", histogram.get(WAIT_BUCKETS.length));
+        return buckets;
+    }
+
+    private Map<String, Object> describe(Lease lease, long waitMillis, boolean renewed) {
+        Map<String, Object> result = new HashMap<>();
+        result.put("success", true);
+        result.put("leaseId", lease.id);
+        result.put("deviceName", lease.deviceName);
+        result.put("owner", lease.owner);
+        result.put("expiresAt", Instant.ofEpochMilli(lease.expiresAt).toString());
+        result.put("waitMs", waitMillis);
+        result.put("renewed", renewed);
+        return result;
+    }
+
+    private Comparator<Waiter> queueOrder() {
+        Comparator<Waiter> bySequence = Comparator.comparingLong(waiter -> waiter.sequence);
+        if ("priority".equalsIgnoreCase(appiumConfig.getLease().getPolicy())) {
+            return Comparator.<Waiter>comparingInt(waiter -> waiter.priority).reversed().thenComparing(bySequence);
+        }
+        return bySequence;
+    }
+
+    /**
+     * 设备租约
+     */
+    private static class Lease {
+        private final String id;
+        private final String deviceName;
+        private final String owner;
+        private volatile long expiresAt;
+
+        Lease(String id, String deviceName, String owner, long expiresAt) {
+            this.id = id;
+            this.deviceName = deviceName;
+            this.owner = owner;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /**
+     * 排队中的租用请求
+     */
+    private static class Waiter {
+        private final String owner;
+        private final int priority;
+        private final long ttl;
+        private final long sequence;
+        private final long enqueuedAt = System.currentTimeMillis();
+        private final CompletableFuture<Lease> future = new CompletableFuture<>();
+        // 等待该位置的请求数量，同一租用者重复租用时共用一个位置
+        private int callers;
+
+        Waiter(String owner, int priority, long ttl, long sequence) {
+            this.owner = owner;
+            this.priority = priority;
+            this.ttl = ttl;
+            this.sequence = sequence;
+        }
+    }
+
+    /**
+     * 单台设备的租约与等待队列
+     */
+    private class DeviceLeases {
+        private final PriorityQueue<Waiter> queue = new PriorityQueue<>(queueOrder());
+        private Lease current;
+        private long grantedCount;
+    }
+}
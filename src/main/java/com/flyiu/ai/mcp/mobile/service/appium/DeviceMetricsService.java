@@ -0,0 +1,158 @@
+package com.flyiu.ai.mcp.mobile.service.appium;
+
+import com.flyiu.ai.mcp.mobile.model.DeviceMetrics;
+import com.flyiu.ai.mcp.mobile.model.DeviceSession;
+import com.flyiu.ai.mcp.mobile.model.PageSnapshot;
+
+import io.appium.java_client.AppiumDriver;
+import io.appium.java_client.android.AndroidDriver;
+import io.appium.java_client.ios.IOSDriver;
+import lombok.extern.slf4j.Slf4j;
+import org.openqa.selenium.Dimension;
+import org.openqa.selenium.WebDriverException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 设备屏幕参数服务
+ * 窗口尺寸、密度、方向与状态栏/导航栏高度在每个会话第一次使用时获取并缓存在DeviceSession上。
+ * 页面快照的根节点带有屏幕宽高，快照中宽高发生变化（旋转或分辨率变化）时清空缓存，
+ * 下次使用时重新获取，其余时候不再请求设备
+ */
+@Slf4j
+@Service
+public class DeviceMetricsService {
+
+    private final AppiumSessionManager sessionManager;
+    private final DeviceCommandQueue commandQueue;
+
+    // 各设备最近一次快照根节点的宽高
+    private final Map<String, Long> rootSizes = new ConcurrentHashMap<>();
+
+    @Autowired
+    public DeviceMetricsService(AppiumSessionManager sessionManager, DeviceCommandQueue commandQueue) {
+        this.sessionManager = sessionManager;
+        this.commandQueue = commandQueue;
+    }
+
+    /**
+     * 获取设备屏幕参数，会话上已有缓存时直接返回
+     *
+     * @param deviceName 设备名称
+     * @return 屏幕参数
+     */
+    public DeviceMetrics getMetrics(String deviceName) {
+        DeviceSession session = getSessionOrThrow(deviceName);
+        DeviceMetrics metrics = session.getMetrics();
+        if (metrics != null) {
+            return metrics;
+        }
+        return commandQueue.execute(deviceName, () -> {
+            // 排队期间可能已被其他命令获取
+            DeviceMetrics current = session.getMetrics();
+            if (current != null) {
+                return current;
+            }
+            DeviceMetrics fetched = fetch(session.getDriver());
+            session.setMetrics(fetched);
+            log.info("获取设备屏幕参数: {}, {}x{}, 密度: {}, 方向: {}, 状态栏: {}, 导航栏: {}", deviceName,
+                    fetched.width(), fetched.height(), fetched.density(), fetched.orientation(),
+                    fetched.statusBarHeight(), fetched.navigationBarHeight());
+            return fetched;
+        });
+    }
+
+    /**
+     * 清空设备的屏幕参数缓存，下次使用时重新获取
+     *
+     * @param deviceName 设备名称
+     */
+    public void invalidate(String deviceName) {
+        sessionManager.getSession(deviceName).ifPresent(session -> session.setMetrics(null));
+    }
+
+    /**
+     * 根据新快照检查屏幕是否旋转或分辨率变化，变化时清空缓存
+     *
+     * @param deviceName 设备名称
+     * @param snapshot   新获取的快照
+     */
+    public void onSnapshot(String deviceName, PageSnapshot snapshot) {
+        if (snapshot.size() == 0) {
+            return;
+        }
+        PageSnapshot.Node root = snapshot.getNode(0);
+        if (root.getWidth() <= 0 || root.getHeight() <= 0) {
+            return;
+        }
+        long size = ((long) root.getWidth() << 32) | root.getHeight();
+        Long previous = rootSizes.put(deviceName, size);
+        if (previous != null && previous != size) {
+            log.info("设备屏幕尺寸变化: {}, {}x{}", deviceName, root.getWidth(), root.getHeight());
+            invalidate(deviceName);
+        }
+    }
+
+    // 获取窗口尺寸，再按平台尽量补充密度与系统栏高度，补充信息获取失败不影响结果
+    private DeviceMetrics fetch(AppiumDriver driver) {
+        Dimension size = driver.manage().window().getSize();
+        double density = 0;
+        int statusBarHeight = 0;
+        int navigationBarHeight = 0;
+
+        if (driver instanceof AndroidDriver) {
+            try {
+                Map<?, ?> info = asMap(driver.executeScript("mobile: deviceInfo"));
+                density = number(info.get("displayDensity"));
+            } catch (WebDriverException e) {
+                log.debug("获取屏幕密度失败: {}", e.getMessage());
+            }
+            try {
+                Map<?, ?> bars = asMap(driver.executeScript("mobile: getSystemBars"));
+                statusBarHeight = barHeight(bars.get("statusBar"));
+                navigationBarHeight = barHeight(bars.get("navigationBar"));
+            } catch (WebDriverException e) {
+                log.debug("获取系统栏高度失败: {}", e.getMessage());
+            }
+        } else if (driver instanceof IOSDriver) {
+            try {
+                Map<?, ?> info = asMap(driver.executeScript("mobile: deviceScreenInfo"));
+                density = number(info.get("scale"));
+                statusBarHeight = (int) number(asMap(info.get("statusBarSize")).get("height"));
+            } catch (WebDriverException e) {
+                log.debug("获取屏幕信息失败: {}", e.getMessage());
+            }
+        }
+
+        String orientation = size.getWidth() > size.getHeight() ? DeviceMetrics.LANDSCAPE : DeviceMetrics.PORTRAIT;
+        return new DeviceMetrics(size.getWidth(), size.getHeight(), density, orientation, statusBarHeight,
+                navigationBarHeight, System.currentTimeMillis());
+    }
+
+    // 系统栏不可见时高度按0计算
+    private static int barHeight(Object bar) {
+        Map<?, ?> map = asMap(bar);
+        if (Boolean.FALSE.equals(map.get("visible"))) {
+            return 0;
+        }
+        return (int) number(map.get("height"));
+    }
+
+    private static Map<?, ?> asMap(Object value) {
+        return value instanceof Map<?, ?> map ? map : Map.of();
+    }
+
+    private static double number(Object value) {
+        return value instanceof Number number ? number.doubleValue() : 0;
+    }
+
+    private DeviceSession getSessionOrThrow(String deviceName) {
+        DeviceSession session = sessionManager.getSession(deviceName)
+                .orElseThrow(() -> new RuntimeException("设备未连接或会话不存在: " + deviceName));
+        session.touch();
+        return session;
+    }
+}
@@ -0,0 +1,135 @@
+package com.flyiu.ai.mcp.mobile.service.appium;
+
+import com.flyiu.ai.mcp.mobile.config.DeviceConfig;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 设备注册表
+ * 汇总DeviceConfig中静态配置的设备与运行时自动发现的设备，
+ * 存在自动发现的Android设备时，udid为auto的静态Android配置不参与批量连接与预热
+ */
+@Slf4j
+@Component
+public class DeviceRegistry {
+
+    private final DeviceConfig deviceConfig;
+
+    // 运行时注册的设备，按设备名称索引
+    private final Map<String, DeviceConfig.DeviceCapabilities> discovered = new ConcurrentHashMap<>();
+
+    @Autowired
+    public DeviceRegistry(DeviceConfig deviceConfig) {
+        this.deviceConfig = deviceConfig;
+    }
+
+    /**
+     * 注册设备，同名设备已存在时覆盖
+     *
+     * @param capabilities 设备配置
+     */
+    public void register(DeviceConfig.DeviceCapabilities capabilities) {
+        if (discovered.put(capabilities.getName(), capabilities) == null) {
+            log.info("注册设备: {}, udid: {}", capabilities.getName(), capabilities.getUdid());
+        }
+    }
+
+    /**
+     * 注销运行时注册的设备
+     *
+     * @param deviceName 设备名称
+     * @return 被注销的设备配置，不存在时返回null
+     */
+    public DeviceConfig.DeviceCapabilities unregister(String deviceName) {
+        DeviceConfig.DeviceCapabilities removed = discovered.remove(deviceName);
+        if (removed != null) {
+            log.info("注销设备: {}, udid: {}", deviceName, removed.getUdid());
+        }
+        return removed;
+    }
+
+    /**
+     * 获取运行时注册的设备
+     */
+    public Map<String, DeviceConfig.DeviceCapabilities> getDiscoveredDevices() {
+        return Map.copyOf(discovered);
+    }
+
+    /**
+     * 判断设备名称是否对应已配置或已发现的设备
+     *
+     * @param deviceName 设备名称
+     * @return 是否存在
+     */
+    public boolean contains(String deviceName) {
+        return discovered.containsKey(deviceName)
+                || (deviceConfig.getAndroid() != null
+                        && deviceConfig.getAndroid().stream().anyMatch(device -> device.getName().equals(deviceName)))
+                || getIOSDevices().stream().anyMatch(device -> device.getName().equals(deviceName));
+    }
+
+    /**
+     * 获取所有Android设备配置
+     */
+    public List<DeviceConfig.DeviceCapabilities> getAndroidDevices() {
+        List<DeviceConfig.DeviceCapabilities> devices = new ArrayList<>();
+        boolean hasDiscovered = !discovered.isEmpty();
+        if (deviceConfig.getAndroid() != null) {
+            deviceConfig.getAndroid().stream()
+                    .filter(device -> !(hasDiscovered && "auto".equals(device.getUdid())))
+                    .forEach(devices::add);
+        }
+        devices.addAll(discovered.values());
+        return devices;
+    }
+
+    /**
+     * 获取所有iOS设备配置
+     */
+    public List<DeviceConfig.DeviceCapabilities> getIOSDevices() {
+        return deviceConfig.getIos() != null ? deviceConfig.getIos() : List.of();
+    }
+
+    /**
+     * 查找Android设备配置，找不到时返回第一个静态配置
+     *
+     * @param deviceName 设备名称
+     * @return 设备配置
+     */
+    public DeviceConfig.DeviceCapabilities findAndroidDevice(String deviceName) {
+        DeviceConfig.DeviceCapabilities device = discovered.get(deviceName);
+        if (device != null) {
+            return device;
+        }
+        return find(deviceConfig.getAndroid(), deviceName);
+    }
+
+    /**
+     * 查找iOS设备配置，找不到时返回第一个静态配置
+     *
+     * @param deviceName 设备名称
+     * @return 设备配置
+     */
+    public DeviceConfig.DeviceCapabilities findIOSDevice(String deviceName) {
+        return find(deviceConfig.getIos(), deviceName);
+    }
+
+    private static DeviceConfig.DeviceCapabilities find(List<DeviceConfig.DeviceCapabilities> devices,
+            String deviceName) {
+        if (devices == null) {
+            return null;
+        }
+
+        return devices.stream()
+                .filter(device -> device.getName().equals(deviceName))
+                .findFirst()
+                .orElse(devices.isEmpty() ? null : devices.get(0));
+    }
+}
@@ -0,0 +1,223 @@
+package com.flyiu.ai.mcp.mobile.service.appium;
+
+import com.flyiu.ai.mcp.mobile.model.PageSnapshot;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 元素句柄注册表
+ * 为列出的元素分配设备内唯一的整数ID，并记录其所属的快照版本与位置。
+ * 同一快照版本内按ID点击直接使用缓存的位置，不再查询设备；
+ * 快照更新后，页面上仍存在（类型、文本、id、位置都相同）的元素保留原ID，其余句柄失效
+ */
+@Slf4j
+@Component
+public class ElementHandleRegistry {
+
+    // 各设备的句柄
+    private final Map<String, DeviceHandles> devices = new ConcurrentHashMap<>();
+
+    private final AtomicLong registerCount = new AtomicLong();
+    private final AtomicLong cachedResolveCount = new AtomicLong();
+    private final AtomicLong syncedResolveCount = new AtomicLong();
+    private final AtomicLong expiredCount = new AtomicLong();
+
+    /**
+     * 为快照中的节点分配句柄，同一节点重复注册时返回相同ID
+     *
+     * @param deviceName 设备名称
+     * @param snapshot   节点所属的快照
+     * @param node       快照节点
+     * @return 元素ID
+     */
+    public int register(String deviceName, PageSnapshot snapshot, PageSnapshot.Node node) {
+        return handles(deviceName).register(snapshot, keyOf(node), false, node.getX(), node.getY(),
+                node.getWidth(), node.getHeight());
+    }
+
+    /**
+     * 为没有对应快照节点的区域分配句柄，例如大模型从截图中识别的元素
+     * 这类句柄只在页面源码完全不变时保持有效
+     *
+     * @param deviceName 设备名称
+     * @param snapshot   识别时的快照
+     * @param label      元素描述
+     * @return 元素ID
+     */
+    public int registerBounds(String deviceName, PageSnapshot snapshot, String label, int x, int y, int width,
+            int height) {
+        return handles(deviceName).register(snapshot, "bounds|" + label + "|" + x + "," + y + "," + width + ","
+                + height, true, x, y, width, height);
+    }
+
+    /**
+     * 按ID获取仍然有效的句柄
+     * 句柄版本与当前快照一致时直接返回；否则先按当前快照同步，
+     * 页面上不再存在的元素对应的句柄会被移除
+     *
+     * @param deviceName 设备名称
+     * @param elementId  元素ID
+     * @param current    设备当前的快照
+     * @return 句柄，ID不存在或已随页面变化失效时为空
+     */
+    public Optional<ElementHandle> resolve(String deviceName, int elementId, PageSnapshot current) {
+        DeviceHandles deviceHandles = devices.get(deviceName);
+        if (deviceHandles == null) {
+            return Optional.empty();
+        }
+        return deviceHandles.resolve(elementId, current);
+    }
+
+    /**
+     * 清除设备的所有句柄
+     *
+     * @param deviceName 设备名称
+     */
+    public void clear(String deviceName) {
+        devices.remove(deviceName);
+    }
+
+    /**
+     * 获取句柄统计信息
+     */
+    public Map<String, Object> getHandleStatus() {
+        Map<String, Object> perDevice = new HashMap<>();
+        devices.forEach((deviceName, deviceHandles) -> perDevice.put(deviceName, deviceHandles.status()));
+
+        Map<String, Object> status = new HashMap<>();
+        status.put("registerCount", registerCount.get());
+        status.put("cachedResolveCount", cachedResolveCount.get());
+        status.put("syncedResolveCount", syncedResolveCount.get());
+        status.put("expiredCount", expiredCount.get());
+        status.put("devices", perDevice);
+        return status;
+    }
+
+    private DeviceHandles handles(String deviceName) {
+        return devices.computeIfAbsent(deviceName, k -> new DeviceHandles());
+    }
+
+    // 节点的身份，类型、文本、id、位置都相同视为同一元素
+    private static String keyOf(PageSnapshot.Node node) {
+        return node.getClassName() + "|" + node.getResourceId() + "|" + node.getText() + "|"
+                + node.getContentDesc() + "|" + node.getX() + "," + node.getY() + "," + node.getWidth() + ","
+                + node.getHeight();
+    }
+
+    /**
+     * 元素句柄
+     *
+     * @param id          元素ID
+     * @param version     句柄当前对应的快照版本
+     * @param fingerprint 注册时的页面指纹
+     * @param key         元素身份
+     * @param bounds      是否为没有快照节点的区域句柄
+     */
+    public record ElementHandle(int id, long version, long fingerprint, String key, boolean bounds, int x, int y,
+            int width, int height) {
+
+        public int centerX() {
+            return x + width / 2;
+        }
+
+        public int centerY() {
+            return y + height / 2;
+        }
+
+        ElementHandle withVersion(long version) {
+            return new ElementHandle(id, version, fingerprint, key, bounds, x, y, width, height);
+        }
+    }
+
+    /**
+     * 单台设备的句柄，只保留最近一个快照版本上有效的句柄
+     */
+    private class DeviceHandles {
+
+        private long version = -1;
+        private int nextId = 1;
+        private final Map<String, Integer> idsByKey = new HashMap<>();
+        private final Map<Integer, ElementHandle> handles = new HashMap<>();
+
+        synchronized int register(PageSnapshot snapshot, String key, boolean bounds, int x, int y, int width,
+                int height) {
+            sync(snapshot);
+            Integer existing = idsByKey.get(key);
+            if (existing != null) {
+                return existing;
+            }
+
+            int id = nextId++;
+            if (nextId == Integer.MAX_VALUE) {
+                nextId = 1;
+            }
+            idsByKey.put(key, id);
+            handles.put(id, new ElementHandle(id, snapshot.getVersion(), snapshot.getFingerprint(), key, bounds, x,
+                    y, width, height));
+            registerCount.incrementAndGet();
+            return id;
+        }
+
+        synchronized Optional<ElementHandle> resolve(int elementId, PageSnapshot current) {
+            if (current.getVersion() == version) {
+                ElementHandle handle = handles.get(elementId);
+                if (handle != null) {
+                    cachedResolveCount.incrementAndGet();
+                }
+                return Optional.ofNullable(handle);
+            }
+
+            sync(current);
+            ElementHandle handle = handles.get(elementId);
+            if (handle != null) {
+                syncedResolveCount.incrementAndGet();
+            }
+            return Optional.ofNullable(handle);
+        }
+
+        // 切换到新的快照版本，移除页面上已不存在的元素
+        private void sync(PageSnapshot snapshot) {
+            if (snapshot.getVersion() == version) {
+                return;
+            }
+            if (snapshot.getVersion() < version) {
+                // 旧快照上的注册不影响当前句柄
+                return;
+            }
+
+            Set<String> present = new HashSet<>();
+            Set<String> duplicated = new HashSet<>();
+            for (PageSnapshot.Node node : snapshot.getNodes()) {
+                String key = keyOf(node);
+                if (!present.add(key)) {
+                    duplicated.add(key);
+                }
+            }
+
+            int before = handles.size();
+            handles.replaceAll((id, handle) -> handle.withVersion(snapshot.getVersion()));
+            handles.values().removeIf(handle -> handle.bounds()
+                    ? handle.fingerprint() != snapshot.getFingerprint()
+                    : !present.contains(handle.key()) || duplicated.contains(handle.key()));
+            idsByKey.values().removeIf(id -> !handles.containsKey(id));
+            expiredCount.addAndGet(before - handles.size());
+            version = snapshot.getVersion();
+        }
+
+        synchronized Map<String, Object> status() {
+            Map<String, Object> status = new HashMap<>();
+            status.put("version", version);
+            status.put("handles", handles.size());
+            return status;
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package com.flyiu.ai.mcp.mobile.service.appium;
+
+import com.flyiu.ai.mcp.mobile.config.AppiumConfig;
+import com.flyiu.ai.mcp.mobile.model.DeviceSession;
+import com.flyiu.ai.mcp.mobile.model.PageSnapshot;
+import com.flyiu.ai.mcp.mobile.model.WaitPolicy;
+import com.flyiu.ai.mcp.mobile.util.PageSourceParser;
+import com.flyiu.ai.mcp.mobile.util.SnapshotQuery;
+
+import io.appium.java_client.AppiumDriver;
+import lombok.extern.slf4j.Slf4j;
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebDriverException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 页面快照服务
+ * 每台设备缓存一份页面源码快照，有效期内的元素查询直接在快照上完成，
+ * 一次getPageSource代替逐个元素的findElements与属性读取。
+ * 设备上执行点击、输入、滑动等操作后快照立即失效
+ */
+@Slf4j
+@Service
+public class PageSnapshotService {
+
+    private final AppiumConfig appiumConfig;
+    private final AppiumSessionManager sessionManager;
+    private final DeviceCommandQueue commandQueue;
+    private final DeviceMetricsService metricsService;
+
+    // 各设备当前的快照
+    private final Map<String, CachedSnapshot> snapshots = new ConcurrentHashMap<>();
+    // 各设备的快照版本号
+    private final Map<String, AtomicLong> versions = new ConcurrentHashMap<>();
+
+    private final AtomicLong fetchCount = new AtomicLong();
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong invalidateCount = new AtomicLong();
+    private final AtomicLong fetchNanos = new AtomicLong();
+    private final AtomicLong parseNanos = new AtomicLong();
+
+    @Autowired
+    public PageSnapshotService(AppiumConfig appiumConfig, AppiumSessionManager sessionManager,
+            DeviceCommandQueue commandQueue, DeviceMetricsService metricsService) {
+        this.appiumConfig = appiumConfig;
+        this.sessionManager = sessionManager;
+        this.commandQueue = commandQueue;
+        this.metricsService = metricsService;
+    }
+
+    /**
+     * 是否启用快照查询
+     */
+    public boolean isEnabled() {
+        return appiumConfig.getSnapshot().isEnabled();
+    }
+
+    /**
+     * 将定位器编译为快照查询
+     *
+     * @param locator 元素定位器
+     * @return 快照查询，未启用快照或定位器不受支持时返回null
+     */
+    public SnapshotQuery compile(By locator) {
+        return isEnabled() ? SnapshotQuery.compile(locator) : null;
+    }
+
+    /**
+     * 获取设备的页面快照，缓存未过期时直接返回
+     *
+     * @param deviceName 设备名称
+     * @return 页面快照
+     */
+    public PageSnapshot getSnapshot(String deviceName) {
+        return commandQueue.execute(deviceName, () -> {
+            AppiumDriver driver = getDriverOrThrow(deviceName);
+            CachedSnapshot cached = snapshots.get(deviceName);
+            if (cached != null && cached.driver() == driver && cached.expiresAt() > System.currentTimeMillis()) {
+                hitCount.incrementAndGet();
+                return cached.snapshot();
+            }
+            return fetch(deviceName, driver);
+        });
+    }
+
+    /**
+     * 重新获取设备的页面快照
+     *
+     * @param deviceName 设备名称
+     * @return 页面快照
+     */
+    public PageSnapshot refresh(String deviceName) {
+        return commandQueue.execute(deviceName, () -> fetch(deviceName, getDriverOrThrow(deviceName)));
+    }
+
+    /**
+     * 使设备的页面快照失效，下次查询时重新获取
+     *
+     * @param deviceName 设备名称
+     */
+    public void invalidate(String deviceName) {
+        if (snapshots.remove(deviceName) != null) {
+            invalidateCount.incrementAndGet();
+        }
+    }
+
+    /**
+     * 按等待策略在快照上查找元素
+     * 第一次使用缓存的快照，未找到时每轮重新获取快照，直到找到或超时
+     *
+     * @param deviceName 设备名称
+     * @param query      快照查询
+     * @param policy     等待策略
+     * @return 匹配的节点，超时仍未找到时为空列表
+     */
+    public List<PageSnapshot.Node> findAll(String deviceName, SnapshotQuery query, WaitPolicy policy) {
+        return find(deviceName, query, policy).nodes();
+    }
+
+    /**
+     * 按等待策略在快照上查找元素，同时返回匹配所用的快照
+     * 每轮获取快照单独进入设备命令队列，轮询间隔内不占用队列，等待期间不阻塞同一设备上的其他命令
+     *
+     * @param deviceName 设备名称
+     * @param query      快照查询
+     * @param policy     等待策略
+     * @return 最后一次查询所用的快照及匹配的节点
+     */
+    public QueryResult find(String deviceName, SnapshotQuery query, WaitPolicy policy) {
+        long deadline = System.currentTimeMillis() + policy.getTimeout().toMillis();
+        WebDriverException lastError = null;
+        PageSnapshot snapshot = null;
+        boolean first = true;
+        while (true) {
+            try {
+                snapshot = first ? getSnapshot(deviceName) : refresh(deviceName);
+                List<PageSnapshot.Node> nodes = query.apply(snapshot);
+                if (!nodes.isEmpty()) {
+                    return new QueryResult(snapshot, nodes);
+                }
+            } catch (WebDriverException e) {
+                if (policy.isFailFast()) {
+                    throw e;
+                }
+                lastError = e;
+            }
+            first = false;
+
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                if (lastError != null) {
+                    throw lastError;
+                }
+                return new QueryResult(snapshot, List.of());
+            }
+            try {
+                Thread.sleep(Math.min(remaining, Math.max(10, policy.getPollInterval().toMillis())));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new WebDriverException("等待元素被中断", e);
+            }
+        }
+    }
+
+    /**
+     * 获取快照统计信息
+     */
+    public Map<String, Object> getSnapshotStatus() {
+        long fetches = fetchCount.get();
+        long hits = hitCount.get();
+
+        Map<String, Object> devices = new HashMap<>();
+        snapshots.forEach((deviceName, cached) -> {
+            Map<String, Object> info = new HashMap<>();
+            info.put("version", cached.snapshot().getVersion());
+            info.put("nodes", cached.snapshot().size());
+            info.put("ageMs", System.currentTimeMillis() - cached.snapshot().getCreatedAt());
+            devices.put(deviceName, info);
+        });
+
+        Map<String, Object> status = new HashMap<>();
+        status.put("enabled", isEnabled());
+        status.put("ttl", appiumConfig.getSnapshot().getTtl());
+        status.put("fetchCount", fetches);
+        status.put("hitCount", hits);
+        status.put("hitRate", fetches + hits > 0 ? (double) hits / (fetches + hits) : 0.0);
+        status.put("invalidateCount", invalidateCount.get());
+        status.put("avgFetchMs", fetches > 0 ? fetchNanos.get() / fetches / 1_000_000.0 : 0.0);
+        status.put("avgParseMs", fetches > 0 ? parseNanos.get() / fetches / 1_000_000.0 : 0.0);
+        status.put("devices", devices);
+        return status;
+    }
+
+    // 请求页面源码并解析为快照
+    private PageSnapshot fetch(String deviceName, AppiumDriver driver) {
+        long start = System.nanoTime();
+        String pageSource = driver.getPageSource();
+        long fetched = System.nanoTime();
+        PageSnapshot snapshot = PageSourceParser.parse(pageSource,
+                versions.computeIfAbsent(deviceName, k -> new AtomicLong()).incrementAndGet());
+        long parsed = System.nanoTime();
+
+        fetchCount.incrementAndGet();
+        fetchNanos.addAndGet(fetched - start);
+        parseNanos.addAndGet(parsed - fetched);
+        snapshots.put(deviceName, new CachedSnapshot(driver, snapshot,
+                System.currentTimeMillis() + appiumConfig.getSnapshot().getTtl()));
+        metricsService.onSnapshot(deviceName, snapshot);
+        log.debug("获取页面快照: {}, 版本: {}, 节点数: {}, 请求耗时: {}ms, 解析耗时: {}ms", deviceName,
+                snapshot.getVersion(), snapshot.size(), (fetched - start) / 1_000_000,
+                (parsed - fetched) / 1_000_000);
+        return snapshot;
+    }
+
+    private AppiumDriver getDriverOrThrow(String deviceName) {
+        DeviceSession session = sessionManager.getSession(deviceName)
+                .orElseThrow(() -> new RuntimeException("设备未连接或会话不存在: " + deviceName));
+        session.touch();
+        return session.getDriver();
+    }
+
+    /**
+     * 快照查询结果
+     */
+    public record QueryResult(PageSnapshot snapshot, List<PageSnapshot.Node> nodes) {
+    }
+
+    /**
+     * 缓存的快照，记录获取快照时的驱动，会话重建后缓存自动作废
+     */
+    private record CachedSnapshot(AppiumDriver driver, PageSnapshot snapshot, long expiresAt) {
+    }
+}
@@ -0,0 +1,170 @@
+package com.flyiu.ai.mcp.mobile.service.appium;
+
+import com.flyiu.ai.mcp.mobile.config.AppiumConfig;
+import com.flyiu.ai.mcp.mobile.model.PageSnapshot;
+import com.flyiu.ai.mcp.mobile.util.AndroidPageUtils;
+import com.flyiu.ai.mcp.mobile.util.ScreenDiff;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 界面变化服务
+ * 每台设备保留最近若干个快照版本上观察到的元素，客户端传入上次拿到的版本号，
+ * 只返回此后新增、消失或移动的元素，返回内容的大小与变化量成正比，而不是与整屏元素数量成正比。
+ * 不传版本号时以该设备上一次观察的版本为基准；基准版本已不在历史中时返回全部元素
+ */
+@Slf4j
+@Service
+public class ScreenDeltaService {
+
+    private final AppiumConfig appiumConfig;
+    private final PageSnapshotService snapshotService;
+    private final ElementHandleRegistry handleRegistry;
+    private final DeviceCommandQueue commandQueue;
+
+    // 各设备的观察历史
+    private final Map<String, DeviceObservations> devices = new ConcurrentHashMap<>();
+
+    private final AtomicLong deltaCount = new AtomicLong();
+    private final AtomicLong fullCount = new AtomicLong();
+
+    @Autowired
+    public ScreenDeltaService(AppiumConfig appiumConfig, PageSnapshotService snapshotService,
+            ElementHandleRegistry handleRegistry, DeviceCommandQueue commandQueue) {
+        this.appiumConfig = appiumConfig;
+        this.snapshotService = snapshotService;
+        this.handleRegistry = handleRegistry;
+        this.commandQueue = commandQueue;
+    }
+
+    /**
+     * 获取指定版本之后的界面变化
+     *
+     * @param deviceName   设备名称
+     * @param sinceVersion 基准版本，为null时使用该设备上一次观察的版本，为0时返回全部元素
+     * @return version为当前版本，下次作为基准传入；full为true时added包含当前全部元素
+     */
+    public Map<String, Object> getChanges(String deviceName, Long sinceVersion) {
+        return commandQueue.execute(deviceName, () -> {
+            PageSnapshot snapshot = snapshotService.getSnapshot(deviceName);
+            DeviceObservations observations = devices.computeIfAbsent(deviceName, k -> new DeviceObservations());
+
+            Map<String, PageSnapshot.Node> current;
+            Map<String, PageSnapshot.Node> baseline;
+            Long baseVersion;
+            synchronized (observations) {
+                current = observations.record(snapshot, appiumConfig.getDelta().getHistory());
+                baseVersion = sinceVersion != null ? sinceVersion : observations.cursor;
+                baseline = baseVersion != null ? observations.history.get(baseVersion) : null;
+                observations.cursor = snapshot.getVersion();
+            }
+
+            Map<String, Object> result = new HashMap<>();
+            result.put("version", snapshot.getVersion());
+            result.put("baseVersion", baseline != null ? baseVersion : null);
+            result.put("full", baseline == null);
+
+            if (baseline == null) {
+                fullCount.incrementAndGet();
+                List<Map<String, Object>> added = new ArrayList<>();
+                current.values().forEach(node -> added.add(toElement(deviceName, snapshot, node)));
+                result.put("added", added);
+                result.put("removed", List.of());
+                result.put("moved", List.of());
+                result.put("unchanged", 0);
+                return result;
+            }
+
+            deltaCount.incrementAndGet();
+            ScreenDiff.Delta delta = ScreenDiff.diff(baseline, current);
+            List<Map<String, Object>> added = new ArrayList<>();
+            delta.added().forEach(node -> added.add(toElement(deviceName, snapshot, node)));
+            List<Map<String, Object>> removed = new ArrayList<>();
+            delta.removed().forEach(node -> removed.add(toElement(null, null, node)));
+            List<Map<String, Object>> moved = new ArrayList<>();
+            for (ScreenDiff.Move move : delta.moved()) {
+                Map<String, Object> element = toElement(deviceName, snapshot, move.to());
+                element.put("from", AndroidPageUtils.toRect(move.from()));
+                moved.add(element);
+            }
+            result.put("added", added);
+            result.put("removed", removed);
+            result.put("moved", moved);
+            result.put("unchanged", delta.unchanged());
+            log.debug("界面变化: {}, 版本: {} -> {}, 新增: {}, 消失: {}, 移动: {}", deviceName, baseVersion,
+                    snapshot.getVersion(), added.size(), removed.size(), moved.size());
+            return result;
+        });
+    }
+
+    /**
+     * 获取界面变化统计信息
+     */
+    public Map<String, Object> getDeltaStatus() {
+        Map<String, Object> perDevice = new HashMap<>();
+        devices.forEach((deviceName, observations) -> {
+            synchronized (observations) {
+                Map<String, Object> info = new HashMap<>();
+                info.put("cursor", observations.cursor);
+                info.put("versions", List.copyOf(observations.history.keySet()));
+                perDevice.put(deviceName, info);
+            }
+        });
+
+        Map<String, Object> status = new HashMap<>();
+        status.put("history", appiumConfig.getDelta().getHistory());
+        status.put("deltaCount", deltaCount.get());
+        status.put("fullCount", fullCount.get());
+        status.put("devices", perDevice);
+        return status;
+    }
+
+    // 转换为元素信息，消失的元素不分配元素ID
+    private Map<String, Object> toElement(String deviceName, PageSnapshot snapshot, PageSnapshot.Node node) {
+        Map<String, Object> element = new HashMap<>();
+        element.put("type", node.getClassName());
+        element.put("text", node.getText());
+        element.put("contentDesc", node.getContentDesc());
+        element.put("resourceId", node.getResourceId());
+        element.put("bounds", AndroidPageUtils.toRect(node));
+        if (snapshot != null) {
+            element.put("elementId", handleRegistry.register(deviceName, snapshot, node));
+        }
+        return element;
+    }
+
+    /**
+     * 单台设备的观察历史，按版本从旧到新排列
+     */
+    private static class DeviceObservations {
+
+        private final LinkedHashMap<Long, Map<String, PageSnapshot.Node>> history = new LinkedHashMap<>();
+        private Long cursor;
+
+        // 记录快照上观察到的元素，同一版本只提取一次，超过历史长度时丢弃最旧的版本
+        Map<String, PageSnapshot.Node> record(PageSnapshot snapshot, int limit) {
+            Map<String, PageSnapshot.Node> elements = history.get(snapshot.getVersion());
+            if (elements == null) {
+                elements = ScreenDiff.observe(snapshot);
+                history.put(snapshot.getVersion(), elements);
+                Iterator<Long> versions = history.keySet().iterator();
+                while (history.size() > Math.max(1, limit) && versions.hasNext()) {
+                    versions.next();
+                    versions.remove();
+                }
+            }
+            return elements;
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.flyiu.ai.mcp.mobile.service.appium;
+
+import com.flyiu.ai.mcp.mobile.config.AppiumConfig;
+import com.flyiu.ai.mcp.mobile.model.DeviceSession;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 会话健康监控服务
+ * 定期向每个已连接的会话发送心跳，发现失效的驱动后使用原设备配置重建会话，
+ * 使下一次工具调用无需手动重连
+ */
+@Slf4j
+@Component
+public class SessionHealthMonitor {
+
+    private final AppiumConfig appiumConfig;
+    private final AppiumSessionManager sessionManager;
+    private final DeviceCommandQueue commandQueue;
+
+    private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(1);
+    // 每台设备的检测在独立的虚拟线程中执行，慢设备不影响其他设备
+    private final ExecutorService checkExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    // 正在检测中的设备，避免同一设备的检测重叠
+    private final Set<String> checking = ConcurrentHashMap.newKeySet();
+
+    private final AtomicLong heartbeatCount = new AtomicLong();
+    private final AtomicLong deadSessionCount = new AtomicLong();
+    private final AtomicLong reconnectSuccessCount = new AtomicLong();
+    private final AtomicLong reconnectFailureCount = new AtomicLong();
+
+    @Autowired
+    public SessionHealthMonitor(AppiumConfig appiumConfig, AppiumSessionManager sessionManager,
+            DeviceCommandQueue commandQueue) {
+        this.appiumConfig = appiumConfig;
+        this.sessionManager = sessionManager;
+        this.commandQueue = commandQueue;
+    }
+
+    /**
+     * 应用启动完成后开始心跳检测
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        AppiumConfig.Health health = appiumConfig.getHealth();
+        if (!health.isEnabled()) {
+            log.info("会话心跳检测未启用");
+            return;
+        }
+
+        log.info("启动会话心跳检测，间隔: {}ms", health.getInterval());
+        scheduler.scheduleWithFixedDelay(this::checkAll, health.getInterval(), health.getInterval(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 检查所有已连接的会话以及预热池中的空闲会话
+     */
+    public void checkAll() {
+        try {
+            sessionManager.getActiveSessions().keySet().forEach(deviceName -> {
+                if (checking.add(deviceName)) {
+                    checkExecutor.execute(() -> {
+                        try {
+                            check(deviceName);
+                        } finally {
+                            checking.remove(deviceName);
+                        }
+                    });
+                }
+            });
+            sessionManager.checkIdleSessions();
+        } catch (Exception e) {
+            log.error("会话心跳检测失败", e);
+        }
+    }
+
+    /**
+     * 检查单个设备会话，失效时自动重连
+     * 心跳与重连都经过设备命令队列，不会与正在执行的命令交错
+     * 
+     * @param deviceName 设备名称
+     */
+    public void check(String deviceName) {
+        try {
+            commandQueue.run(deviceName, () -> {
+                DeviceSession session = sessionManager.getSession(deviceName).orElse(null);
+                if (session == null) {
+                    return;
+                }
+
+                heartbeatCount.incrementAndGet();
+                if (sessionManager.isSessionAlive(session)) {
+                    session.setState(DeviceSession.State.HEALTHY);
+                    session.setLastHeartbeatAt(LocalDateTime.now());
+                    return;
+                }
+
+                deadSessionCount.incrementAndGet();
+                log.warn("检测到设备会话已失效: {}", deviceName);
+                if (!appiumConfig.getHealth().isAutoReconnect()) {
+                    session.setState(DeviceSession.State.FAILED);
+                    return;
+                }
+
+                try {
+                    sessionManager.reconnect(deviceName);
+                    reconnectSuccessCount.incrementAndGet();
+                } catch (Exception e) {
+                    reconnectFailureCount.incrementAndGet();
+                }
+            });
+        } catch (Exception e) {
+            log.warn("设备会话心跳检测失败: {}, {}", deviceName, e.getMessage());
+        }
+    }
+
+    /**
+     * 获取所有会话的健康状态
+     * 
+     * @return 各设备的状态、重连次数与重连耗时，以及汇总统计
+     */
+    public Map<String, Object> getHealthStatus() {
+        Map<String, Object> sessions = new HashMap<>();
+        sessionManager.getActiveSessions().forEach((name, session) -> {
+            Map<String, Object> info = new HashMap<>();
+            info.put("state", session.getState());
+            info.put("sessionId", String.valueOf(session.getDriver().getSessionId()));
+            info.put("createdAt", session.getCreatedAt().toString());
+            info.put("lastHeartbeatAt",
+                    session.getLastHeartbeatAt() != null ? session.getLastHeartbeatAt().toString() : "");
+            info.put("reconnectCount", session.getReconnectCount());
+            info.put("lastReconnectMs", session.getLastReconnectMillis());
+            info.put("idleMs", System.currentTimeMillis() - session.getLastUsedMillis());
+            sessions.put(name, info);
+        });
+
+        Map<String, Object> status = new HashMap<>();
+        status.put("enabled", appiumConfig.getHealth().isEnabled());
+        status.put("intervalMs", appiumConfig.getHealth().getInterval());
+        status.put("heartbeatCount", heartbeatCount.get());
+        status.put("deadSessionCount", deadSessionCount.get());
+        status.put("reconnectSuccessCount", reconnectSuccessCount.get());
+        status.put("reconnectFailureCount", reconnectFailureCount.get());
+        status.put("sessions", sessions);
+        return status;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+        checkExecutor.shutdownNow();
+    }
+}
@@ -0,0 +1,220 @@
+package com.flyiu.ai.mcp.mobile.service.appium;
+
+import com.flyiu.ai.mcp.mobile.config.AppiumConfig;
+
+import io.appium.java_client.AppiumDriver;
+import io.appium.java_client.android.AndroidDriver;
+import io.appium.java_client.android.nativekey.AndroidKey;
+import io.appium.java_client.android.nativekey.KeyEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.openqa.selenium.UnsupportedCommandException;
+import org.openqa.selenium.WebDriverException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 整段文本输入
+ * 向当前获得焦点的输入框一次性发送整段文本，支持中文等任意Unicode字符。
+ * 按配置顺序尝试mobile: type、ADBKeyboard输入法广播、剪贴板粘贴、焦点元素sendKeys，
+ * 每台设备记住第一个成功的方式，之后直接使用；不可用的方式在会话重建前不再尝试。
+ * 只有驱动明确表示不支持某种方式时才换用下一种，其他错误说明文本可能已经输入了一部分，直接抛给调用方。
+ * 调用方需在设备命令队列中调用
+ */
+@Slf4j
+@Service
+public class TextInputService {
+
+    public static final String MOBILE_TYPE = "mobile-type";
+    public static final String ADB_IME = "adb-ime";
+    public static final String CLIPBOARD = "clipboard";
+    public static final String ACTIVE_ELEMENT = "active-element";
+
+    // ADBKeyboard输入法的包名
+    private static final String ADB_KEYBOARD = "com.android.adbkeyboard";
+
+    // 驱动不支持某种输入方式时错误信息中的关键字，此时命令没有执行，设备上没有输入任何文本
+    private static final List<String> UNSUPPORTED_SIGNALS = List.of(
+            "unknown mobile command", "unknown command", "unknown method", "not implemented", "not supported",
+            "unsupported", "relaxed-security", "adb_shell", "input method", "ime not");
+
+    private final AppiumConfig appiumConfig;
+
+    // 各设备的输入方式选择
+    private final Map<String, InputState> states = new ConcurrentHashMap<>();
+    // 各输入方式的使用次数
+    private final Map<String, AtomicLong> useCounts = new ConcurrentHashMap<>();
+    private final AtomicLong fallbackCount = new AtomicLong();
+
+    @Autowired
+    public TextInputService(AppiumConfig appiumConfig) {
+        this.appiumConfig = appiumConfig;
+    }
+
+    /**
+     * 向当前焦点输入框输入整段文本
+     *
+     * @param deviceName 设备名称
+     * @param driver     设备驱动
+     * @param text       要输入的文本
+     * @return 实际使用的输入方式
+     */
+    public String type(String deviceName, AppiumDriver driver, String text) {
+        InputState state = states.compute(deviceName,
+                (k, existing) -> existing != null && existing.driver == driver ? existing : new InputState(driver));
+
+        List<String> candidates = new ArrayList<>();
+        if (state.preferred != null) {
+            candidates.add(state.preferred);
+        }
+        for (String strategy : appiumConfig.getInput().getStrategies()) {
+            if (!candidates.contains(strategy)) {
+                candidates.add(strategy);
+            }
+        }
+
+        WebDriverException lastError = null;
+        for (String strategy : candidates) {
+            if (state.unavailable.contains(strategy)) {
+                continue;
+            }
+            if (!state.checked.contains(strategy)) {
+                if (!isSupported(driver, strategy)) {
+                    state.unavailable.add(strategy);
+                    continue;
+                }
+                state.checked.add(strategy);
+            }
+            try {
+                long start = System.currentTimeMillis();
+                apply(driver, strategy, text);
+                if (!strategy.equals(state.preferred)) {
+                    log.info("设备{}使用{}方式输入文本", deviceName, strategy);
+                    state.preferred = strategy;
+                }
+                useCounts.computeIfAbsent(strategy, k -> new AtomicLong()).incrementAndGet();
+                log.debug("输入文本: {}, 方式: {}, 长度: {}, 耗时: {}ms", deviceName, strategy, text.length(),
+                        System.currentTimeMillis() - start);
+                return strategy;
+            } catch (WebDriverException e) {
+                if (!isUnsupported(e)) {
+                    // 换一种方式会重复输入已经输入的部分
+                    throw e;
+                }
+                log.warn("设备{}不支持{}方式输入文本，尝试下一种方式: {}", deviceName, strategy, e.getMessage());
+                state.unavailable.add(strategy);
+                if (strategy.equals(state.preferred)) {
+                    state.preferred = null;
+                }
+                fallbackCount.incrementAndGet();
+                lastError = e;
+            }
+        }
+        throw new UnsupportedOperationException("设备没有可用的文本输入方式: " + deviceName, lastError);
+    }
+
+    /**
+     * 获取输入方式统计信息
+     */
+    public Map<String, Object> getInputStatus() {
+        Map<String, Object> devices = new HashMap<>();
+        states.forEach((deviceName, state) -> {
+            Map<String, Object> info = new HashMap<>();
+            info.put("preferred", state.preferred);
+            info.put("unavailable", List.copyOf(state.unavailable));
+            devices.put(deviceName, info);
+        });
+
+        Map<String, Object> uses = new HashMap<>();
+        useCounts.forEach((strategy, count) -> uses.put(strategy, count.get()));
+
+        Map<String, Object> status = new HashMap<>();
+        status.put("strategies", appiumConfig.getInput().getStrategies());
+        status.put("useCounts", uses);
+        status.put("fallbackCount", fallbackCount.get());
+        status.put("devices", devices);
+        return status;
+    }
+
+    // 检查驱动是否具备该输入方式的前提条件，只在每个会话第一次使用时检查
+    private boolean isSupported(AppiumDriver driver, String strategy) {
+        return switch (strategy) {
+            case MOBILE_TYPE, CLIPBOARD -> driver instanceof AndroidDriver;
+            // 广播在没有接收者时也不会报错，需要确认ADBKeyboard是当前输入法
+            case ADB_IME -> driver instanceof AndroidDriver && isAdbKeyboardActive(driver);
+            case ACTIVE_ELEMENT -> true;
+            default -> {
+                log.warn("未知的文本输入方式: {}", strategy);
+                yield false;
+            }
+        };
+    }
+
+    private static boolean isUnsupported(WebDriverException e) {
+        if (e instanceof UnsupportedCommandException) {
+            return true;
+        }
+        // getMessage()附带了驱动和环境信息，只检查驱动返回的原始错误
+        String message = e.getRawMessage() == null ? "" : e.getRawMessage().toLowerCase(Locale.ROOT);
+        for (String signal : UNSUPPORTED_SIGNALS) {
+            if (message.contains(signal)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void apply(AppiumDriver driver, String strategy, String text) {
+        switch (strategy) {
+            case MOBILE_TYPE -> driver.executeScript("mobile: type", Map.of("text", text));
+            case ADB_IME -> driver.executeScript("mobile: shell", Map.of(
+                    "command", "am",
+                    "args", List.of("broadcast", "-a", "ADB_INPUT_B64", "--es", "msg",
+                            Base64.getEncoder().encodeToString(text.getBytes(StandardCharsets.UTF_8)))));
+            case CLIPBOARD -> {
+                AndroidDriver androidDriver = (AndroidDriver) driver;
+                androidDriver.setClipboardText(text);
+                androidDriver.pressKey(new KeyEvent(AndroidKey.PASTE));
+            }
+            case ACTIVE_ELEMENT -> driver.switchTo().activeElement().sendKeys(text);
+            default -> throw new IllegalArgumentException("未知的文本输入方式: " + strategy);
+        }
+    }
+
+    private boolean isAdbKeyboardActive(AppiumDriver driver) {
+        try {
+            Object result = driver.executeScript("mobile: shell", Map.of(
+                    "command", "settings",
+                    "args", List.of("get", "secure", "default_input_method")));
+            return result != null && result.toString().contains(ADB_KEYBOARD);
+        } catch (WebDriverException e) {
+            // 未开启--relaxed-security时无法执行shell
+            return false;
+        }
+    }
+
+    /**
+     * 单台设备的输入方式选择，会话重建后重新选择
+     */
+    private static class InputState {
+
+        private final AppiumDriver driver;
+        private final Set<String> checked = ConcurrentHashMap.newKeySet();
+        private final Set<String> unavailable = ConcurrentHashMap.newKeySet();
+        private volatile String preferred;
+
+        InputState(AppiumDriver driver) {
+            this.driver = driver;
+        }
+    }
+}
@@ -2,8 +2,12 @@ package com.flyiu.ai.mcp.mobile.service.appium;
 
 import org.openqa.selenium.By;
 import org.openqa.selenium.OutputType;
+import org.openqa.selenium.WebElement;
+
+import com.flyiu.ai.mcp.mobile.model.WaitPolicy;
 
 import java.io.File;
+import java.util.Optional;
 
 /**
  * 微信搜索测试类，继承自BaseTest，添加微信搜索CVL的功能
@@ -22,7 +26,7 @@ public class WeChatSearchTest extends BaseTest {
             openWeChat();
             
             System.out.println("等待微信主页面加载完成...");
-            Thread.sleep(2000);
+            waitForStable();
             
             // 点击右上角搜索按钮 (资源ID可能需要根据实际情况调整)
             // 首先尝试通过资源ID查找搜索按钮
@@ -37,10 +41,12 @@ public class WeChatSearchTest extends BaseTest {
                     "com.tencent.mm:id/search" // 通用名称
                 };
                 
+                // 每个候选只查找一次，不存在时立即尝试下一个
                 boolean buttonFound = false;
                 for (String id : searchButtonIds) {
-                    if (isElementPresent(By.id(id))) {
-                        driver.findElement(By.id(id)).click();
+                    Optional<WebElement> button = findElement(By.id(id), WaitPolicy.IMMEDIATE);
+                    if (button.isPresent()) {
+                        button.get().click();
                         System.out.println("成功点击搜索按钮 (ID: " + id + ")");
                         buttonFound = true;
                         break;
@@ -49,11 +55,14 @@ public class WeChatSearchTest extends BaseTest {
                 
                 // 如果通过ID找不到，尝试通过描述或内容描述查找
                 if (!buttonFound) {
-                    if (isElementPresent(By.xpath("//*[@content-desc='搜索']"))) {
-                        driver.findElement(By.xpath("//*[@content-desc='搜索']")).click();
+                    Optional<WebElement> byDesc = findElement(By.xpath("//*[@content-desc='搜索']"), WaitPolicy.IMMEDIATE);
+                    Optional<WebElement> byText = byDesc.isPresent() ? Optional.empty()
+                            : findElement(By.xpath("//*[@text='搜索']"), WaitPolicy.IMMEDIATE);
+                    if (byDesc.isPresent()) {
+                        byDesc.get().click();
                         System.out.println("通过content-desc找到并点击搜索按钮");
-                    } else if (isElementPresent(By.xpath("//*[@text='搜索']"))) {
-                        driver.findElement(By.xpath("//*[@text='搜索']")).click();
+                    } else if (byText.isPresent()) {
+                        byText.get().click();
                         System.out.println("通过text找到并点击搜索按钮");
                     } else {
                         System.out.println("无法找到搜索按钮，请手动检查最新的微信界面元素");
@@ -71,7 +80,7 @@ public class WeChatSearchTest extends BaseTest {
             
             // 等待搜索框出现
             System.out.println("等待搜索框出现...");
-            Thread.sleep(2000);
+            waitForStable();
             
             // 尝试在可能的搜索框元素中输入关键词
             try {
@@ -84,8 +93,9 @@ public class WeChatSearchTest extends BaseTest {
                 
                 boolean inputFound = false;
                 for (String id : searchBoxIds) {
-                    if (isElementPresent(By.id(id))) {
-                        driver.findElement(By.id(id)).sendKeys(keyword);
+                    Optional<WebElement> input = findElement(By.id(id), WaitPolicy.IMMEDIATE);
+                    if (input.isPresent()) {
+                        input.get().sendKeys(keyword);
                         System.out.println("成功在搜索框中输入: " + keyword);
                         inputFound = true;
                         break;
@@ -94,11 +104,15 @@ public class WeChatSearchTest extends BaseTest {
                 
                 // 如果通过ID找不到搜索框，尝试通过其他方式
                 if (!inputFound) {
-                    if (isElementPresent(By.xpath("//*[@resource-id='com.tencent.mm:id/android:id/search_src_text']"))) {
-                        driver.findElement(By.xpath("//*[@resource-id='com.tencent.mm:id/android:id/search_src_text']")).sendKeys(keyword);
+                    Optional<WebElement> byCompositeId = findElement(
+                            By.xpath("//*[@resource-id='com.tencent.mm:id/android:id/search_src_text']"), WaitPolicy.IMMEDIATE);
+                    Optional<WebElement> byClass = byCompositeId.isPresent() ? Optional.empty()
+                            : findElement(By.xpath("//android.widget.EditText"), WaitPolicy.IMMEDIATE);
+                    if (byCompositeId.isPresent()) {
+                        byCompositeId.get().sendKeys(keyword);
                         System.out.println("通过复合ID找到并输入关键词");
-                    } else if (isElementPresent(By.xpath("//android.widget.EditText"))) {
-                        driver.findElement(By.xpath("//android.widget.EditText")).sendKeys(keyword);
+                    } else if (byClass.isPresent()) {
+                        byClass.get().sendKeys(keyword);
                         System.out.println("通过EditText类型找到并输入关键词");
                     } else {
                         System.out.println("无法找到搜索输入框，请手动检查最新的微信界面元素");
@@ -116,7 +130,7 @@ public class WeChatSearchTest extends BaseTest {
             
             // 等待搜索结果显示
             System.out.println("等待搜索结果加载...");
-            Thread.sleep(3000);
+            waitForStable();
             
             // 截图保存结果
             File screenshot = driver.getScreenshotAs(OutputType.FILE);
@@ -72,8 +72,8 @@ public class WeChatTest extends BaseTest {
             // 先执行搜索
             search(username);
             
-            // 等待搜索结果加载（等待2秒）
-            Thread.sleep(2000);
+            // 等待搜索结果加载
+            waitForStable();
             
             // 等待搜索结果出现
             if (waitForElement(SEARCH_RESULT_ITEMS, 10)) {
@@ -86,7 +86,7 @@ public class WeChatTest extends BaseTest {
                     System.out.println("点击了搜索结果: " + username);
                     
                     // 等待聊天页面加载
-                    Thread.sleep(2000);
+                    waitForStable();
                     
                     // 验证是否进入了聊天页面（通过检查消息输入框是否存在）
                     if (waitForElement(MESSAGE_INPUT, 5)) {
@@ -160,12 +160,12 @@ public class WeChatTest extends BaseTest {
             if (!isElementPresent(CHAT_TAB) && !isElementPresent(DISCOVER_TAB)) {
                 openWeChat();
                 // 等待微信完全加载
-                Thread.sleep(3000);
+                waitForStable();
             }
             
             // 切换到聊天标签页
             switchToTab("聊天");
-            Thread.sleep(1000);
+            waitForStable();
             
             // 搜索并进入与用户的聊天
             if (searchAndEnterChat(username)) {
@@ -173,8 +173,8 @@ public class WeChatTest extends BaseTest {
                 if (sendMessage(message)) {
                     System.out.println("成功向 " + username + " 发送消息: " + message);
                     
-                    // 等待一会，确保消息发送成功
-                    Thread.sleep(2000);
+                    // 等待消息发送完成
+                    waitForStable();
                 } else {
                     System.out.println("向 " + username + " 发送消息失败");
                 }
@@ -0,0 +1,138 @@
+package com.flyiu.ai.mcp.mobile.service.vision;
+
+import com.flyiu.ai.mcp.mobile.config.VisionConfig;
+
+import dev.langchain4j.http.client.jdk.JdkHttpClient;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.openai.OpenAiChatModel;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 视觉大模型客户端
+ * 启动时只创建一次聊天模型，底层共用同一个HttpClient，连接保持复用，
+ * 不再每次识别截图都重新建立客户端和TLS连接。
+ * 同时进行的请求数受vision.max-concurrency限制，超出的请求排队等待，
+ * 等待超过vision.acquire-timeout时直接失败，避免大量请求同时压到模型服务上
+ */
+@Slf4j
+@Component
+public class VisionChatClient {
+
+    private final VisionConfig visionConfig;
+
+    @Value("${spring.ai.openai.api-key:xxxxxxxxxxxx}")
+    private String apiKey;
+
+    @Value("${spring.ai.openai.base-url:https://dashscope.aliyuncs.com/compatible-mode/v1}")
+    private String baseUrl;
+
+    @Value("${spring.ai.openai.chat.options.model:qwen-vl-plus}")
+    private String model;
+
+    private OpenAiChatModel chatModel;
+    private Semaphore permits;
+
+    private final AtomicLong requestCount = new AtomicLong();
+    private final AtomicLong failureCount = new AtomicLong();
+    private final AtomicLong rejectedCount = new AtomicLong();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong totalLatency = new AtomicLong();
+    private final AtomicLong maxLatency = new AtomicLong();
+    private final AtomicLong totalQueueWait = new AtomicLong();
+
+    @Autowired
+    public VisionChatClient(VisionConfig visionConfig) {
+        this.visionConfig = visionConfig;
+    }
+
+    @PostConstruct
+    public void init() {
+        Duration connectTimeout = Duration.ofMillis(visionConfig.getConnectTimeout());
+        Duration readTimeout = Duration.ofMillis(visionConfig.getReadTimeout());
+        HttpClient.Builder httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(connectTimeout);
+
+        chatModel = OpenAiChatModel.builder()
+                .apiKey(apiKey)
+                .baseUrl(baseUrl)
+                .modelName(model)
+                .httpClientBuilder(JdkHttpClient.builder()
+                        .httpClientBuilder(httpClient)
+                        .connectTimeout(connectTimeout)
+                        .readTimeout(readTimeout))
+                .build();
+        permits = new Semaphore(Math.max(1, visionConfig.getMaxConcurrency()), true);
+        log.info("视觉模型客户端初始化完成: {}, 模型: {}, 最大并发: {}", baseUrl, model, visionConfig.getMaxConcurrency());
+    }
+
+    /**
+     * 发送聊天请求，并发已满时排队等待
+     *
+     * @param request 聊天请求
+     * @return 模型响应
+     */
+    public ChatResponse chat(ChatRequest request) {
+        long queued = System.currentTimeMillis();
+        try {
+            if (!permits.tryAcquire(visionConfig.getAcquireTimeout(), TimeUnit.MILLISECONDS)) {
+                rejectedCount.incrementAndGet();
+                throw new IllegalStateException("视觉模型请求排队超时，当前并发: " + inFlight.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("等待视觉模型请求被中断", e);
+        }
+
+        long start = System.currentTimeMillis();
+        totalQueueWait.addAndGet(start - queued);
+        inFlight.incrementAndGet();
+        requestCount.incrementAndGet();
+        try {
+            return chatModel.chat(request);
+        } catch (RuntimeException e) {
+            failureCount.incrementAndGet();
+            throw e;
+        } finally {
+            long latency = System.currentTimeMillis() - start;
+            totalLatency.addAndGet(latency);
+            maxLatency.accumulateAndGet(latency, Math::max);
+            inFlight.decrementAndGet();
+            permits.release();
+            log.debug("视觉模型请求完成, 排队: {}ms, 耗时: {}ms", start - queued, latency);
+        }
+    }
+
+    /**
+     * 获取视觉模型客户端统计信息
+     */
+    public Map<String, Object> getVisionStatus() {
+        long requests = requestCount.get();
+        Map<String, Object> status = new HashMap<>();
+        status.put("model", model);
+        status.put("maxConcurrency", visionConfig.getMaxConcurrency());
+        status.put("inFlight", inFlight.get());
+        status.put("waiting", permits.getQueueLength());
+        status.put("requestCount", requests);
+        status.put("failureCount", failureCount.get());
+        status.put("rejectedCount", rejectedCount.get());
+        status.put("avgLatency", requests == 0 ? 0 : totalLatency.get() / requests);
+        status.put("maxLatency", maxLatency.get());
+        status.put("avgQueueWait", requests == 0 ? 0 : totalQueueWait.get() / requests);
+        return status;
+    }
+}
@@ -4,10 +4,14 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.ToIntFunction;
 
 import org.openqa.selenium.By;
+import org.openqa.selenium.Rectangle;
 import org.openqa.selenium.WebElement;
 
+import com.flyiu.ai.mcp.mobile.model.PageSnapshot;
+import com.flyiu.ai.mcp.mobile.model.WaitPolicy;
 import com.google.gson.Gson;
 
 import io.appium.java_client.AppiumDriver;
@@ -47,9 +51,13 @@ public class AndroidPageUtils {
     }
 
     public static List<Map<String, Object>> getLocalElements(AppiumDriver driver) {
-        List<WebElement> localelements = driver.findElements(By.className("android.widget.TextView"));
-        List<WebElement> editTextElements = driver.findElements(By.className("android.widget.EditText"));
-        List<WebElement> imageElements = driver.findElements(By.className("android.widget.ImageView"));
+        return getLocalElements(driver, WaitPolicy.IMMEDIATE);
+    }
+
+    public static List<Map<String, Object>> getLocalElements(AppiumDriver driver, WaitPolicy policy) {
+        List<WebElement> localelements = ElementLookup.findAll(driver, By.className("android.widget.TextView"), policy);
+        List<WebElement> editTextElements = ElementLookup.findAll(driver, By.className("android.widget.EditText"), policy);
+        List<WebElement> imageElements = ElementLookup.findAll(driver, By.className("android.widget.ImageView"), policy);
 
         List<Map<String, Object>> elements = new ArrayList<>();
         for (WebElement element : localelements) {
@@ -90,9 +98,13 @@ public class AndroidPageUtils {
     }
 
     public static String getLocalString(AppiumDriver driver, String prompt) {
-        List<WebElement> localelements = driver.findElements(By.className("android.widget.TextView"));
-        List<WebElement> editTextElements = driver.findElements(By.className("android.widget.EditText"));
-        List<WebElement> imageElements = driver.findElements(By.className("android.widget.ImageView"));
+        return getLocalString(driver, prompt, WaitPolicy.IMMEDIATE);
+    }
+
+    public static String getLocalString(AppiumDriver driver, String prompt, WaitPolicy policy) {
+        List<WebElement> localelements = ElementLookup.findAll(driver, By.className("android.widget.TextView"), policy);
+        List<WebElement> editTextElements = ElementLookup.findAll(driver, By.className("android.widget.EditText"), policy);
+        List<WebElement> imageElements = ElementLookup.findAll(driver, By.className("android.widget.ImageView"), policy);
 
         String copilotPrompt = "";
         if (localelements.size() > 0) {
@@ -108,4 +120,107 @@ public class AndroidPageUtils {
         return prompt;
     }
 
+    private static final String TEXT_VIEW = "android.widget.TextView";
+    private static final String EDIT_TEXT = "android.widget.EditText";
+    private static final String IMAGE_VIEW = "android.widget.ImageView";
+
+    /**
+     * 从页面快照生成参考定位信息，输出格式与按元素逐个查询时相同
+     */
+    public static String getNodePrompt(List<PageSnapshot.Node> nodes, int length) {
+        StringBuffer prompt = new StringBuffer();
+        for (int i = 0; i < nodes.size(); i++) {
+            PageSnapshot.Node node = nodes.get(i);
+            String type = node.getClassName();
+            if (type.contains(IMAGE_VIEW)) {
+                prompt.append("\n {text: " + node.getText() + ", type: " + type + ", bounds: "
+                        + gson.toJson(toRect(node)) + ", resourceId: " + node.getResourceId() + "}");
+            } else if (type.contains(TEXT_VIEW) || type.contains(EDIT_TEXT)) {
+                prompt.append("\n {text: " + node.getText() + ", type: " + type + ", bounds: "
+                        + gson.toJson(toRect(node)) + "}");
+            }
+            length--;
+            if (length <= 0) {
+                break;
+            }
+        }
+        return prompt.toString();
+    }
+
+    /**
+     * 从页面快照获取文本、输入框、图片元素，输出格式与按元素逐个查询时相同
+     */
+    public static List<Map<String, Object>> getLocalElements(PageSnapshot snapshot) {
+        return getLocalElements(snapshot, null);
+    }
+
+    /**
+     * 从页面快照获取文本、输入框、图片元素，并为每个元素附加elementId
+     *
+     * @param snapshot 页面快照
+     * @param ids      为节点分配元素ID，为null时不附加
+     */
+    public static List<Map<String, Object>> getLocalElements(PageSnapshot snapshot,
+            ToIntFunction<PageSnapshot.Node> ids) {
+        List<Map<String, Object>> elements = new ArrayList<>();
+        for (PageSnapshot.Node node : snapshot.findByClass(TEXT_VIEW)) {
+            Map<String, Object> elementMap = new HashMap<>();
+            elementMap.put("text", node.getText());
+            elementMap.put("type", "text");
+            elementMap.put("bounds", toRect(node));
+            putId(elementMap, ids, node);
+            elements.add(elementMap);
+        }
+        for (PageSnapshot.Node node : snapshot.findByClass(EDIT_TEXT)) {
+            Map<String, Object> elementMap = new HashMap<>();
+            elementMap.put("text", node.getText());
+            elementMap.put("type", "editText");
+            elementMap.put("bounds", toRect(node));
+            putId(elementMap, ids, node);
+            elements.add(elementMap);
+        }
+        for (PageSnapshot.Node node : snapshot.findByClass(IMAGE_VIEW)) {
+            Map<String, Object> elementMap = new HashMap<>();
+            elementMap.put("text", node.getText());
+            elementMap.put("type", "image");
+            elementMap.put("bounds", toRect(node));
+            elementMap.put("resourceId", node.getResourceId());
+            putId(elementMap, ids, node);
+            elements.add(elementMap);
+        }
+        return elements;
+    }
+
+    private static void putId(Map<String, Object> elementMap, ToIntFunction<PageSnapshot.Node> ids,
+            PageSnapshot.Node node) {
+        if (ids != null) {
+            elementMap.put("elementId", ids.applyAsInt(node));
+        }
+    }
+
+    /**
+     * 在提示词后追加从页面快照获取的参考定位信息
+     */
+    public static String getLocalString(PageSnapshot snapshot, String prompt) {
+        List<PageSnapshot.Node> textElements = snapshot.findByClass(TEXT_VIEW);
+
+        String copilotPrompt = "";
+        if (textElements.size() > 0) {
+            copilotPrompt = "我通过本地识别，获取了当前文本的定位信息。你用做参考定位：\n";
+        }
+
+        copilotPrompt += getNodePrompt(textElements, 20);
+        copilotPrompt += getNodePrompt(snapshot.findByClass(EDIT_TEXT), 20);
+        copilotPrompt += getNodePrompt(snapshot.findByClass(IMAGE_VIEW), 50);
+        if (copilotPrompt.length() > 0) {
+            prompt += "\n\n" + copilotPrompt;
+        }
+        return prompt;
+    }
+
+    // 快照节点的位置与大小，与WebElement.getRect()相同
+    public static Rectangle toRect(PageSnapshot.Node node) {
+        return new Rectangle(node.getX(), node.getY(), node.getHeight(), node.getWidth());
+    }
+
 }
@@ -0,0 +1,95 @@
+package com.flyiu.ai.mcp.mobile.util;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.SearchContext;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.WebElement;
+
+import com.flyiu.ai.mcp.mobile.model.WaitPolicy;
+
+/**
+ * 按等待策略查找元素
+ * 依赖会话隐式等待为0，每次findElements都会立即返回，由这里按策略轮询
+ */
+public class ElementLookup {
+
+    /**
+     * 查找所有匹配的元素，在超时前找到至少一个即返回
+     *
+     * @param context 驱动或父元素
+     * @param locator 元素定位器
+     * @param policy  等待策略
+     * @return 匹配的元素，超时仍未找到时为空列表
+     */
+    public static List<WebElement> findAll(SearchContext context, By locator, WaitPolicy policy) {
+        long deadline = System.currentTimeMillis() + policy.getTimeout().toMillis();
+        WebDriverException lastError = null;
+        while (true) {
+            try {
+                List<WebElement> elements = context.findElements(locator);
+                if (!elements.isEmpty()) {
+                    return elements;
+                }
+            } catch (NoSuchElementException | StaleElementReferenceException e) {
+                // 页面变化中，继续轮询
+            } catch (WebDriverException e) {
+                if (policy.isFailFast()) {
+                    throw e;
+                }
+                lastError = e;
+            }
+
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                if (lastError != null) {
+                    throw lastError;
+                }
+                return List.of();
+            }
+            sleep(Math.min(remaining, Math.max(10, policy.getPollInterval().toMillis())));
+        }
+    }
+
+    /**
+     * 查找第一个匹配的元素
+     *
+     * @param context 驱动或父元素
+     * @param locator 元素定位器
+     * @param policy  等待策略
+     * @return 匹配的元素，超时仍未找到时为空
+     */
+    public static Optional<WebElement> find(SearchContext context, By locator, WaitPolicy policy) {
+        return findAll(context, locator, policy).stream().findFirst();
+    }
+
+    /**
+     * 查找第一个匹配的元素，超时仍未找到时抛出NoSuchElementException
+     *
+     * @param context 驱动或父元素
+     * @param locator 元素定位器
+     * @param policy  等待策略
+     * @return 匹配的元素
+     */
+    public static WebElement require(SearchContext context, By locator, WaitPolicy policy) {
+        return find(context, locator, policy)
+                .orElseThrow(() -> new NoSuchElementException("在" + policy.getTimeout().toMillis()
+                        + "ms内未找到元素: " + locator));
+    }
+
+    private static void sleep(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new WebDriverException("等待元素被中断", e);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.flyiu.ai.mcp.mobile.util;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.openqa.selenium.interactions.Pause;
+import org.openqa.selenium.interactions.PointerInput;
+import org.openqa.selenium.interactions.Sequence;
+
+import com.flyiu.ai.mcp.mobile.model.ActionStep;
+
+/**
+ * 将点击、长按、滑动与停顿编译为W3C触摸动作序列
+ * 多个手势放在同一根手指的序列中依次执行，一次performActions调用完成，
+ * 代替每个手势一次mobile: clickGesture / swipeGesture请求
+ */
+public class GestureActions {
+
+    // 点击时按下与抬起之间的停顿
+    private static final Duration TAP_HOLD = Duration.ofMillis(50);
+    private static final int DEFAULT_LONG_PRESS = 800;
+    private static final int DEFAULT_SWIPE = 300;
+
+    /**
+     * 将一组非按键操作编译为一根手指的动作序列
+     *
+     * @param steps 操作列表，不能包含按键
+     * @return 动作序列
+     */
+    public static Sequence toSequence(List<ActionStep> steps) {
+        PointerInput finger = new PointerInput(PointerInput.Kind.TOUCH, "finger");
+        Sequence sequence = new Sequence(finger, 0);
+        for (ActionStep step : steps) {
+            String type = step.type() == null ? "" : step.type().toLowerCase();
+            switch (type) {
+                case "tap" -> {
+                    moveTo(sequence, finger, Duration.ZERO, requireX(step), requireY(step));
+                    sequence.addAction(finger.createPointerDown(PointerInput.MouseButton.LEFT.asArg()));
+                    sequence.addAction(new Pause(finger, TAP_HOLD));
+                    sequence.addAction(finger.createPointerUp(PointerInput.MouseButton.LEFT.asArg()));
+                }
+                case "longpress" -> {
+                    moveTo(sequence, finger, Duration.ZERO, requireX(step), requireY(step));
+                    sequence.addAction(finger.createPointerDown(PointerInput.MouseButton.LEFT.asArg()));
+                    sequence.addAction(new Pause(finger, duration(step, DEFAULT_LONG_PRESS)));
+                    sequence.addAction(finger.createPointerUp(PointerInput.MouseButton.LEFT.asArg()));
+                }
+                case "swipe" -> {
+                    if (step.endX() == null || step.endY() == null) {
+                        throw new IllegalArgumentException("swipe需要指定endX和endY");
+                    }
+                    moveTo(sequence, finger, Duration.ZERO, requireX(step), requireY(step));
+                    sequence.addAction(finger.createPointerDown(PointerInput.MouseButton.LEFT.asArg()));
+                    moveTo(sequence, finger, duration(step, DEFAULT_SWIPE), step.endX(), step.endY());
+                    sequence.addAction(finger.createPointerUp(PointerInput.MouseButton.LEFT.asArg()));
+                }
+                case "pause" -> sequence.addAction(new Pause(finger, duration(step, 0)));
+                default -> throw new IllegalArgumentException("不支持的触摸操作: " + step.type()
+                        + "，支持的操作: tap, longPress, swipe, pause");
+            }
+        }
+        return sequence;
+    }
+
+    private static void moveTo(Sequence sequence, PointerInput finger, Duration duration, int x, int y) {
+        sequence.addAction(finger.createPointerMove(duration, PointerInput.Origin.viewport(), x, y));
+    }
+
+    private static Duration duration(ActionStep step, int defaultMillis) {
+        int millis = step.duration() != null ? step.duration() : defaultMillis;
+        if (millis < 0) {
+            throw new IllegalArgumentException("持续时间不能为负数: " + millis);
+        }
+        return Duration.ofMillis(millis);
+    }
+
+    private static int requireX(ActionStep step) {
+        if (step.x() == null) {
+            throw new IllegalArgumentException(step.type() + "需要指定x坐标");
+        }
+        return step.x();
+    }
+
+    private static int requireY(ActionStep step) {
+        if (step.y() == null) {
+            throw new IllegalArgumentException(step.type() + "需要指定y坐标");
+        }
+        return step.y();
+    }
+}
@@ -0,0 +1,232 @@
+package com.flyiu.ai.mcp.mobile.util;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import org.openqa.selenium.By;
+
+import com.flyiu.ai.mcp.mobile.model.PageSnapshot;
+
+/**
+ * 根据页面快照为节点生成可复用的定位器
+ * 全部在本地完成，不访问设备。生成的每个定位器都在同一份快照上检查过唯一性，
+ * 优先使用resource-id、content-desc、UiSelector等较短的定位器，最后回退到带序号的绝对XPath。
+ * XCUITest页面没有resource-id和UiSelector，改用accessibility id（name）以及@name、@label、@value的XPath
+ */
+public class LocatorDeriver {
+
+    private static final String XCUITEST_ROOT = "AppiumAUT";
+    private static final String XCUITEST_TYPE_PREFIX = "XCUIElementType";
+
+    /**
+     * 生成能唯一定位节点的最短定位器
+     *
+     * @param snapshot 页面快照
+     * @param node     目标节点
+     * @return 定位器，type为id、accessibility、uiautomator或xpath，value为定位值
+     */
+    public static Map<String, String> deriveLocator(PageSnapshot snapshot, PageSnapshot.Node node) {
+        Map<String, String> locator = new HashMap<>();
+        if (!isXcuiTest(snapshot) && isUnique(snapshot.findByResourceId(node.getResourceId()))) {
+            locator.put("type", "id");
+            locator.put("value", node.getResourceId());
+        } else if (isUnique(snapshot.findByContentDesc(node.getContentDesc()))) {
+            // UiAutomator2中对应content-desc，XCUITest中对应name
+            locator.put("type", "accessibility");
+            locator.put("value", node.getContentDesc());
+        } else {
+            String uiSelector = deriveUiSelector(snapshot, node);
+            if (uiSelector != null) {
+                locator.put("type", "uiautomator");
+                locator.put("value", uiSelector);
+            } else {
+                locator.put("type", "xpath");
+                locator.put("value", deriveXPath(snapshot, node));
+            }
+        }
+        return locator;
+    }
+
+    /**
+     * 生成能唯一定位节点的UiSelector
+     *
+     * @param snapshot 页面快照
+     * @param node     目标节点
+     * @return UiSelector表达式，按resource-id、text、content-desc及其与class的组合都不唯一，
+     *         或者是XCUITest页面时返回null
+     */
+    public static String deriveUiSelector(PageSnapshot snapshot, PageSnapshot.Node node) {
+        if (isXcuiTest(snapshot)) {
+            return null;
+        }
+        if (isUnique(snapshot.findByResourceId(node.getResourceId()))) {
+            return "new UiSelector().resourceId(" + javaLiteral(node.getResourceId()) + ")";
+        }
+        if (isUnique(snapshot.findByText(node.getText()))) {
+            return "new UiSelector().text(" + javaLiteral(node.getText()) + ")";
+        }
+        if (isUnique(snapshot.findByContentDesc(node.getContentDesc()))) {
+            return "new UiSelector().description(" + javaLiteral(node.getContentDesc()) + ")";
+        }
+        if (!node.getText().isEmpty() && countWithClass(snapshot.findByText(node.getText()), node) == 1) {
+            return "new UiSelector().className(" + javaLiteral(node.getClassName()) + ").text("
+                    + javaLiteral(node.getText()) + ")";
+        }
+        return null;
+    }
+
+    /**
+     * 生成能唯一定位节点的最短XPath
+     * 依次尝试resource-id、content-desc、text、class与text组合，
+     * 再尝试从最近的resource-id唯一的祖先节点出发的相对路径，最后使用绝对路径。
+     * XCUITest页面改用name、label、value以及name唯一的祖先节点
+     *
+     * @param snapshot 页面快照
+     * @param node     目标节点
+     * @return XPath
+     */
+    public static String deriveXPath(PageSnapshot snapshot, PageSnapshot.Node node) {
+        if (isXcuiTest(snapshot)) {
+            return deriveXcuiTestXPath(snapshot, node);
+        }
+        if (isUnique(snapshot.findByResourceId(node.getResourceId()))) {
+            return "//*[@resource-id=" + xpathLiteral(node.getResourceId()) + "]";
+        }
+        if (isUnique(snapshot.findByContentDesc(node.getContentDesc()))) {
+            return "//*[@content-desc=" + xpathLiteral(node.getContentDesc()) + "]";
+        }
+        if (isUnique(snapshot.findByText(node.getText()))) {
+            return "//*[@text=" + xpathLiteral(node.getText()) + "]";
+        }
+        if (!node.getText().isEmpty() && countWithClass(snapshot.findByText(node.getText()), node) == 1) {
+            return "//" + node.getTag() + "[@text=" + xpathLiteral(node.getText()) + "]";
+        }
+
+        return anchoredXPath(snapshot, node, ancestor -> isUnique(snapshot.findByResourceId(ancestor.getResourceId()))
+                ? "//*[@resource-id=" + xpathLiteral(ancestor.getResourceId()) + "]"
+                : null);
+    }
+
+    // XCUITest源码中name解析为content-desc，value或label解析为text，快照里不区分后两者，逐个在快照上验证
+    private static String deriveXcuiTestXPath(PageSnapshot snapshot, PageSnapshot.Node node) {
+        if (isUnique(snapshot.findByContentDesc(node.getContentDesc()))) {
+            return "//*[@name=" + xpathLiteral(node.getContentDesc()) + "]";
+        }
+        if (!node.getText().isEmpty()) {
+            for (String attribute : List.of("label", "value")) {
+                String predicate = "[@" + attribute + "=" + xpathLiteral(node.getText()) + "]";
+                for (String xpath : List.of("//*" + predicate, "//" + node.getTag() + predicate)) {
+                    if (locatesOnly(snapshot, xpath, node)) {
+                        return xpath;
+                    }
+                }
+            }
+        }
+        return anchoredXPath(snapshot, node, ancestor -> isUnique(snapshot.findByContentDesc(ancestor.getContentDesc()))
+                ? "//*[@name=" + xpathLiteral(ancestor.getContentDesc()) + "]"
+                : null);
+    }
+
+    // 从最近的可唯一定位的祖先出发，anchor返回祖先的XPath，无法唯一定位时返回null
+    private static String anchoredXPath(PageSnapshot snapshot, PageSnapshot.Node node,
+            Function<PageSnapshot.Node, String> anchor) {
+        StringBuilder relative = new StringBuilder();
+        PageSnapshot.Node current = node;
+        PageSnapshot.Node parent = snapshot.getParent(current);
+        while (parent != null) {
+            relative.insert(0, step(snapshot, parent, current));
+            String anchorXPath = anchor.apply(parent);
+            if (anchorXPath != null) {
+                return anchorXPath + relative;
+            }
+            current = parent;
+            parent = snapshot.getParent(current);
+        }
+        return absoluteXPath(snapshot, node);
+    }
+
+    private static boolean locatesOnly(PageSnapshot snapshot, String xpath, PageSnapshot.Node node) {
+        SnapshotQuery query = SnapshotQuery.compile(By.xpath(xpath));
+        if (query == null) {
+            return false;
+        }
+        List<PageSnapshot.Node> matched = query.apply(snapshot);
+        return matched.size() == 1 && matched.get(0) == node;
+    }
+
+    // 按根节点区分XCUITest与UiAutomator2页面源码
+    private static boolean isXcuiTest(PageSnapshot snapshot) {
+        if (snapshot.size() == 0) {
+            return false;
+        }
+        String rootTag = snapshot.getNode(0).getTag();
+        return rootTag.equals(XCUITEST_ROOT) || rootTag.startsWith(XCUITEST_TYPE_PREFIX);
+    }
+
+    /**
+     * 生成节点的绝对XPath，每一层都带同标签兄弟节点中的序号，在快照中必然唯一
+     *
+     * @param snapshot 页面快照
+     * @param node     目标节点
+     * @return 绝对XPath
+     */
+    public static String absoluteXPath(PageSnapshot snapshot, PageSnapshot.Node node) {
+        Deque<String> steps = new ArrayDeque<>();
+        PageSnapshot.Node current = node;
+        PageSnapshot.Node parent = snapshot.getParent(current);
+        while (parent != null) {
+            steps.push(step(snapshot, parent, current));
+            current = parent;
+            parent = snapshot.getParent(current);
+        }
+        steps.push("/" + current.getTag());
+        return String.join("", steps);
+    }
+
+    // 子节点在父节点下的路径片段，序号从1开始，只统计同标签的兄弟节点
+    private static String step(PageSnapshot snapshot, PageSnapshot.Node parent, PageSnapshot.Node child) {
+        int position = 0;
+        for (PageSnapshot.Node sibling : snapshot.getChildren(parent)) {
+            if (sibling.getTag().equals(child.getTag())) {
+                position++;
+            }
+            if (sibling == child) {
+                break;
+            }
+        }
+        return "/" + child.getTag() + "[" + position + "]";
+    }
+
+    private static boolean isUnique(List<PageSnapshot.Node> nodes) {
+        return nodes.size() == 1;
+    }
+
+    private static int countWithClass(List<PageSnapshot.Node> nodes, PageSnapshot.Node node) {
+        int count = 0;
+        for (PageSnapshot.Node candidate : nodes) {
+            if (candidate.getTag().equals(node.getTag())) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // XPath 1.0字符串没有转义，同时包含单双引号时用concat拼接
+    private static String xpathLiteral(String value) {
+        if (!value.contains("'")) {
+            return "'" + value + "'";
+        }
+        if (!value.contains("\"")) {
+            return "\"" + value + "\"";
+        }
+        return "concat('" + value.replace("'", "', \"'\", '") + "')";
+    }
+
+    private static String javaLiteral(String value) {
+        return "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+}
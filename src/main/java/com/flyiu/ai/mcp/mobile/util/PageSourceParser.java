@@ -0,0 +1,242 @@
+package com.flyiu.ai.mcp.mobile.util;
+
+import java.io.StringReader;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+import org.xml.sax.InputSource;
+
+import com.flyiu.ai.mcp.mobile.model.PageSnapshot;
+
+/**
+ * 页面源码解析
+ * 使用StAX流式读取getPageSource返回的XML，不构建DOM，直接生成紧凑的快照节点，
+ * 只有复杂XPath查询才按需构建DOM。
+ * 兼容UiAutomator2（class、text、resource-id、content-desc、bounds）
+ * 与XCUITest（type、value/label、name、x/y/width/height、visible）两种源码格式
+ */
+public class PageSourceParser {
+
+    private static final XMLInputFactory FACTORY = createFactory();
+    private static final DocumentBuilderFactory DOCUMENT_FACTORY = createDocumentFactory();
+    private static final String INDEX_KEY = "index";
+
+    /**
+     * 解析页面源码
+     *
+     * @param pageSource 页面源码
+     * @param version    快照版本
+     * @return 页面快照
+     */
+    public static PageSnapshot parse(String pageSource, long version) {
+        List<PageSnapshot.Node> nodes = new ArrayList<>();
+        // 当前路径上各层节点的序号
+        Deque<Integer> path = new ArrayDeque<>();
+        XMLStreamReader reader = null;
+        try {
+            reader = FACTORY.createXMLStreamReader(new StringReader(pageSource));
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    int index = nodes.size();
+                    int parent = path.isEmpty() ? -1 : path.peek();
+                    nodes.add(toNode(reader, index, parent, path.size()));
+                    path.push(index);
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    path.pop();
+                }
+            }
+        } catch (XMLStreamException e) {
+            throw new IllegalArgumentException("解析页面源码失败: " + e.getMessage(), e);
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (XMLStreamException e) {
+                    // 忽略关闭异常
+                }
+            }
+        }
+        return new PageSnapshot(version, System.currentTimeMillis(), fingerprint(pageSource), nodes, pageSource);
+    }
+
+    /**
+     * 将页面源码解析为DOM，供完整XPath查询使用
+     * 元素按文档顺序编号并写入用户数据index，与快照节点序号一致
+     *
+     * @param pageSource 页面源码
+     * @return DOM文档
+     */
+    public static Document toDocument(String pageSource) {
+        try {
+            DocumentBuilder builder = DOCUMENT_FACTORY.newDocumentBuilder();
+            Document document = builder.parse(new InputSource(new StringReader(pageSource)));
+            int index = 0;
+            Deque<Element> pending = new ArrayDeque<>();
+            pending.push(document.getDocumentElement());
+            while (!pending.isEmpty()) {
+                Element element = pending.pop();
+                element.setUserData(INDEX_KEY, index++, null);
+                // 子元素逆序入栈，保证按文档顺序编号
+                NodeList children = element.getChildNodes();
+                for (int i = children.getLength() - 1; i >= 0; i--) {
+                    if (children.item(i) instanceof Element child) {
+                        pending.push(child);
+                    }
+                }
+            }
+            return document;
+        } catch (Exception e) {
+            throw new IllegalArgumentException("解析页面源码失败: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 获取DOM元素对应的快照节点序号
+     *
+     * @param node DOM节点
+     * @return 节点序号，不是元素或不属于toDocument生成的DOM时返回-1
+     */
+    public static int indexOf(org.w3c.dom.Node node) {
+        Object index = node.getUserData(INDEX_KEY);
+        return index instanceof Integer value ? value : -1;
+    }
+
+    /**
+     * 计算页面源码的64位指纹
+     *
+     * @param pageSource 页面源码
+     * @return 指纹
+     */
+    public static long fingerprint(String pageSource) {
+        // FNV-1a
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < pageSource.length(); i++) {
+            hash ^= pageSource.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    private static PageSnapshot.Node toNode(XMLStreamReader reader, int index, int parent, int depth) {
+        String tag = reader.getLocalName();
+        String className = firstNonEmpty(attr(reader, "class"), attr(reader, "type"), tag);
+        String text = firstNonEmpty(attr(reader, "text"), attr(reader, "value"), attr(reader, "label"), "");
+        String contentDesc = firstNonEmpty(attr(reader, "content-desc"), attr(reader, "name"), "");
+
+        int[] bounds = parseBounds(attr(reader, "bounds"));
+        if (bounds == null) {
+            bounds = new int[] { parseInt(attr(reader, "x")), parseInt(attr(reader, "y")),
+                    parseInt(attr(reader, "width")), parseInt(attr(reader, "height")) };
+        }
+
+        String displayed = attr(reader, "displayed");
+        if (displayed == null) {
+            displayed = attr(reader, "visible");
+        }
+
+        return new PageSnapshot.Node(index, parent, depth, tag, className, text,
+                firstNonEmpty(attr(reader, "resource-id"), ""),
+                contentDesc,
+                firstNonEmpty(attr(reader, "package"), ""),
+                bounds[0], bounds[1], bounds[2], bounds[3],
+                // 源码中没有可见性属性时视为可见
+                displayed == null || Boolean.parseBoolean(displayed),
+                attr(reader, "enabled") == null || Boolean.parseBoolean(attr(reader, "enabled")),
+                Boolean.parseBoolean(attr(reader, "clickable")),
+                Boolean.parseBoolean(attr(reader, "focused")),
+                Boolean.parseBoolean(attr(reader, "scrollable")),
+                Boolean.parseBoolean(attr(reader, "selected")),
+                Boolean.parseBoolean(attr(reader, "checked")));
+    }
+
+    // 解析UiAutomator2的bounds，格式为[x1,y1][x2,y2]，返回x、y、宽、高
+    private static int[] parseBounds(String bounds) {
+        if (bounds == null || bounds.isEmpty()) {
+            return null;
+        }
+        int[] values = new int[4];
+        int count = 0;
+        int current = 0;
+        boolean inNumber = false;
+        boolean negative = false;
+        for (int i = 0; i < bounds.length() && count < 4; i++) {
+            char c = bounds.charAt(i);
+            if (c >= '0' && c <= '9') {
+                current = current * 10 + (c - '0');
+                inNumber = true;
+            } else if (c == '-' && !inNumber) {
+                negative = true;
+            } else if (inNumber) {
+                values[count++] = negative ? -current : current;
+                current = 0;
+                inNumber = false;
+                negative = false;
+            }
+        }
+        if (inNumber && count < 4) {
+            values[count++] = negative ? -current : current;
+        }
+        if (count < 4) {
+            return null;
+        }
+        return new int[] { values[0], values[1], values[2] - values[0], values[3] - values[1] };
+    }
+
+    private static String attr(XMLStreamReader reader, String name) {
+        return reader.getAttributeValue(null, name);
+    }
+
+    private static String firstNonEmpty(String... values) {
+        for (String value : values) {
+            if (value != null && !value.isEmpty()) {
+                return value;
+            }
+        }
+        return values[values.length - 1];
+    }
+
+    private static int parseInt(String value) {
+        if (value == null || value.isEmpty()) {
+            return 0;
+        }
+        try {
+            return (int) Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static DocumentBuilderFactory createDocumentFactory() {
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        try {
+            factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+        } catch (Exception e) {
+            // 解析器不支持该特性时忽略
+        }
+        factory.setExpandEntityReferences(false);
+        factory.setNamespaceAware(false);
+        return factory;
+    }
+
+    private static XMLInputFactory createFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        // 页面源码不需要DTD和外部实体
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, false);
+        return factory;
+    }
+}
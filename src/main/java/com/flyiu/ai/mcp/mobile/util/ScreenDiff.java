@@ -0,0 +1,100 @@
+package com.flyiu.ai.mcp.mobile.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.flyiu.ai.mcp.mobile.model.PageSnapshot;
+
+/**
+ * 比较两次观察到的界面元素
+ * 元素以类型、resource-id、文本、content-desc及同身份元素中的出现次序作为身份，
+ * 身份只在一侧出现的为新增或移除，两侧都有但位置或大小不同的为移动
+ */
+public class ScreenDiff {
+
+    /**
+     * 提取快照中值得观察的元素：可见、有大小，且带文本、描述、id或可点击
+     *
+     * @param snapshot 页面快照
+     * @return 以身份为键、按文档顺序排列的元素
+     */
+    public static Map<String, PageSnapshot.Node> observe(PageSnapshot snapshot) {
+        Map<String, PageSnapshot.Node> elements = new LinkedHashMap<>();
+        Map<String, Integer> occurrences = new HashMap<>();
+        for (PageSnapshot.Node node : snapshot.getNodes()) {
+            if (!node.isDisplayed() || node.getWidth() <= 0 || node.getHeight() <= 0) {
+                continue;
+            }
+            if (node.getText().isEmpty() && node.getContentDesc().isEmpty() && node.getResourceId().isEmpty()
+                    && !node.isClickable()) {
+                continue;
+            }
+            String identity = node.getClassName() + "|" + node.getResourceId() + "|" + node.getText() + "|"
+                    + node.getContentDesc();
+            int occurrence = occurrences.merge(identity, 1, Integer::sum);
+            elements.put(identity + "#" + occurrence, node);
+        }
+        return elements;
+    }
+
+    /**
+     * 比较两次观察
+     *
+     * @param before 较早的观察
+     * @param after  较新的观察
+     * @return 变化
+     */
+    public static Delta diff(Map<String, PageSnapshot.Node> before, Map<String, PageSnapshot.Node> after) {
+        List<PageSnapshot.Node> added = new ArrayList<>();
+        List<PageSnapshot.Node> removed = new ArrayList<>();
+        List<Move> moved = new ArrayList<>();
+        int unchanged = 0;
+
+        for (Map.Entry<String, PageSnapshot.Node> entry : after.entrySet()) {
+            PageSnapshot.Node previous = before.get(entry.getKey());
+            PageSnapshot.Node current = entry.getValue();
+            if (previous == null) {
+                added.add(current);
+            } else if (previous.getX() != current.getX() || previous.getY() != current.getY()
+                    || previous.getWidth() != current.getWidth() || previous.getHeight() != current.getHeight()) {
+                moved.add(new Move(previous, current));
+            } else {
+                unchanged++;
+            }
+        }
+        for (Map.Entry<String, PageSnapshot.Node> entry : before.entrySet()) {
+            if (!after.containsKey(entry.getKey())) {
+                removed.add(entry.getValue());
+            }
+        }
+        return new Delta(added, removed, moved, unchanged);
+    }
+
+    /**
+     * 两次观察之间的变化
+     *
+     * @param added     新出现的元素
+     * @param removed   消失的元素
+     * @param moved     位置或大小变化的元素
+     * @param unchanged 未变化的元素数量
+     */
+    public record Delta(List<PageSnapshot.Node> added, List<PageSnapshot.Node> removed, List<Move> moved,
+            int unchanged) {
+
+        public boolean isEmpty() {
+            return added.isEmpty() && removed.isEmpty() && moved.isEmpty();
+        }
+    }
+
+    /**
+     * 移动的元素
+     *
+     * @param from 较早观察中的节点
+     * @param to   较新观察中的节点
+     */
+    public record Move(PageSnapshot.Node from, PageSnapshot.Node to) {
+    }
+}
@@ -0,0 +1,295 @@
+package com.flyiu.ai.mcp.mobile.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.xml.xpath.XPathConstants;
+import javax.xml.xpath.XPathExpression;
+import javax.xml.xpath.XPathExpressionException;
+import javax.xml.xpath.XPathFactory;
+
+import org.openqa.selenium.By;
+import org.w3c.dom.NodeList;
+
+import com.flyiu.ai.mcp.mobile.model.PageSnapshot;
+
+/**
+ * 在页面快照上执行的元素查询
+ * 支持id、class name、accessibility id定位器、XPath，以及由resourceId、text、description、className
+ * 等条件组成的UiSelector。
+ * 形如//tag、//tag[@attr='v']、//*[@a='v' or contains(@b,'v')]的简单XPath直接在快照节点上匹配，
+ * 其他XPath在页面源码的DOM上执行，其余定位器无法编译，调用方应回退到驱动查询
+ */
+public final class SnapshotQuery {
+
+    // 谓词中的单个条件: @attr='v' 或 contains(@attr,'v')
+    private static final Pattern CONDITION = Pattern.compile(
+            "\\s*(?:@([\\w-]+)\\s*=\\s*(['\"])(.*?)\\2|contains\\(\\s*@([\\w-]+)\\s*,\\s*(['\"])(.*?)\\5\\s*\\))\\s*");
+    private static final Pattern CONNECTIVE = Pattern.compile("(and|or)(?=[\\s@c])");
+    private static final Pattern TAG = Pattern.compile("\\*|[\\w.$]+");
+    // UiSelector中的单个条件: .method("value")
+    private static final Pattern SELECTOR_METHOD = Pattern.compile(
+            "\\s*\\.\\s*(\\w+)\\(\\s*\"((?:[^\"\\\\]|\\\\.)*)\"\\s*\\)\\s*");
+
+    private final String locator;
+    // 节点标签，null表示任意标签
+    private final String tag;
+    private final List<Condition> conditions;
+    // 条件之间是否为or关系
+    private final boolean any;
+    // By.id不含包名时的id，匹配任意包下的同名id
+    private final String bareId;
+    // 无法在快照节点上直接匹配的XPath，非线程安全，每个查询独占
+    private final XPathExpression expression;
+
+    private SnapshotQuery(String locator, String tag, List<Condition> conditions, boolean any, String bareId) {
+        this.locator = locator;
+        this.tag = tag;
+        this.conditions = conditions;
+        this.any = any;
+        this.bareId = bareId;
+        this.expression = null;
+    }
+
+    private SnapshotQuery(String locator, XPathExpression expression) {
+        this.locator = locator;
+        this.tag = null;
+        this.conditions = List.of();
+        this.any = false;
+        this.bareId = null;
+        this.expression = expression;
+    }
+
+    /**
+     * 将定位器编译为快照查询
+     *
+     * @param locator 元素定位器
+     * @return 快照查询，定位器不受支持时返回null
+     */
+    public static SnapshotQuery compile(By locator) {
+        if (!(locator instanceof By.Remotable remotable)) {
+            return null;
+        }
+        By.Remotable.Parameters parameters = remotable.getRemoteParameters();
+        if (!(parameters.value() instanceof String value)) {
+            return null;
+        }
+
+        String description = locator.toString();
+        switch (parameters.using()) {
+            case "id":
+                if (value.contains(":id/")) {
+                    return new SnapshotQuery(description, null, List.of(new Condition("resource-id", value, false)),
+                            false, null);
+                }
+                return new SnapshotQuery(description, null, List.of(), false, value);
+            case "class name":
+                return new SnapshotQuery(description, null, List.of(new Condition("class", value, false)), false,
+                        null);
+            case "accessibility id":
+                return new SnapshotQuery(description, null, List.of(new Condition("content-desc", value, false)),
+                        false, null);
+            case "-android uiautomator":
+                return compileUiSelector(description, value.trim());
+            case "xpath":
+                SnapshotQuery simple = compileXPath(description, value.trim());
+                return simple != null ? simple : compileExpression(description, value);
+            default:
+                return null;
+        }
+    }
+
+    // 只编译单个谓词的后代轴XPath
+    private static SnapshotQuery compileXPath(String description, String xpath) {
+        if (!xpath.startsWith("//")) {
+            return null;
+        }
+        String rest = xpath.substring(2);
+        int bracket = rest.indexOf('[');
+        String tag = bracket < 0 ? rest : rest.substring(0, bracket);
+        if (!TAG.matcher(tag).matches()) {
+            return null;
+        }
+        tag = "*".equals(tag) ? null : tag;
+        if (bracket < 0) {
+            return new SnapshotQuery(description, tag, List.of(), false, null);
+        }
+        if (!rest.endsWith("]")) {
+            return null;
+        }
+
+        String predicate = rest.substring(bracket + 1, rest.length() - 1);
+        List<Condition> conditions = new ArrayList<>();
+        String connective = null;
+        Matcher matcher = CONDITION.matcher(predicate);
+        int position = 0;
+        while (true) {
+            matcher.region(position, predicate.length());
+            if (!matcher.lookingAt()) {
+                return null;
+            }
+            Condition condition = matcher.group(1) != null
+                    ? new Condition(matcher.group(1), matcher.group(3), false)
+                    : new Condition(matcher.group(4), matcher.group(6), true);
+            if (!PageSnapshot.Node.ATTRIBUTES.contains(condition.attribute())) {
+                // 快照中没有该属性
+                return null;
+            }
+            conditions.add(condition);
+            position = matcher.end();
+            if (position >= predicate.length()) {
+                break;
+            }
+
+            Matcher next = CONNECTIVE.matcher(predicate);
+            next.region(position, predicate.length());
+            if (!next.lookingAt() || (connective != null && !connective.equals(next.group(1)))) {
+                // 混合使用and与or时不处理优先级，交给驱动
+                return null;
+            }
+            connective = next.group(1);
+            position = next.end();
+        }
+        return new SnapshotQuery(description, tag, List.copyOf(conditions), "or".equals(connective), null);
+    }
+
+    // 只编译new UiSelector()后接若干字符串条件的形式，其他方法（instance、scrollable等）交给驱动
+    private static SnapshotQuery compileUiSelector(String description, String selector) {
+        String prefix = "new UiSelector()";
+        if (!selector.startsWith(prefix)) {
+            return null;
+        }
+        String rest = selector.endsWith(";") ? selector.substring(0, selector.length() - 1) : selector;
+
+        List<Condition> conditions = new ArrayList<>();
+        Matcher matcher = SELECTOR_METHOD.matcher(rest);
+        int position = prefix.length();
+        while (position < rest.length()) {
+            matcher.region(position, rest.length());
+            if (!matcher.lookingAt()) {
+                return null;
+            }
+            String value = matcher.group(2).replace("\\\"", "\"").replace("\\\\", "\\");
+            Condition condition = switch (matcher.group(1)) {
+                case "resourceId" -> new Condition("resource-id", value, false);
+                case "text" -> new Condition("text", value, false);
+                case "textContains" -> new Condition("text", value, true);
+                case "description" -> new Condition("content-desc", value, false);
+                case "descriptionContains" -> new Condition("content-desc", value, true);
+                case "className" -> new Condition("class", value, false);
+                default -> null;
+            };
+            if (condition == null) {
+                return null;
+            }
+            conditions.add(condition);
+            position = matcher.end();
+        }
+        if (conditions.isEmpty()) {
+            return null;
+        }
+        return new SnapshotQuery(description, null, List.copyOf(conditions), false, null);
+    }
+
+    // 编译完整的XPath，语法错误时交给驱动报告
+    private static SnapshotQuery compileExpression(String description, String xpath) {
+        try {
+            return new SnapshotQuery(description, XPathFactory.newInstance().newXPath().compile(xpath));
+        } catch (XPathExpressionException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 在快照上执行查询
+     *
+     * @param snapshot 页面快照
+     * @return 按文档顺序排列的匹配节点
+     */
+    public List<PageSnapshot.Node> apply(PageSnapshot snapshot) {
+        if (expression != null) {
+            return evaluate(snapshot);
+        }
+
+        List<PageSnapshot.Node> candidates = snapshot.getNodes();
+        // and关系时用第一个可索引的精确条件缩小范围
+        if (!any) {
+            for (Condition condition : conditions) {
+                // 索引不包含空值
+                List<PageSnapshot.Node> indexed = condition.contains() || condition.value().isEmpty() ? null
+                        : snapshot.findIndexed(condition.attribute(), condition.value());
+                if (indexed != null) {
+                    candidates = indexed;
+                    break;
+                }
+            }
+        }
+
+        List<PageSnapshot.Node> result = new ArrayList<>();
+        for (PageSnapshot.Node node : candidates) {
+            if (matches(node)) {
+                result.add(node);
+            }
+        }
+        return result;
+    }
+
+    // 在页面源码的DOM上执行XPath，结果中的元素映射回快照节点
+    private List<PageSnapshot.Node> evaluate(PageSnapshot snapshot) {
+        NodeList matched;
+        try {
+            matched = (NodeList) expression.evaluate(snapshot.getDocument(), XPathConstants.NODESET);
+        } catch (XPathExpressionException e) {
+            throw new IllegalArgumentException("执行XPath失败: " + locator + ", " + e.getMessage(), e);
+        }
+
+        List<PageSnapshot.Node> result = new ArrayList<>(matched.getLength());
+        for (int i = 0; i < matched.getLength(); i++) {
+            int index = PageSourceParser.indexOf(matched.item(i));
+            if (index >= 0 && index < snapshot.size()) {
+                result.add(snapshot.getNode(index));
+            }
+        }
+        return result;
+    }
+
+    private boolean matches(PageSnapshot.Node node) {
+        if (tag != null && !tag.equals(node.getTag())) {
+            return false;
+        }
+        if (bareId != null && !node.getResourceId().equals(bareId)
+                && !node.getResourceId().endsWith(":id/" + bareId)) {
+            return false;
+        }
+        if (conditions.isEmpty()) {
+            return true;
+        }
+        for (Condition condition : conditions) {
+            if (condition.test(node) == any) {
+                return any;
+            }
+        }
+        return !any;
+    }
+
+    @Override
+    public String toString() {
+        return "SnapshotQuery{" + locator + "}";
+    }
+
+    /**
+     * 单个属性条件
+     */
+    private record Condition(String attribute, String value, boolean contains) {
+
+        boolean test(PageSnapshot.Node node) {
+            String actual = node.attribute(attribute);
+            if (actual == null) {
+                return false;
+            }
+            return contains ? actual.contains(value) : actual.equals(value);
+        }
+    }
+}
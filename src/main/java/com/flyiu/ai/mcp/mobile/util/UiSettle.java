@@ -0,0 +1,90 @@
+package com.flyiu.ai.mcp.mobile.util;
+
+import java.util.function.LongSupplier;
+
+import org.openqa.selenium.WebDriver;
+
+import com.flyiu.ai.mcp.mobile.model.SettleResult;
+
+/**
+ * 等待界面稳定
+ * 反复获取界面指纹（页面源码哈希），连续静默期内指纹不变即认为界面已稳定，
+ * 超过截止时间仍在变化则直接返回。用来代替操作后固定时长的Thread.sleep：
+ * 快的界面不必多等，慢的界面也不会等不够
+ */
+public class UiSettle {
+
+    // 默认静默期，指纹在这段时间内不变即视为稳定
+    public static final long DEFAULT_QUIET_MILLIS = 300;
+    // 默认截止时间
+    public static final long DEFAULT_TIMEOUT_MILLIS = 5000;
+    // 默认两次获取指纹之间的间隔
+    public static final long DEFAULT_POLL_MILLIS = 100;
+
+    /**
+     * 使用默认参数等待驱动所在界面稳定
+     *
+     * @param driver 驱动
+     * @return 等待结果
+     */
+    public static SettleResult waitForStable(WebDriver driver) {
+        return waitForStable(driver, DEFAULT_QUIET_MILLIS, DEFAULT_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * 等待驱动所在界面稳定，以页面源码哈希为指纹
+     *
+     * @param driver        驱动
+     * @param quietMillis   静默期（毫秒）
+     * @param timeoutMillis 截止时间（毫秒）
+     * @return 等待结果
+     */
+    public static SettleResult waitForStable(WebDriver driver, long quietMillis, long timeoutMillis) {
+        return waitForStable(() -> PageSourceParser.fingerprint(driver.getPageSource()), quietMillis, timeoutMillis,
+                DEFAULT_POLL_MILLIS);
+    }
+
+    /**
+     * 等待指纹稳定
+     *
+     * @param fingerprint   获取当前界面指纹
+     * @param quietMillis   静默期（毫秒）
+     * @param timeoutMillis 截止时间（毫秒）
+     * @param pollMillis    两次获取指纹之间的间隔（毫秒）
+     * @return 等待结果
+     */
+    public static SettleResult waitForStable(LongSupplier fingerprint, long quietMillis, long timeoutMillis,
+            long pollMillis) {
+        long start = System.currentTimeMillis();
+        long deadline = start + timeoutMillis;
+        long last = fingerprint.getAsLong();
+        long changedAt = start;
+        int probes = 1;
+
+        while (true) {
+            long now = System.currentTimeMillis();
+            // 至少比较过一次，且最后一次变化后已经静默足够长
+            if (probes > 1 && now - changedAt >= quietMillis) {
+                return new SettleResult(true, changedAt - start, now - start, probes, last);
+            }
+            long remaining = deadline - now;
+            if (remaining <= 0) {
+                return new SettleResult(false, changedAt - start, now - start, probes, last);
+            }
+
+            try {
+                Thread.sleep(Math.min(remaining, Math.max(1, pollMillis)));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return new SettleResult(false, changedAt - start, System.currentTimeMillis() - start, probes, last);
+            }
+
+            long current = fingerprint.getAsLong();
+            probes++;
+            if (current != last) {
+                last = current;
+                changedAt = System.currentTimeMillis();
+            }
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package com.flyiu.ai.mcp.mobile.service.appium;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.flyiu.ai.mcp.mobile.config.AppiumConfig;
+import com.flyiu.ai.mcp.mobile.config.DeviceConfig;
+
+/**
+ * adb devices -l输出解析，以及使用输出可控的adb替身脚本验证设备的注册与注销
+ */
+class AdbDeviceDiscoveryTests {
+
+    @TempDir
+    Path tempDir;
+
+    private Path devicesFile;
+    private Path exitCodeFile;
+    private DeviceRegistry deviceRegistry;
+    private DeviceCommandQueue commandQueue;
+    private AdbDeviceDiscovery discovery;
+    private final List<String> discarded = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        devicesFile = tempDir.resolve("devices.txt");
+        exitCodeFile = tempDir.resolve("exit-code");
+        Files.writeString(devicesFile, "List of devices attached\n\n");
+        Files.writeString(exitCodeFile, "0");
+
+        DeviceConfig deviceConfig = new DeviceConfig();
+        deviceConfig.getDiscovery().setAdbPath(writeStubAdb().toString());
+        AppiumConfig appiumConfig = new AppiumConfig();
+
+        deviceRegistry = new DeviceRegistry(deviceConfig);
+        commandQueue = new DeviceCommandQueue(appiumConfig);
+        AppiumSessionManager sessionManager = new AppiumSessionManager(appiumConfig, deviceRegistry, null, null, null,
+                commandQueue) {
+            @Override
+            public void discardSession(String deviceName) {
+                discarded.add(deviceName);
+            }
+        };
+        discovery = new AdbDeviceDiscovery(deviceConfig, appiumConfig, deviceRegistry, sessionManager, commandQueue);
+    }
+
+    @Test
+    void parsesDevicesWithProperties() {
+        String output = """
+                * daemon not running; starting now at tcp:5037
+                * daemon started successfully
+                List of devices attached
+                R58M123ABC             device usb:1-1 product:beyond1 model:SM_G973F device:beyond1 transport_id:3
+                emulator-5554          device product:sdk_gphone64 model:sdk_gphone64_x86_64 transport_id:1
+                0123456789ABCDEF       unauthorized usb:1-2 transport_id:4
+                192.168.1.20:5555      offline
+
+                """;
+
+        Map<String, Map<String, String>> devices = AdbDeviceDiscovery.parseDevices(output);
+
+        assertEquals(List.of("R58M123ABC", "emulator-5554", "0123456789ABCDEF", "192.168.1.20:5555"),
+                List.copyOf(devices.keySet()));
+        Map<String, String> phone = devices.get("R58M123ABC");
+        assertEquals("device", phone.get("state"));
+        assertEquals("SM_G973F", phone.get("model"));
+        assertEquals("1-1", phone.get("usb"));
+        assertEquals("3", phone.get("transport_id"));
+        assertEquals("unauthorized", devices.get("0123456789ABCDEF").get("state"));
+        assertEquals(Map.of("state", "offline"), devices.get("192.168.1.20:5555"));
+    }
+
+    @Test
+    void parsesEmptyAndWindowsLineEndings() {
+        assertTrue(AdbDeviceDiscovery.parseDevices("").isEmpty());
+        assertTrue(AdbDeviceDiscovery.parseDevices("List of devices attached\r\n\r\n").isEmpty());
+
+        Map<String, Map<String, String>> devices = AdbDeviceDiscovery
+                .parseDevices("List of devices attached\r\nSERIAL1\tdevice\r\n");
+        assertEquals("device", devices.get("SERIAL1").get("state"));
+    }
+
+    @Test
+    @DisabledOnOs(OS.WINDOWS)
+    void attachesOnlineDevicesWithDistinctSystemPorts() throws IOException {
+        adbOutput("SER1 device model:Pixel_7", "SER2 device model:Pixel_8", "SER3 unauthorized");
+        discovery.poll();
+
+        Map<String, DeviceConfig.DeviceCapabilities> registered = deviceRegistry.getDiscoveredDevices();
+        assertEquals(2, registered.size());
+        DeviceConfig.DeviceCapabilities first = registered.get("android-SER1");
+        assertNotNull(first);
+        assertEquals("SER1", first.getUdid());
+        assertEquals("Android", first.getPlatformName());
+        assertEquals(8200, first.getExtraCapabilities().get("systemPort"));
+        assertEquals(8201, registered.get("android-SER2").getExtraCapabilities().get("systemPort"));
+        assertFalse(registered.containsKey("android-SER3"));
+
+        // 再次轮询不会重复注册
+        discovery.poll();
+        assertEquals(2L, discovery.getDiscoveryStatus().get("attachCount"));
+    }
+
+    @Test
+    @DisabledOnOs(OS.WINDOWS)
+    void detachesUnpluggedAndOfflineDevices() throws IOException {
+        adbOutput("SER1 device", "SER2 device");
+        discovery.poll();
+        commandQueue.run("android-SER1", () -> {
+        });
+
+        adbOutput("SER2 offline");
+        discovery.poll();
+
+        assertTrue(deviceRegistry.getDiscoveredDevices().isEmpty());
+        assertEquals(List.of("android-SER1", "android-SER2"), discarded.stream().sorted().toList());
+        assertEquals(2L, discovery.getDiscoveryStatus().get("detachCount"));
+        assertFalse(((Map<?, ?>) commandQueue.getQueueStatus().get("devices")).containsKey("android-SER1"));
+
+        // 重新接入后分配回最小的systemPort
+        adbOutput("SER2 device");
+        discovery.poll();
+        assertEquals(8200, deviceRegistry.getDiscoveredDevices().get("android-SER2").getExtraCapabilities()
+                .get("systemPort"));
+    }
+
+    @Test
+    @DisabledOnOs(OS.WINDOWS)
+    void keepsDevicesWhenAdbFails() throws IOException {
+        adbOutput("SER1 device");
+        discovery.poll();
+
+        Files.writeString(exitCodeFile, "1");
+        discovery.poll();
+
+        assertTrue(deviceRegistry.getDiscoveredDevices().containsKey("android-SER1"));
+        assertTrue(discarded.isEmpty());
+        assertFalse(((String) discovery.getDiscoveryStatus().get("lastError")).isEmpty());
+    }
+
+    private void adbOutput(String... lines) throws IOException {
+        Files.writeString(devicesFile, "List of devices attached\n" + String.join("\n", lines) + "\n\n");
+    }
+
+    // 生成输出devices.txt内容、以exit-code内容作为退出码的adb脚本
+    private Path writeStubAdb() throws IOException {
+        String script = "#!/bin/sh\n"
+                + "cat '" + devicesFile + "'\n"
+                + "exit $(cat '" + exitCodeFile + "')\n";
+        Path path = tempDir.resolve("adb");
+        Files.writeString(path, script);
+        Files.setPosixFilePermissions(path, PosixFilePermissions.fromString("rwxr-xr-x"));
+        return path;
+    }
+}
@@ -0,0 +1,168 @@
+package com.flyiu.ai.mcp.mobile.service.appium;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.flyiu.ai.mcp.mobile.config.AppiumConfig;
+
+/**
+ * 使用StubAppiumServer作为appium可执行文件，验证进程池的启动、注册与异常退出后的重启
+ */
+@DisabledOnOs(OS.WINDOWS)
+class AppiumProcessManagerTests {
+
+    private static final String DEFAULT_URL = "http://127.0.0.1:4723";
+
+    @TempDir
+    Path tempDir;
+
+    private AppiumConfig config;
+    private AppiumServerRegistry registry;
+    private AppiumProcessManager manager;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        config = new AppiumConfig();
+        AppiumConfig.Server server = new AppiumConfig.Server();
+        server.setUrl(DEFAULT_URL);
+        server.setAppiumPath(writeStubScript().toString());
+        server.setArgs(List.of());
+        server.setStartupTimeout(20000);
+        server.setStatusTimeout(1000);
+        config.setServer(server);
+
+        AppiumConfig.Processes processes = config.getProcesses();
+        processes.setEnabled(true);
+        processes.setSize(2);
+        processes.setBasePort(freePort());
+        processes.setCapacity(3);
+        processes.setRestartBackoff(100);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (manager != null) {
+            manager.shutdown();
+        }
+    }
+
+    @Test
+    void defaultNodeIsNotRegisteredWhenProcessPoolIsEnabled() {
+        registry = new AppiumServerRegistry(config);
+        assertTrue(registry.getNodeUrls().isEmpty());
+
+        config.getProcesses().setEnabled(false);
+        assertEquals(List.of(DEFAULT_URL), new AppiumServerRegistry(config).getNodeUrls());
+    }
+
+    @Test
+    void startsProcessesAndRegistersThemWhenReady() {
+        startManager();
+
+        waitUntil(() -> registry.getNodeUrls().size() == 2);
+        assertFalse(registry.getNodeUrls().contains(DEFAULT_URL));
+        registry.getServerStatus().forEach(node -> assertEquals(3, node.get("capacity")));
+        manager.getProcessStatus().forEach(process -> assertEquals(true, process.get("ready")));
+
+        // 设备只会分配到托管进程上
+        String assigned = registry.acquire("device-a", Set.of());
+        assertTrue(registry.getNodeUrls().contains(assigned));
+    }
+
+    @Test
+    void restartsProcessThatExits() {
+        startManager();
+        waitUntil(() -> allReady(manager.getProcessStatus()));
+
+        Map<String, Object> victim = manager.getProcessStatus().get(0);
+        long pid = ((Number) victim.get("pid")).longValue();
+        ProcessHandle.of(pid).ifPresent(ProcessHandle::destroyForcibly);
+
+        waitUntil(() -> manager.getProcessStatus().stream()
+                .filter(process -> process.get("port").equals(victim.get("port")))
+                .anyMatch(process -> ((Number) process.get("restartCount")).intValue() == 1
+                        && Boolean.TRUE.equals(process.get("ready"))
+                        && ((Number) process.get("pid")).longValue() != pid));
+    }
+
+    @Test
+    void shutdownStopsProcessesAndUnregistersNodes() {
+        startManager();
+        waitUntil(() -> allReady(manager.getProcessStatus()));
+        List<Long> pids = manager.getProcessStatus().stream()
+                .map(process -> ((Number) process.get("pid")).longValue())
+                .toList();
+
+        manager.shutdown();
+        manager = null;
+
+        assertTrue(registry.getNodeUrls().isEmpty());
+        pids.forEach(pid -> waitUntil(() -> ProcessHandle.of(pid).map(handle -> !handle.isAlive()).orElse(true)));
+    }
+
+    private void startManager() {
+        AppiumServerService serverService = new AppiumServerService(config);
+        registry = new AppiumServerRegistry(config);
+        AppiumServerStatusMonitor statusMonitor = new AppiumServerStatusMonitor(config, serverService, registry);
+        manager = new AppiumProcessManager(config, serverService, registry, statusMonitor);
+        manager.start();
+    }
+
+    // 生成以appium参数启动StubAppiumServer的脚本
+    private Path writeStubScript() throws Exception {
+        String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+        // StubAppiumServer只依赖JDK，类路径只需包含测试类目录
+        String classes = Path.of(StubAppiumServer.class.getProtectionDomain().getCodeSource().getLocation().toURI())
+                .toString();
+        String script = "#!/bin/sh\n"
+                + "exec '" + java + "' -cp '" + classes + "' "
+                + StubAppiumServer.class.getName() + " \"$@\"\n";
+        Path path = tempDir.resolve("appium");
+        Files.writeString(path, script);
+        Files.setPosixFilePermissions(path, PosixFilePermissions.fromString("rwxr-xr-x"));
+        return path;
+    }
+
+    private static boolean allReady(List<Map<String, Object>> processes) {
+        return processes.size() == 2 && processes.stream().allMatch(process -> Boolean.TRUE.equals(process.get("ready")));
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static void waitUntil(BooleanSupplier condition) {
+        long deadline = System.currentTimeMillis() + 30000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new AssertionError("等待条件超时");
+            }
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new AssertionError("等待被中断", e);
+            }
+        }
+    }
+}
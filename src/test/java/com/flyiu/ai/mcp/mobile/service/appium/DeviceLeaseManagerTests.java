@@ -0,0 +1,138 @@
+package com.flyiu.ai.mcp.mobile.service.appium;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.flyiu.ai.mcp.mobile.config.AppiumConfig;
+import com.flyiu.ai.mcp.mobile.config.DeviceConfig;
+
+/**
+ * 设备租约的排队、超时与同一租用者重复租用
+ */
+class DeviceLeaseManagerTests {
+
+    private static final String DEVICE = "device-a";
+
+    private DeviceLeaseManager leaseManager;
+
+    @BeforeEach
+    void setUp() {
+        DeviceConfig.DeviceCapabilities device = new DeviceConfig.DeviceCapabilities();
+        device.setName(DEVICE);
+        device.setPlatformName("Android");
+        DeviceConfig deviceConfig = new DeviceConfig();
+        deviceConfig.setAndroid(List.of(device));
+
+        AppiumConfig appiumConfig = new AppiumConfig();
+        DeviceRegistry deviceRegistry = new DeviceRegistry(deviceConfig);
+        AppiumSessionManager sessionManager = new AppiumSessionManager(appiumConfig, deviceRegistry, null, null, null,
+                new DeviceCommandQueue(appiumConfig));
+        leaseManager = new DeviceLeaseManager(appiumConfig, sessionManager, deviceRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        leaseManager.shutdown();
+    }
+
+    @Test
+    void sameOwnerReacquiringGetsTheSameLease() {
+        Map<String, Object> first = leaseManager.acquire(DEVICE, "alice", 0, 0, 0);
+        Map<String, Object> second = leaseManager.acquire(DEVICE, "alice", 0, 0, 0);
+
+        assertEquals(true, second.get("success"));
+        assertEquals(true, second.get("renewed"));
+        assertEquals(first.get("leaseId"), second.get("leaseId"));
+    }
+
+    @Test
+    void waitingOwnerKeepsOnePlaceInTheQueue() {
+        Map<String, Object> held = leaseManager.acquire(DEVICE, "alice", 0, 0, 0);
+
+        CompletableFuture<Map<String, Object>> first = CompletableFuture
+                .supplyAsync(() -> leaseManager.acquire(DEVICE, "bob", 0, 0, 10000));
+        waitUntil(() -> waiting() == 1);
+        CompletableFuture<Map<String, Object>> second = CompletableFuture
+                .supplyAsync(() -> leaseManager.acquire(DEVICE, "bob", 0, 0, 10000));
+        CompletableFuture<Map<String, Object>> carol = CompletableFuture
+                .supplyAsync(() -> leaseManager.acquire(DEVICE, "carol", 0, 0, 10000));
+        waitUntil(() -> waiting() == 2);
+
+        assertTrue(leaseManager.release((String) held.get("leaseId")));
+
+        // bob的两个请求拿到同一个租约，carol仍在等待
+        assertEquals(first.join().get("leaseId"), second.join().get("leaseId"));
+        assertEquals("bob", first.join().get("owner"));
+        assertEquals(1, waiting());
+        assertFalse(carol.isDone());
+
+        assertTrue(leaseManager.release((String) first.join().get("leaseId")));
+        assertEquals("carol", carol.join().get("owner"));
+    }
+
+    @Test
+    void timedOutDuplicateDoesNotDropTheOtherRequest() {
+        Map<String, Object> held = leaseManager.acquire(DEVICE, "alice", 0, 0, 0);
+
+        CompletableFuture<Map<String, Object>> patient = CompletableFuture
+                .supplyAsync(() -> leaseManager.acquire(DEVICE, "bob", 0, 0, 10000));
+        waitUntil(() -> waiting() == 1);
+
+        Map<String, Object> impatient = leaseManager.acquire(DEVICE, "bob", 0, 0, 50);
+        assertEquals(false, impatient.get("success"));
+        assertEquals(1, waiting());
+
+        leaseManager.release((String) held.get("leaseId"));
+        assertEquals(true, patient.join().get("success"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void timeoutsAreKeptOutOfTheWaitHistogram() {
+        Map<String, Object> held = leaseManager.acquire(DEVICE, "alice", 0, 0, 0);
+        assertEquals(false, leaseManager.acquire(DEVICE, "bob", 0, 0, 50).get("success"));
+
+        Map<String, Object> status = leaseManager.getLeaseStatus();
+        assertEquals(1L, status.get("grantedCount"));
+        assertEquals(1L, status.get("timeoutCount"));
+        assertEquals(1L, total((Map<String, Object>) status.get("waitHistogram")));
+        assertEquals(1L, total((Map<String, Object>) status.get("timeoutHistogram")));
+
+        leaseManager.release((String) held.get("leaseId"));
+    }
+
+    private static long total(Map<String, Object> histogram) {
+        return histogram.values().stream().mapToLong(count -> (Long) count).sum();
+    }
+
+    @SuppressWarnings("unchecked")
+    private int waiting() {
+        Map<String, Object> devices = (Map<String, Object>) leaseManager.getLeaseStatus().get("devices");
+        return (int) ((Map<String, Object>) devices.get(DEVICE)).get("waiting");
+    }
+
+    private static void waitUntil(BooleanSupplier condition) {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new AssertionError("等待条件超时");
+            }
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new AssertionError("等待被中断", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.flyiu.ai.mcp.mobile.service.appium;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * 测试用的Appium服务器替身，只响应GET /status
+ * 接受与appium相同的--address与--port参数，由测试生成的脚本启动
+ */
+public class StubAppiumServer {
+
+    public static void main(String[] args) throws IOException {
+        String address = "127.0.0.1";
+        int port = 4723;
+        for (int i = 0; i + 1 < args.length; i++) {
+            if ("--address".equals(args[i])) {
+                address = args[i + 1];
+            } else if ("--port".equals(args[i])) {
+                port = Integer.parseInt(args[i + 1]);
+            }
+        }
+
+        HttpServer server = HttpServer.create(new InetSocketAddress(address, port), 0);
+        server.createContext("/status", exchange -> {
+            byte[] body = "{\"value\":{\"ready\":true}}".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        System.out.println("stub appium listening on " + address + ":" + port);
+    }
+}
@@ -0,0 +1,125 @@
+package com.flyiu.ai.mcp.mobile.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.openqa.selenium.By;
+
+import com.flyiu.ai.mcp.mobile.model.PageSnapshot;
+
+import io.appium.java_client.AppiumBy;
+
+/**
+ * 定位器生成，每个生成的定位器都回到同一份快照上验证只定位到目标节点
+ */
+class LocatorDeriverTests {
+
+    private final PageSnapshot android = PageSourceParser.parse(TestPages.ANDROID, 1);
+    private final PageSnapshot ios = PageSourceParser.parse(TestPages.IOS, 1);
+
+    @Test
+    void prefersResourceIdOnAndroid() {
+        PageSnapshot.Node ok = android.getNode(3);
+
+        assertEquals(Map.of("type", "id", "value", "com.example:id/ok"), LocatorDeriver.deriveLocator(android, ok));
+        assertEquals("//*[@resource-id='com.example:id/ok']", LocatorDeriver.deriveXPath(android, ok));
+        assertEquals("new UiSelector().resourceId(\"com.example:id/ok\")", LocatorDeriver.deriveUiSelector(android, ok));
+        assertLocates(android, By.xpath(LocatorDeriver.deriveXPath(android, ok)), ok);
+    }
+
+    @Test
+    void escapesQuotesInAndroidLocators() {
+        PageSnapshot page = PageSourceParser.parse(TestPages.ANDROID.replace("com.example:id/search", ""), 1);
+        PageSnapshot.Node search = page.getNode(5);
+
+        String uiSelector = LocatorDeriver.deriveUiSelector(page, search);
+        assertEquals("new UiSelector().text(\"Say \\\"hi\\\" it's me\")", uiSelector);
+        assertLocates(page, AppiumBy.androidUIAutomator(uiSelector), search);
+
+        String xpath = LocatorDeriver.deriveXPath(page, search);
+        assertEquals("//*[@text=concat('Say \"hi\" it', \"'\", 's me')]", xpath);
+        assertLocates(page, By.xpath(xpath), search);
+    }
+
+    @Test
+    void usesAccessibilityIdWithQuotes() {
+        PageSnapshot page = PageSourceParser.parse(TestPages.ANDROID
+                .replace("com.example:id/ok", "").replace("content-desc=\"confirm\"", "content-desc=\"it's ok\""), 1);
+        PageSnapshot.Node ok = page.getNode(3);
+
+        assertEquals(Map.of("type", "accessibility", "value", "it's ok"), LocatorDeriver.deriveLocator(page, ok));
+        assertLocates(page, AppiumBy.accessibilityId("it's ok"), ok);
+    }
+
+    @Test
+    void fallsBackToAnchoredAndAbsoluteXPathOnAndroid() {
+        PageSnapshot.Node hidden = android.getNode(6);
+        // 与标题文本相同，只能按位置定位
+        assertEquals("/hierarchy/android.widget.FrameLayout[1]/android.widget.TextView[2]",
+                LocatorDeriver.deriveXPath(android, hidden));
+        assertEquals("xpath", LocatorDeriver.deriveLocator(android, hidden).get("type"));
+        assertLocates(android, By.xpath(LocatorDeriver.deriveXPath(android, hidden)), hidden);
+
+        PageSnapshot anchored = PageSourceParser.parse(TestPages.ANDROID
+                .replace("class=\"android.widget.FrameLayout\" text=\"\" resource-id=\"\"",
+                        "class=\"android.widget.FrameLayout\" text=\"\" resource-id=\"com.example:id/root\""), 1);
+        assertEquals("//*[@resource-id='com.example:id/root']/android.widget.TextView[2]",
+                LocatorDeriver.deriveXPath(anchored, anchored.getNode(6)));
+    }
+
+    @Test
+    void usesNameOnXcuiTest() {
+        PageSnapshot.Node login = ios.getNode(2);
+
+        assertEquals(Map.of("type", "accessibility", "value", "login"), LocatorDeriver.deriveLocator(ios, login));
+        assertEquals("//*[@name='login']", LocatorDeriver.deriveXPath(ios, login));
+        assertNull(LocatorDeriver.deriveUiSelector(ios, login));
+        assertLocates(ios, By.xpath(LocatorDeriver.deriveXPath(ios, login)), login);
+    }
+
+    @Test
+    void usesLabelOrValueOnXcuiTest() {
+        // 去掉name后按label定位
+        PageSnapshot page = PageSourceParser.parse(TestPages.IOS
+                .replace("name=\"login\"", "name=\"\"").replace("name=\"email\"", "name=\"\""), 1);
+
+        String loginXPath = LocatorDeriver.deriveXPath(page, page.getNode(2));
+        assertEquals("//*[@label='Log in']", loginXPath);
+        assertLocates(page, By.xpath(loginXPath), page.getNode(2));
+        assertEquals(Map.of("type", "xpath", "value", loginXPath), LocatorDeriver.deriveLocator(page, page.getNode(2)));
+
+        String emailXPath = LocatorDeriver.deriveXPath(page, page.getNode(3));
+        assertEquals("//*[@value='user@example.com']", emailXPath);
+        assertLocates(page, By.xpath(emailXPath), page.getNode(3));
+    }
+
+    @Test
+    void narrowsLabelByTypeOnXcuiTest() {
+        PageSnapshot page = PageSourceParser.parse(TestPages.IOS
+                .replace("name=\"login\" label=\"Log in\"", "name=\"\" label=\"Welcome\""), 1);
+        PageSnapshot.Node login = page.getNode(2);
+
+        String xpath = LocatorDeriver.deriveXPath(page, login);
+        assertEquals("//XCUIElementTypeButton[@label='Welcome']", xpath);
+        assertLocates(page, By.xpath(xpath), login);
+    }
+
+    @Test
+    void anchorsOnNamedAncestorOnXcuiTest() {
+        PageSnapshot page = PageSourceParser.parse(TestPages.IOS
+                .replace("name=\"login\" label=\"Log in\"", "name=\"\" label=\"\""), 1);
+        PageSnapshot.Node login = page.getNode(2);
+
+        String xpath = LocatorDeriver.deriveXPath(page, login);
+        assertEquals("//*[@name='Example']/XCUIElementTypeButton[1]", xpath);
+        assertLocates(page, By.xpath(xpath), login);
+    }
+
+    private static void assertLocates(PageSnapshot snapshot, By locator, PageSnapshot.Node node) {
+        assertEquals(List.of(node), SnapshotQuery.compile(locator).apply(snapshot));
+    }
+}
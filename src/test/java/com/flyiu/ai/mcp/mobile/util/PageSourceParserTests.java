@@ -0,0 +1,136 @@
+package com.flyiu.ai.mcp.mobile.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+import com.flyiu.ai.mcp.mobile.model.PageSnapshot;
+
+/**
+ * 页面源码解析与快照索引
+ */
+class PageSourceParserTests {
+
+    @Test
+    void parsesUiAutomator2Source() {
+        PageSnapshot snapshot = PageSourceParser.parse(TestPages.ANDROID, 7);
+
+        assertEquals(7, snapshot.getVersion());
+        assertEquals(7, snapshot.size());
+
+        // 根节点没有bounds时使用width/height
+        PageSnapshot.Node root = snapshot.getNode(0);
+        assertEquals("hierarchy", root.getTag());
+        assertEquals(-1, root.getParent());
+        assertEquals(1080, root.getWidth());
+        assertEquals(2400, root.getHeight());
+
+        PageSnapshot.Node ok = snapshot.getNode(3);
+        assertEquals("android.widget.Button", ok.getClassName());
+        assertEquals("OK", ok.getText());
+        assertEquals("com.example:id/ok", ok.getResourceId());
+        assertEquals("confirm", ok.getContentDesc());
+        assertEquals("com.example", ok.getPackageName());
+        assertEquals(1, ok.getParent());
+        assertEquals(2, ok.getDepth());
+        assertEquals(100, ok.getX());
+        assertEquals(300, ok.getY());
+        assertEquals(400, ok.getWidth());
+        assertEquals(100, ok.getHeight());
+        assertEquals(300, ok.getCenterX());
+        assertEquals(350, ok.getCenterY());
+        assertTrue(ok.isClickable());
+        assertTrue(ok.isEnabled());
+
+        assertFalse(snapshot.getNode(4).isEnabled());
+        assertTrue(snapshot.getNode(5).isFocused());
+        assertEquals("Say \"hi\" it's me", snapshot.getNode(5).getText());
+        assertFalse(snapshot.getNode(6).isDisplayed());
+    }
+
+    @Test
+    void parsesXcuiTestSource() {
+        PageSnapshot snapshot = PageSourceParser.parse(TestPages.IOS, 1);
+
+        assertEquals(5, snapshot.size());
+        PageSnapshot.Node login = snapshot.getNode(2);
+        assertEquals("XCUIElementTypeButton", login.getClassName());
+        assertEquals("Log in", login.getText());
+        assertEquals("login", login.getContentDesc());
+        assertEquals(20, login.getX());
+        assertEquals(700, login.getY());
+        assertEquals(350, login.getWidth());
+        assertEquals(44, login.getHeight());
+        assertTrue(login.isDisplayed());
+
+        // value优先于label
+        assertEquals("user@example.com", snapshot.getNode(3).getText());
+        assertFalse(snapshot.getNode(4).isDisplayed());
+        // 没有可见性属性的节点视为可见
+        assertTrue(snapshot.getNode(0).isDisplayed());
+    }
+
+    @Test
+    void rejectsMalformedSource() {
+        assertThrows(IllegalArgumentException.class, () -> PageSourceParser.parse("<hierarchy><node>", 1));
+        assertThrows(IllegalArgumentException.class, () -> PageSourceParser.toDocument("not xml"));
+    }
+
+    @Test
+    void fingerprintFollowsContent() {
+        String changed = TestPages.ANDROID.replace("text=\"OK\"", "text=\"Done\"");
+
+        assertEquals(PageSourceParser.fingerprint(TestPages.ANDROID), PageSourceParser.fingerprint(TestPages.ANDROID));
+        assertNotEquals(PageSourceParser.fingerprint(TestPages.ANDROID), PageSourceParser.fingerprint(changed));
+        assertEquals(PageSourceParser.fingerprint(TestPages.ANDROID),
+                PageSourceParser.parse(TestPages.ANDROID, 1).getFingerprint());
+    }
+
+    @Test
+    void documentIndexesMatchSnapshotOrder() {
+        PageSnapshot snapshot = PageSourceParser.parse(TestPages.ANDROID, 1);
+        Document document = PageSourceParser.toDocument(TestPages.ANDROID);
+
+        NodeList elements = document.getElementsByTagName("*");
+        assertEquals(snapshot.size(), elements.getLength());
+        for (int i = 0; i < elements.getLength(); i++) {
+            Element element = (Element) elements.item(i);
+            int index = PageSourceParser.indexOf(element);
+            assertEquals(i, index);
+            assertEquals(snapshot.getNode(index).getTag(), element.getTagName());
+        }
+        assertEquals(-1, PageSourceParser.indexOf(document));
+    }
+
+    @Test
+    void indexesAndNavigatesSnapshot() {
+        PageSnapshot snapshot = PageSourceParser.parse(TestPages.ANDROID, 1);
+
+        assertEquals(List.of(snapshot.getNode(3)), snapshot.findByResourceId("com.example:id/ok"));
+        assertEquals(List.of(snapshot.getNode(2), snapshot.getNode(6)), snapshot.findByText("Hello"));
+        assertEquals(List.of(snapshot.getNode(3)), snapshot.findByContentDesc("confirm"));
+        assertEquals(2, snapshot.findByClass("android.widget.Button").size());
+        assertTrue(snapshot.findByText("missing").isEmpty());
+        assertNull(snapshot.findIndexed("package", "com.example"));
+
+        assertEquals(snapshot.getNode(3), snapshot.findByBounds(100, 300, 400, 100));
+        assertNull(snapshot.findByBounds(1, 2, 3, 4));
+        // 根节点与FrameLayout位置相同
+        assertNull(snapshot.findByBounds(0, 0, 1080, 2400));
+
+        PageSnapshot.Node frame = snapshot.getNode(1);
+        assertEquals(5, snapshot.getChildren(frame).size());
+        assertEquals(frame, snapshot.getParent(snapshot.getNode(5)));
+        assertNull(snapshot.getParent(snapshot.getNode(0)));
+    }
+}
@@ -0,0 +1,75 @@
+package com.flyiu.ai.mcp.mobile.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.flyiu.ai.mcp.mobile.model.PageSnapshot;
+
+/**
+ * 两次观察之间的元素变化
+ */
+class ScreenDiffTests {
+
+    @Test
+    void observesVisibleMeaningfulElements() {
+        Map<String, PageSnapshot.Node> elements = ScreenDiff.observe(PageSourceParser.parse(TestPages.ANDROID, 1));
+
+        // 根节点和FrameLayout没有文本、id且不可点击，不可见的文本被忽略
+        assertEquals(List.of(2, 3, 4, 5), indexes(elements.values()));
+        assertTrue(elements.containsKey("android.widget.Button|com.example:id/ok|OK|confirm#1"));
+    }
+
+    @Test
+    void numbersElementsWithSameIdentity() {
+        String page = TestPages.ANDROID.replace("text=\"Cancel\" resource-id=\"com.example:id/cancel\"",
+                "text=\"OK\" resource-id=\"com.example:id/ok\"").replace("content-desc=\"confirm\"", "content-desc=\"\"");
+        Map<String, PageSnapshot.Node> elements = ScreenDiff.observe(PageSourceParser.parse(page, 1));
+
+        assertEquals(3, elements.get("android.widget.Button|com.example:id/ok|OK|#1").getIndex());
+        assertEquals(4, elements.get("android.widget.Button|com.example:id/ok|OK|#2").getIndex());
+    }
+
+    @Test
+    void identicalScreensHaveNoChanges() {
+        Map<String, PageSnapshot.Node> before = ScreenDiff.observe(PageSourceParser.parse(TestPages.ANDROID, 1));
+        Map<String, PageSnapshot.Node> after = ScreenDiff.observe(PageSourceParser.parse(TestPages.ANDROID, 2));
+
+        ScreenDiff.Delta delta = ScreenDiff.diff(before, after);
+        assertTrue(delta.isEmpty());
+        assertEquals(4, delta.unchanged());
+    }
+
+    @Test
+    void reportsAddedRemovedAndMovedElements() {
+        Map<String, PageSnapshot.Node> before = ScreenDiff.observe(PageSourceParser.parse(TestPages.ANDROID, 1));
+        String page = TestPages.ANDROID
+                // 取消按钮消失，出现新的提示
+                .replace("text=\"Cancel\"", "text=\"Saved\"")
+                // 确定按钮下移
+                .replace("[100,300][500,400]", "[100,800][500,900]");
+        Map<String, PageSnapshot.Node> after = ScreenDiff.observe(PageSourceParser.parse(page, 2));
+
+        ScreenDiff.Delta delta = ScreenDiff.diff(before, after);
+        assertEquals(1, delta.added().size());
+        assertEquals("Saved", delta.added().get(0).getText());
+        assertEquals(1, delta.removed().size());
+        assertEquals("Cancel", delta.removed().get(0).getText());
+        assertEquals(1, delta.moved().size());
+        ScreenDiff.Move move = delta.moved().get(0);
+        assertEquals(300, move.from().getY());
+        assertEquals(800, move.to().getY());
+        assertEquals(2, delta.unchanged());
+    }
+
+    private static List<Integer> indexes(Iterable<PageSnapshot.Node> nodes) {
+        List<Integer> indexes = new ArrayList<>();
+        nodes.forEach(node -> indexes.add(node.getIndex()));
+        return indexes;
+    }
+}
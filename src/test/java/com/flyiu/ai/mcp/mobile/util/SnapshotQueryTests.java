@@ -0,0 +1,84 @@
+package com.flyiu.ai.mcp.mobile.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.openqa.selenium.By;
+
+import com.flyiu.ai.mcp.mobile.model.PageSnapshot;
+
+import io.appium.java_client.AppiumBy;
+
+/**
+ * 定位器编译与在快照上的匹配
+ */
+class SnapshotQueryTests {
+
+    private final PageSnapshot snapshot = PageSourceParser.parse(TestPages.ANDROID, 1);
+
+    @Test
+    void matchesIdLocators() {
+        assertEquals(List.of(3), find(By.id("com.example:id/ok")));
+        // 不含包名的id匹配任意包下的同名id
+        assertEquals(List.of(3), find(By.id("ok")));
+        assertTrue(find(By.id("com.other:id/ok")).isEmpty());
+    }
+
+    @Test
+    void matchesClassNameAndAccessibilityId() {
+        assertEquals(List.of(3, 4), find(By.className("android.widget.Button")));
+        assertEquals(List.of(3), find(AppiumBy.accessibilityId("confirm")));
+    }
+
+    @Test
+    void matchesSimpleXPathOnNodes() {
+        assertEquals(List.of(2, 6), find(By.xpath("//android.widget.TextView")));
+        assertEquals(List.of(3), find(By.xpath("//*[@text='OK']")));
+        assertEquals(List.of(3), find(By.xpath("//android.widget.Button[@clickable=\"true\" and @enabled='true']")));
+        assertEquals(List.of(3, 4), find(By.xpath("//*[@text='OK' or @text='Cancel']")));
+        assertEquals(List.of(3, 4, 5), find(By.xpath("//*[contains(@resource-id,'id/') and @clickable='true']")));
+        assertEquals(List.of(5), find(By.xpath("//*[@text='Say \"hi\" it' or @focused='true']")));
+        assertTrue(find(By.xpath("//android.widget.Button[@text='Hello']")).isEmpty());
+    }
+
+    @Test
+    void evaluatesOtherXPathOnDocument() {
+        assertEquals(List.of(4), find(By.xpath("//android.widget.FrameLayout/android.widget.Button[2]")));
+        assertEquals(List.of(3), find(By.xpath("(//*[@clickable='true'])[1]")));
+        // 混合and与or时按XPath优先级执行
+        assertEquals(List.of(3, 5),
+                find(By.xpath("//*[@text='OK' or @focused='true' and @clickable='true']")));
+        // 快照节点上没有的属性
+        assertEquals(List.of(0), find(By.xpath("//*[@rotation='0']")));
+    }
+
+    @Test
+    void matchesUiSelector() {
+        assertEquals(List.of(3),
+                find(AppiumBy.androidUIAutomator("new UiSelector().resourceId(\"com.example:id/ok\")")));
+        assertEquals(List.of(3), find(AppiumBy
+                .androidUIAutomator("new UiSelector().className(\"android.widget.Button\").textContains(\"O\");")));
+        assertEquals(List.of(5), find(AppiumBy.androidUIAutomator("new UiSelector().text(\"Say \\\"hi\\\" it's me\")")));
+        assertEquals(List.of(3), find(AppiumBy.androidUIAutomator("new UiSelector().descriptionContains(\"conf\")")));
+    }
+
+    @Test
+    void leavesUnsupportedLocatorsToTheDriver() {
+        assertNull(SnapshotQuery.compile(By.cssSelector("#ok")));
+        assertNull(SnapshotQuery.compile(AppiumBy.androidUIAutomator("new UiSelector().text(\"OK\").instance(0)")));
+        assertNull(SnapshotQuery.compile(AppiumBy.androidUIAutomator("new UiScrollable(new UiSelector())")));
+        assertNull(SnapshotQuery.compile(AppiumBy.androidUIAutomator("new UiSelector()")));
+        assertNull(SnapshotQuery.compile(By.xpath("//*[@text='OK'")));
+    }
+
+    private List<Integer> find(By locator) {
+        SnapshotQuery query = SnapshotQuery.compile(locator);
+        assertNotNull(query, "无法编译: " + locator);
+        return query.apply(snapshot).stream().map(PageSnapshot.Node::getIndex).toList();
+    }
+}
@@ -0,0 +1,40 @@
+package com.flyiu.ai.mcp.mobile.util;
+
+/**
+ * 测试用的页面源码
+ */
+final class TestPages {
+
+    /**
+     * UiAutomator2页面，节点序号: 0 hierarchy, 1 FrameLayout, 2 标题, 3 确定按钮, 4 取消按钮, 5 搜索框, 6 不可见的文本
+     */
+    static final String ANDROID = """
+            <?xml version='1.0' encoding='UTF-8' standalone='yes' ?>
+            <hierarchy index="0" class="hierarchy" rotation="0" width="1080" height="2400">
+              <android.widget.FrameLayout index="0" package="com.example" class="android.widget.FrameLayout" text="" resource-id="" content-desc="" clickable="false" enabled="true" focused="false" scrollable="false" selected="false" checked="false" displayed="true" bounds="[0,0][1080,2400]">
+                <android.widget.TextView index="0" package="com.example" class="android.widget.TextView" text="Hello" resource-id="com.example:id/title" content-desc="" clickable="false" enabled="true" displayed="true" bounds="[0,100][1080,200]" />
+                <android.widget.Button index="1" package="com.example" class="android.widget.Button" text="OK" resource-id="com.example:id/ok" content-desc="confirm" clickable="true" enabled="true" displayed="true" bounds="[100,300][500,400]" />
+                <android.widget.Button index="2" package="com.example" class="android.widget.Button" text="Cancel" resource-id="com.example:id/cancel" content-desc="" clickable="true" enabled="false" displayed="true" bounds="[600,300][1000,400]" />
+                <android.widget.EditText index="3" package="com.example" class="android.widget.EditText" text="Say &quot;hi&quot; it's me" resource-id="com.example:id/search" content-desc="" clickable="true" enabled="true" focused="true" displayed="true" bounds="[0,500][1080,600]" />
+                <android.widget.TextView index="4" package="com.example" class="android.widget.TextView" text="Hello" resource-id="" content-desc="" clickable="false" enabled="true" displayed="false" bounds="[0,0][0,0]" />
+              </android.widget.FrameLayout>
+            </hierarchy>
+            """;
+
+    /**
+     * XCUITest页面，节点序号: 0 AppiumAUT, 1 应用, 2 登录按钮, 3 邮箱输入框, 4 不可见的欢迎文本
+     */
+    static final String IOS = """
+            <?xml version="1.0" encoding="UTF-8"?>
+            <AppiumAUT>
+              <XCUIElementTypeApplication type="XCUIElementTypeApplication" name="Example" label="Example" enabled="true" visible="true" x="0" y="0" width="390" height="844">
+                <XCUIElementTypeButton type="XCUIElementTypeButton" name="login" label="Log in" enabled="true" visible="true" x="20" y="700" width="350" height="44"/>
+                <XCUIElementTypeTextField type="XCUIElementTypeTextField" name="email" label="" value="user@example.com" enabled="true" visible="true" x="20" y="300" width="350" height="40"/>
+                <XCUIElementTypeStaticText type="XCUIElementTypeStaticText" name="Welcome" label="Welcome" value="Welcome" enabled="true" visible="false" x="20" y="100" width="350" height="30"/>
+              </XCUIElementTypeApplication>
+            </AppiumAUT>
+            """;
+
+    private TestPages() {
+    }
+}
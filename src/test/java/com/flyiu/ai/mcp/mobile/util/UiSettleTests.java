@@ -0,0 +1,75 @@
+package com.flyiu.ai.mcp.mobile.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import com.flyiu.ai.mcp.mobile.model.SettleResult;
+
+/**
+ * 等待界面指纹稳定
+ */
+class UiSettleTests {
+
+    @Test
+    void settlesAfterQuietPeriod() {
+        AtomicInteger probes = new AtomicInteger();
+
+        SettleResult result = UiSettle.waitForStable(() -> {
+            probes.incrementAndGet();
+            return 42;
+        }, 50, 2000, 10);
+
+        assertTrue(result.settled());
+        assertEquals(0, result.settleMillis());
+        assertTrue(result.elapsedMillis() >= 50);
+        assertTrue(result.elapsedMillis() < 2000);
+        assertEquals(probes.get(), result.probes());
+        assertEquals(42, result.fingerprint());
+    }
+
+    @Test
+    void waitsUntilFingerprintStopsChanging() {
+        AtomicInteger probes = new AtomicInteger();
+
+        // 前5次获取时界面仍在变化
+        SettleResult result = UiSettle.waitForStable(() -> Math.min(probes.incrementAndGet(), 5), 50, 2000, 10);
+
+        assertTrue(result.settled());
+        assertEquals(5, result.fingerprint());
+        assertTrue(result.probes() > 5);
+        assertTrue(result.settleMillis() > 0);
+        assertTrue(result.elapsedMillis() - result.settleMillis() >= 50);
+    }
+
+    @Test
+    void givesUpAtDeadline() {
+        AtomicInteger probes = new AtomicInteger();
+
+        SettleResult result = UiSettle.waitForStable(probes::incrementAndGet, 100, 150, 10);
+
+        assertFalse(result.settled());
+        assertTrue(result.elapsedMillis() >= 150);
+        assertTrue(result.elapsedMillis() < 1000);
+        assertEquals(probes.get(), result.probes());
+        assertEquals(probes.get(), result.fingerprint());
+    }
+
+    @Test
+    void stopsWhenInterrupted() {
+        Thread.currentThread().interrupt();
+        try {
+            SettleResult result = UiSettle.waitForStable(() -> 1, 1000, 5000, 100);
+
+            assertFalse(result.settled());
+            assertEquals(1, result.probes());
+            assertTrue(Thread.currentThread().isInterrupted());
+        } finally {
+            Thread.interrupted();
+        }
+    }
+}